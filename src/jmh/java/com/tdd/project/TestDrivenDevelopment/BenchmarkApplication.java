@@ -0,0 +1,51 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+//Starts the application for benchmarks, with SQL logging switched off so it does not dominate the measurements
+final class BenchmarkApplication {
+
+    private static final String[] QUIET_ARGS = {
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.org.hibernate.SQL=WARN",
+            "--logging.level.org.hibernate.type=WARN",
+            "--spring.h2.console.enabled=false",
+            "--server.port=0"
+    };
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType) {
+        return new SpringApplicationBuilder(TestDrivenDevelopmentApplication.class)
+                .web(webApplicationType)
+                .logStartupInfo(false)
+                .run(QUIET_ARGS);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String profile, String... args) {
+        String[] allArgs = Arrays.copyOf(QUIET_ARGS, QUIET_ARGS.length + args.length);
+        System.arraycopy(args, 0, allArgs, QUIET_ARGS.length, args.length);
+        return new SpringApplicationBuilder(TestDrivenDevelopmentApplication.class)
+                .web(webApplicationType)
+                .profiles(profile)
+                .logStartupInfo(false)
+                .run(allArgs);
+    }
+
+    static Order newOrder(int i) {
+        Order order = new Order();
+        order.setCustomerName("Customer " + i);
+        order.setOrderDate(LocalDate.of(2023, 1, 1).plusDays(i % 365));
+        order.setShippingAddress(i + " King St");
+        order.setTotal(10.0 + i % 1000);
+        return order;
+    }
+}
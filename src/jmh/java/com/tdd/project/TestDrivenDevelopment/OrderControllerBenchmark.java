@@ -0,0 +1,73 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+//Full-stack request handling through MockMvc, at several table sizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderControllerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private long[] ids;
+    private byte[] createBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        List<Order> orders = new ArrayList<>(tableSize);
+        for (int i = 0; i < tableSize; i++) {
+            orders.add(BenchmarkApplication.newOrder(i));
+        }
+        ids = orderRepository.saveAll(orders).stream().mapToLong(Order::getId).toArray();
+        createBody = context.getBean(ObjectMapper.class).writeValueAsBytes(BenchmarkApplication.newOrder(tableSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult createOrder() throws Exception {
+        return mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content(createBody)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getOrderById() throws Exception {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        return mockMvc.perform(get("/orders/{id}", id)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAllOrders() throws Exception {
+        return mockMvc.perform(get("/orders")).andReturn();
+    }
+}
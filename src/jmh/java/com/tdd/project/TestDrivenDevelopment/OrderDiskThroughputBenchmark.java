@@ -0,0 +1,65 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Sustained insert and read throughput against the prod profile's file-backed H2, from several threads
+//sharing the connection pool. Each trial starts on an empty database in a temporary directory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(4)
+@Fork(1)
+public class OrderDiskThroughputBenchmark {
+
+    private static final int PRELOADED_ORDERS = 10000;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private long[] ids;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("orders-bench");
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "prod", "--orders.data-dir=" + dataDir);
+        orderRepository = context.getBean(OrderRepository.class);
+        List<Order> orders = new ArrayList<>(PRELOADED_ORDERS);
+        for (int i = 0; i < PRELOADED_ORDERS; i++) {
+            orders.add(BenchmarkApplication.newOrder(i));
+        }
+        ids = orderRepository.saveAll(orders).stream().mapToLong(Order::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public Order insert() {
+        return orderRepository.save(BenchmarkApplication.newOrder(counter.incrementAndGet()));
+    }
+
+    @Benchmark
+    public Order read() {
+        return orderRepository.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]).orElseThrow();
+    }
+}
@@ -0,0 +1,72 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.OrderIngestStatus;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderIngestService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Order creation from 16 threads against the prod profile's file-backed H2: one transaction per order (sync) against
+//the write-behind queue, either returning once queued (accepted) or once the order's group has committed (committed).
+//Sample time shows the latency a client of POST /orders would see, without the web layer. Once producers outrun the
+//writer, accepted mode mostly measures how fast a full queue refuses orders, so each trial prints how many were refused.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(16)
+@Fork(1)
+public class OrderIngestBenchmark {
+
+    @Param({"sync", "accepted", "committed"})
+    public String mode;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private OrderIngestService orderIngestService;
+    private final AtomicInteger counter = new AtomicInteger();
+    private final AtomicInteger refused = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("orders-bench");
+        boolean async = !mode.equals("sync");
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "prod",
+                "--orders.data-dir=" + dataDir,
+                "--orders.ingest.async=" + async,
+                "--orders.ingest.durability=" + (async ? mode : "accepted"),
+                "--orders.ingest.queue-capacity=100000");
+        orderRepository = context.getBean(OrderRepository.class);
+        orderIngestService = context.getBean(OrderIngestService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n[%s] orders refused by a full queue: %d of %d%n", mode, refused.get(), counter.get());
+        // Closing waits for the writer to drain the queue
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public Object create() throws InterruptedException {
+        if (mode.equals("sync")) {
+            return orderRepository.save(BenchmarkApplication.newOrder(counter.incrementAndGet()));
+        }
+        OrderIngestStatus status = orderIngestService.submit(BenchmarkApplication.newOrder(counter.incrementAndGet()));
+        if (status == null) {
+            refused.incrementAndGet();
+        }
+        return status;
+    }
+}
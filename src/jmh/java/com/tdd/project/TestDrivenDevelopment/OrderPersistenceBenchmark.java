@@ -0,0 +1,55 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Entity persistence through OrderRepository, without the web layer
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPersistenceBenchmark {
+
+    private static final int PRELOADED_ORDERS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private long[] ids;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        orderRepository = context.getBean(OrderRepository.class);
+        List<Order> orders = new ArrayList<>(PRELOADED_ORDERS);
+        for (int i = 0; i < PRELOADED_ORDERS; i++) {
+            orders.add(BenchmarkApplication.newOrder(i));
+        }
+        ids = orderRepository.saveAll(orders).stream().mapToLong(Order::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order save() {
+        return orderRepository.save(BenchmarkApplication.newOrder(counter++));
+    }
+
+    @Benchmark
+    public Order findById() {
+        return orderRepository.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]).orElseThrow();
+    }
+}
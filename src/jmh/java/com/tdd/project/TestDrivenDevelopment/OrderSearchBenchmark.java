@@ -0,0 +1,45 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//Query latency of the in-memory search index alone, without the database or web layer
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class OrderSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"John", "Mary", "Alice", "Robert", "Linda", "James", "Karen", "Omar"};
+    private static final String[] STREETS = {"King St", "Queen St", "Bay St", "Yonge St", "Dundas St", "Bloor St"};
+
+    @Param({"100000", "1000000"})
+    public int indexSize;
+
+    @Param({"jo", "john king", "customer 4242"})
+    public String query;
+
+    private OrderSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new OrderSearchIndex();
+        for (int i = 0; i < indexSize; i++) {
+            Order order = new Order();
+            order.setId((long) i);
+            order.setCustomerName(FIRST_NAMES[i % FIRST_NAMES.length] + " Customer " + i);
+            order.setShippingAddress(i % 500 + " " + STREETS[i % STREETS.length]);
+            index.index(order);
+        }
+    }
+
+    @Benchmark
+    public OrderSearchIndex.Result firstPage() {
+        return index.search(query, 0, 20);
+    }
+}
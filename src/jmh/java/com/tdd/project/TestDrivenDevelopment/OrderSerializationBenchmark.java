@@ -0,0 +1,54 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//JSON encoding and decoding of Order and ErrorResponse, configured like the Spring Boot ObjectMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Order order;
+    private String orderJson;
+    private ErrorResponse errorResponse;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        order = BenchmarkApplication.newOrder(42);
+        order.setId(42L);
+        orderJson = objectMapper.writeValueAsString(order);
+        errorResponse = new ErrorResponse("Validation Error",
+                List.of("customerName: Customer name required", "total: Total must be positive"));
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public Order deserializeOrder() throws JsonProcessingException {
+        return objectMapper.readValue(orderJson, Order.class);
+    }
+
+    @Benchmark
+    public byte[] serializeErrorResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+}
@@ -0,0 +1,87 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Load test of the platform-thread pool against virtual threads: 1024 concurrent clients read keyset pages over real
+//HTTP, so every request blocks on JDBC. Throughput and the sampled latency percentiles (p0.99) are compared per mode.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(1024)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class OrderThreadingModeBenchmark {
+
+    private static final int TABLE_SIZE = 10000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(TestDrivenDevelopmentApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .run("--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type=WARN",
+                        "--server.port=0",
+                        "--server.tomcat.accept-count=2048",
+                        "--server.tomcat.max-connections=4096",
+                        "--orders.rate-limit.enabled=false",
+                        "--orders.concurrency.enabled=false",
+                        "--spring.threads.virtual.enabled=" + virtualThreads);
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        List<Order> orders = new ArrayList<>(TABLE_SIZE);
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            orders.add(BenchmarkApplication.newOrder(i));
+        }
+        firstId = orderRepository.saveAll(orders).get(0).getId();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getOrderPage() throws Exception {
+        long after = firstId + ThreadLocalRandom.current().nextInt(TABLE_SIZE - 20);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders?limit=20&after=" + after)).GET().build();
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        // A rejected request would time the error path instead of the page
+        if (status != 200) {
+            throw new IllegalStateException("GET /orders returned " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,107 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Load test of the Spring MVC stack against the WebFlux/R2DBC stack: 1024 concurrent keep-alive clients read keyset
+//pages over real HTTP. JMH reports throughput and sampled latency per stack. At the end of each trial the benchmark also
+//prints the server's request threads and the live heap growth per open connection (client and server side together,
+//which is the same client cost for both stacks, so the difference is the server's).
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(OrderWebStackBenchmark.CONNECTIONS)
+@Fork(1)
+public class OrderWebStackBenchmark {
+
+    static final int CONNECTIONS = 1024;
+    private static final int TABLE_SIZE = 10000;
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private long firstId;
+    private long baselineHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean reactive = stack.equals("reactive");
+        context = new SpringApplicationBuilder(TestDrivenDevelopmentApplication.class)
+                .web(reactive ? WebApplicationType.REACTIVE : WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .run("--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--spring.h2.console.enabled=false",
+                        "--server.port=0",
+                        "--server.tomcat.accept-count=2048",
+                        "--server.tomcat.max-connections=4096",
+                        "--orders.rate-limit.enabled=false",
+                        "--orders.concurrency.enabled=false");
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        List<Order> orders = new ArrayList<>(TABLE_SIZE);
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            orders.add(BenchmarkApplication.newOrder(i));
+        }
+        firstId = orderRepository.saveAll(orders).get(0).getId();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        baselineHeap = liveHeap();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // The clients' keep-alive connections are still open here
+        long perConnection = (liveHeap() - baselineHeap) / CONNECTIONS;
+        long serverThreads = Thread.getAllStackTraces().keySet().stream()
+                .map(Thread::getName)
+                .filter(name -> name.startsWith("http-nio") || name.startsWith("reactor-http"))
+                .count();
+        System.out.printf("%n[%s] server request threads: %d, live heap per connection: %d KB%n",
+                stack, serverThreads, perConnection / 1024);
+        context.close();
+    }
+
+    @Benchmark
+    public int getOrderPage() throws Exception {
+        long after = firstId + ThreadLocalRandom.current().nextInt(TABLE_SIZE - 20);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders?limit=20&after=" + after)).GET().build();
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        // A rejected request would time the error path instead of the page
+        if (status != 200) {
+            throw new IllegalStateException("GET /orders returned " + status);
+        }
+        return status;
+    }
+
+    private static long liveHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,81 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tdd.project.TestDrivenDevelopment.Filter.ContentCoding;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderBinarySerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Encoding a GET /orders list of 10,000 orders as JSON (the Boot ObjectMapper's bean serializer), CBOR and Smile
+//(OrderBinarySerializer), each sent as is or compressed with gzip or zstd as ResponseCompressionFilter does.
+//Each trial also prints the payload size relative to uncompressed JSON.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderWireFormatBenchmark {
+
+    private static final int LIST_SIZE = 10000;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"identity", "gzip", "zstd"})
+    public String coding;
+
+    private List<Order> orders;
+    private ObjectWriter writer;
+    private ContentCoding contentCoding;
+    private ByteArrayOutputStream buffer;
+    private int jsonSize;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        orders = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            Order order = BenchmarkApplication.newOrder(i);
+            order.setId(1000L + i);
+            orders.add(order);
+        }
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().serializerByType(Order.class, new OrderBinarySerializer());
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().serializerByType(Order.class, new OrderBinarySerializer());
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        // Configured like the Spring Boot ObjectMapper
+        ObjectMapper objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        writer = objectMapper.writer();
+        contentCoding = coding.equals("identity") ? null : ContentCoding.valueOf(coding.toUpperCase());
+        buffer = new ByteArrayOutputStream(1 << 20);
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        jsonSize = jsonMapper.writeValueAsBytes(orders).length;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        int size = encode();
+        System.out.printf("%n[%s/%s] payload: %d bytes, %.1f%% of JSON%n", format, coding, size, 100.0 * size / jsonSize);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        buffer.reset();
+        OutputStream out = contentCoding != null ? contentCoding.encode(buffer) : buffer;
+        writer.writeValue(out, orders);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,335 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//Open-model load on the /orders API: requests start at their scheduled arrival times whether or not earlier ones have
+//finished, as independent users do. A slow server then builds up a queue, where a closed loop of N clients would just
+//slow down with it and hide the problem. Arrivals are Poisson (exponential gaps) or evenly spaced at the target rate,
+//and each picks an operation from the configured mix.
+//Latency is measured from the scheduled start rather than from when the request was sent, so time spent behind a
+//stalled sender or server counts too (no coordinated omission). Latencies go into one HdrHistogram Recorder per
+//operation; every report interval the interval histograms are added to the totals and written to an HdrHistogram log.
+final class OrderLoadGenerator {
+
+    enum Operation {
+        CREATE, GET, LIST, UPDATE, DELETE;
+
+        String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    //Requests of one operation: successes (see succeeded), refusals by load shedding (429/503), and other failures
+    record Counts(long ok, long shed, long errors) {
+    }
+
+    private static final int ID_SLOTS = 1 << 16;
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int PAGE_SIZE = 100;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final double rate;
+    private final boolean poisson;
+    private final Operation[] mixOperations;
+    private final int[] mixWeights;
+    private final int maxInFlight;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> ok = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> shed = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final OrderIds ids = new OrderIds();
+    //Ids this run sent a DELETE for, so a read or update that lost the race with it may get 404
+    private final Set<Long> deletedIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    OrderLoadGenerator(HttpClient client, String baseUrl, double rate, boolean poisson, Map<Operation, Integer> mix, int maxInFlight) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.rate = rate;
+        this.poisson = poisson;
+        this.maxInFlight = maxInFlight;
+        this.mixOperations = mix.keySet().toArray(new Operation[0]);
+        this.mixWeights = new int[mixOperations.length];
+        int cumulative = 0;
+        for (int i = 0; i < mixOperations.length; i++) {
+            cumulative += mix.get(mixOperations[i]);
+            mixWeights[i] = cumulative;
+        }
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            totals.put(operation, new Histogram(3));
+            ok.put(operation, new LongAdder());
+            shed.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    //Creates orders for the reads, updates and deletes to work on, through the batch endpoint
+    void seed(int orders) throws IOException, InterruptedException {
+        for (int from = 0; from < orders; from += SEED_BATCH_SIZE) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = from; i < Math.min(orders, from + SEED_BATCH_SIZE); i++) {
+                body.append(i > from ? "," : "").append(orderJson(sequence.incrementAndGet()));
+            }
+            HttpResponse<byte[]> response = client.send(jsonRequest("/orders/batch", "POST", body.append("]").toString()),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Seeding orders failed with status " + response.statusCode());
+            }
+            objectMapper.readTree(response.body()).forEach(result -> ids.add(result.path("id").asLong()));
+        }
+    }
+
+    //Sends arrivals at the target rate for the duration, then waits for the requests still in flight.
+    //Every reportInterval the interval histograms are folded into the totals, logged, and a progress line printed.
+    void run(Duration duration, Duration reportInterval, HistogramLogWriter log) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long nextReport = start + reportInterval.toNanos();
+        long scheduled = start;
+        while (scheduled < end) {
+            long now = System.nanoTime();
+            if (now - nextReport >= 0) {
+                report(log, now - start);
+                nextReport += reportInterval.toNanos();
+            }
+            if (scheduled - now > 0) {
+                LockSupport.parkNanos(Math.min(scheduled - now, nextReport - now));
+                continue;
+            }
+            // Every arrival that is due goes out now, however late the loop is
+            fire(pick(), scheduled);
+            scheduled += gapNanos();
+        }
+        long drainEnd = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() - drainEnd < 0) {
+            Thread.sleep(10);
+        }
+        report(log, System.nanoTime() - start);
+    }
+
+    //Clears what was measured so far, after the warm-up
+    void reset() {
+        for (Operation operation : Operation.values()) {
+            recorders.get(operation).reset();
+            totals.get(operation).reset();
+            ok.get(operation).reset();
+            shed.get(operation).reset();
+            errors.get(operation).reset();
+        }
+        dropped.reset();
+    }
+
+    Histogram histogram(Operation operation) {
+        return totals.get(operation);
+    }
+
+    Counts counts(Operation operation) {
+        return new Counts(ok.get(operation).sum(), shed.get(operation).sum(), errors.get(operation).sum());
+    }
+
+    //Arrivals not sent because load.max-in-flight requests were already waiting: the client, not the server,
+    //could not keep up, and the run should be repeated with a lower rate or a higher limit
+    long dropped() {
+        return dropped.sum();
+    }
+
+    private void report(HistogramLogWriter log, long elapsedNanos) {
+        long requests = 0;
+        Histogram interval = new Histogram(3);
+        for (Operation operation : Operation.values()) {
+            Histogram operationInterval = recorders.get(operation).getIntervalHistogram();
+            totals.get(operation).add(operationInterval);
+            interval.add(operationInterval);
+            requests += operationInterval.getTotalCount();
+            if (log != null && operationInterval.getTotalCount() > 0) {
+                operationInterval.setTag(operation.key());
+                log.outputIntervalHistogram(operationInterval);
+            }
+        }
+        System.out.printf("%6.1fs  %8d requests  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  in flight %d%n",
+                elapsedNanos / 1e9, requests, millis(interval.getValueAtPercentile(50)),
+                millis(interval.getValueAtPercentile(99)), millis(interval.getMaxValue()), inFlight.get());
+    }
+
+    private void fire(Operation operation, long scheduledNanos) {
+        if (inFlight.get() >= maxInFlight) {
+            dropped.increment();
+            return;
+        }
+        long id = 0;
+        if (operation == Operation.GET || operation == Operation.UPDATE) {
+            id = ids.pick();
+        } else if (operation == Operation.DELETE) {
+            id = ids.take();
+            if (id != 0) {
+                deletedIds.add(id);
+            }
+        }
+        if (id == 0 && operation != Operation.CREATE && operation != Operation.LIST) {
+            // No order left to read, change or delete; make one instead
+            operation = Operation.CREATE;
+        }
+        HttpRequest request = request(operation, id);
+        Operation sent = operation;
+        long orderId = id;
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, failure) -> {
+            recorders.get(sent).recordValue(System.nanoTime() - scheduledNanos);
+            inFlight.decrementAndGet();
+            if (failure != null) {
+                errors.get(sent).increment();
+                return;
+            }
+            int status = response.statusCode();
+            if (succeeded(sent, status, deletedIds.contains(orderId))) {
+                ok.get(sent).increment();
+                if (sent == Operation.CREATE) {
+                    remember(response.body());
+                }
+            } else if (status == 429 || status == 503) {
+                shed.get(sent).increment();
+            } else {
+                errors.get(sent).increment();
+            }
+        });
+    }
+
+    //2xx, or 404 from a read or update of an order this run deleted while the request was under way. Any other 404,
+    //including one from a DELETE, means an order the API should have had went missing.
+    static boolean succeeded(Operation operation, int status, boolean deletedByRun) {
+        if (status / 100 == 2) {
+            return true;
+        }
+        return status == 404 && deletedByRun && (operation == Operation.GET || operation == Operation.UPDATE);
+    }
+
+    private HttpRequest request(Operation operation, long id) {
+        switch (operation) {
+            case CREATE:
+                return jsonRequest("/orders", "POST", orderJson(sequence.incrementAndGet()));
+            case LIST:
+                long after = ids.pick();
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/orders?limit=" + PAGE_SIZE + (after > 0 ? "&after=" + after : "")))
+                        .GET().build();
+            case GET:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/orders/" + id)).GET().build();
+            case UPDATE:
+                return jsonRequest("/orders/" + id, "PUT", orderJson(sequence.incrementAndGet()));
+            case DELETE:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/orders/" + id)).DELETE().build();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private HttpRequest jsonRequest(String path, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String orderJson(long n) {
+        return "{\"customerName\":\"Load Customer " + (n % 1000) + "\",\"orderDate\":\""
+                + LocalDate.of(2024, 1, 1).plusDays(n % 365) + "\",\"shippingAddress\":\"" + n
+                + " Load Street\",\"total\":" + (10 + n % 990) + ".5}";
+    }
+
+    private void remember(byte[] body) {
+        try {
+            long id = objectMapper.readTree(body).path("id").asLong();
+            if (id > 0) {
+                ids.add(id);
+            }
+        } catch (IOException ex) {
+            // Not an order; nothing to remember
+        }
+    }
+
+    private Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(mixWeights[mixWeights.length - 1]);
+        for (int i = 0; i < mixWeights.length; i++) {
+            if (roll < mixWeights[i]) {
+                return mixOperations[i];
+            }
+        }
+        return mixOperations[mixOperations.length - 1];
+    }
+
+    private long gapNanos() {
+        double meanNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        if (!poisson) {
+            return Math.max(1, Math.round(meanNanos));
+        }
+        return Math.max(1, Math.round(-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanNanos));
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    // Ids of orders known to exist, in a fixed ring of slots: creates overwrite the oldest slot, deletes empty one
+    private static final class OrderIds {
+        private final AtomicLongArray slots = new AtomicLongArray(ID_SLOTS);
+        private final AtomicLong added = new AtomicLong();
+
+        void add(long id) {
+            slots.set((int) (added.getAndIncrement() % ID_SLOTS), id);
+        }
+
+        // A random known id, or 0 when there is none
+        long pick() {
+            int filled = (int) Math.min(added.get(), ID_SLOTS);
+            for (int attempt = 0; attempt < 8 && filled > 0; attempt++) {
+                long id = slots.get(ThreadLocalRandom.current().nextInt(filled));
+                if (id != 0) {
+                    return id;
+                }
+            }
+            return 0;
+        }
+
+        // Like pick, but the id is removed so no later request deletes it again
+        long take() {
+            int filled = (int) Math.min(added.get(), ID_SLOTS);
+            for (int attempt = 0; attempt < 8 && filled > 0; attempt++) {
+                int slot = ThreadLocalRandom.current().nextInt(filled);
+                long id = slots.get(slot);
+                if (id != 0 && slots.compareAndSet(slot, id, 0)) {
+                    return id;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//Summary of one load run, per operation and in total, written as JSON so it can serve as the baseline of later runs.
+//Throughput counts successful requests only: a server that sheds half its load is not twice as fast.
+record OrderLoadReport(double targetRate, double durationSeconds, long dropped, Operation total, List<Operation> operations) {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record Operation(String name, long requests, long ok, long shed, long errors, double throughput,
+                     double p50Millis, double p90Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        static Operation of(String name, Histogram histogram, OrderLoadGenerator.Counts counts, Duration duration) {
+            return new Operation(name, histogram.getTotalCount(), counts.ok(), counts.shed(), counts.errors(),
+                    counts.ok() / (duration.toNanos() / 1e9),
+                    OrderLoadGenerator.millis(histogram.getValueAtPercentile(50)),
+                    OrderLoadGenerator.millis(histogram.getValueAtPercentile(90)),
+                    OrderLoadGenerator.millis(histogram.getValueAtPercentile(99)),
+                    OrderLoadGenerator.millis(histogram.getValueAtPercentile(99.9)),
+                    OrderLoadGenerator.millis(histogram.getMaxValue()));
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    //Limits of a regression check: how much worse than the baseline p99 and throughput may get, as fractions
+    //(0.2: 20% worse), and the highest share of requests that may fail
+    record Thresholds(double p99, double throughput, double errorRate) {
+    }
+
+    static OrderLoadReport of(OrderLoadGenerator generator, double targetRate, Duration duration) {
+        List<Operation> operations = new ArrayList<>();
+        Histogram all = new Histogram(3);
+        long ok = 0;
+        long shed = 0;
+        long errors = 0;
+        for (OrderLoadGenerator.Operation operation : OrderLoadGenerator.Operation.values()) {
+            Histogram histogram = generator.histogram(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            OrderLoadGenerator.Counts counts = generator.counts(operation);
+            operations.add(Operation.of(operation.key(), histogram, counts, duration));
+            all.add(histogram);
+            ok += counts.ok();
+            shed += counts.shed();
+            errors += counts.errors();
+        }
+        Operation total = Operation.of("total", all, new OrderLoadGenerator.Counts(ok, shed, errors), duration);
+        return new OrderLoadReport(targetRate, duration.toNanos() / 1e9, generator.dropped(), total, operations);
+    }
+
+    static OrderLoadReport read(Path file) throws IOException {
+        return JSON.readValue(file.toFile(), OrderLoadReport.class);
+    }
+
+    void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        JSON.writeValue(file.toFile(), this);
+    }
+
+    void print(PrintStream out) {
+        out.printf("Target rate %.0f/s for %.0fs%s%n", targetRate, durationSeconds,
+                dropped > 0 ? ", " + dropped + " arrivals dropped by the client" : "");
+        out.printf("%-8s %9s %10s %7s %7s %9s %9s %9s %9s %9s%n",
+                "", "requests", "ok/s", "shed", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : operations) {
+            print(out, operation);
+        }
+        print(out, total);
+    }
+
+    private static void print(PrintStream out, Operation operation) {
+        out.printf("%-8s %9d %10.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.name(), operation.requests(),
+                operation.throughput(), operation.shed(), operation.errors(), operation.p50Millis(), operation.p90Millis(),
+                operation.p99Millis(), operation.p999Millis(), operation.maxMillis());
+    }
+
+    //Ways this run is worse than the baseline beyond the thresholds; empty when it passes.
+    //p99 is compared in total and per operation, throughput in total, as the mix decides the per-operation rates.
+    List<String> regressionsAgainst(OrderLoadReport baseline, Thresholds thresholds) {
+        List<String> regressions = new ArrayList<>();
+        if (targetRate != baseline.targetRate()) {
+            // Latency depends on the offered load, so runs at different rates say nothing about each other
+            regressions.add(String.format("the run offered %.0f/s but the baseline was recorded at %.0f/s",
+                    targetRate, baseline.targetRate()));
+        }
+        if (total.throughput() < baseline.total().throughput() * (1 - thresholds.throughput())) {
+            regressions.add(String.format("throughput %.1f/s is more than %.0f%% below the baseline %.1f/s",
+                    total.throughput(), thresholds.throughput() * 100, baseline.total().throughput()));
+        }
+        if (total.errorRate() > thresholds.errorRate()) {
+            regressions.add(String.format("%.2f%% of requests failed, more than %.2f%%",
+                    total.errorRate() * 100, thresholds.errorRate() * 100));
+        }
+        List<Operation> current = new ArrayList<>(operations);
+        current.add(total);
+        List<Operation> previous = new ArrayList<>(baseline.operations());
+        previous.add(baseline.total());
+        for (Operation operation : current) {
+            for (Operation before : previous) {
+                if (before.name().equals(operation.name())
+                        && operation.p99Millis() > before.p99Millis() * (1 + thresholds.p99())) {
+                    regressions.add(String.format("%s p99 %.2f ms is more than %.0f%% above the baseline %.2f ms",
+                            operation.name(), operation.p99Millis(), thresholds.p99() * 100, before.p99Millis()));
+                }
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,176 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+//Load test of the /orders API over real HTTP, run with the load-test profile (see the pom and the README).
+//Drives a mix of creates, reads, lists, updates and deletes at a fixed open-model arrival rate against load.target, or
+//against the application started in this JVM when no target is given. Prints the latency percentiles per operation,
+//writes the full HdrHistogram percentile distributions and an interval log next to the JSON summary, and in
+//load.mode=check fails (exit code 1) when p99, throughput or the error rate regressed beyond the thresholds compared
+//with the stored baseline; load.mode=record stores the run as the new baseline.
+public final class OrderLoadRunner {
+
+    private static final Duration REPORT_INTERVAL = Duration.ofSeconds(5);
+
+    private OrderLoadRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = setting("load.target", "");
+        double rate = Double.parseDouble(setting("load.rate", "200"));
+        Duration warmup = DurationStyle.detectAndParse(setting("load.warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(setting("load.duration", "30s"));
+        Map<OrderLoadGenerator.Operation, Integer> mix = mix(setting("load.mix", "create:20,get:50,list:15,update:10,delete:5"));
+        boolean poisson = !setting("load.arrivals", "poisson").equals("uniform");
+        int seedOrders = Integer.parseInt(setting("load.seed-orders", "10000"));
+        int maxInFlight = Integer.parseInt(setting("load.max-in-flight", "10000"));
+        String mode = setting("load.mode", "report");
+        Path result = Path.of(setting("load.result", "target/load-result.json"));
+        Path baseline = Path.of(setting("load.baseline", "src/load/baseline.json"));
+        OrderLoadReport.Thresholds thresholds = new OrderLoadReport.Thresholds(
+                Double.parseDouble(setting("load.max-p99-regression", "0.2")),
+                Double.parseDouble(setting("load.max-throughput-regression", "0.1")),
+                Double.parseDouble(setting("load.max-error-rate", "0.01")));
+        if (!List.of("report", "record", "check").contains(mode)) {
+            throw new IllegalArgumentException("load.mode must be report, record or check, got " + mode);
+        }
+        if (mode.equals("check") && !Files.exists(baseline)) {
+            System.err.println("No baseline at " + baseline + "; run once with -Dload.mode=record first");
+            System.exit(1);
+        }
+
+        ConfigurableApplicationContext application = target.isEmpty() ? startApplication() : null;
+        int exitCode;
+        try {
+            String baseUrl = application != null
+                    ? "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort()
+                    : target.replaceAll("/+$", "");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            OrderLoadGenerator generator = new OrderLoadGenerator(client, baseUrl, rate, poisson, mix, maxInFlight);
+            System.out.printf("Load test of %s: %.0f requests/s (%s arrivals), mix %s%n",
+                    baseUrl, rate, poisson ? "poisson" : "uniform", mix);
+            generator.seed(seedOrders);
+
+            System.out.println("Warming up for " + warmup.toSeconds() + "s");
+            generator.run(warmup, REPORT_INTERVAL, null);
+            generator.reset();
+
+            System.out.println("Measuring for " + duration.toSeconds() + "s");
+            Path directory = result.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            try (PrintStream logStream = new PrintStream(Files.newOutputStream(directory.resolve("load-latency.hlog")))) {
+                HistogramLogWriter log = new HistogramLogWriter(logStream);
+                log.outputLogFormatVersion();
+                log.outputStartTime(Instant.now().toEpochMilli());
+                log.outputLegend();
+                generator.run(duration, REPORT_INTERVAL, log);
+            }
+
+            OrderLoadReport report = OrderLoadReport.of(generator, rate, duration);
+            report.print(System.out);
+            report.write(result);
+            writeDistributions(generator, directory);
+            System.out.println("Results written to " + result);
+            exitCode = finish(mode, report, baseline, thresholds);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static int finish(String mode, OrderLoadReport report, Path baseline, OrderLoadReport.Thresholds thresholds) throws Exception {
+        if (report.dropped() > 0) {
+            System.out.println("Warning: the client dropped " + report.dropped() + " arrivals, so the server saw less than the target rate");
+        }
+        if (mode.equals("record")) {
+            report.write(baseline);
+            System.out.println("Baseline written to " + baseline);
+            return 0;
+        }
+        if (mode.equals("report")) {
+            return 0;
+        }
+        List<String> regressions = report.regressionsAgainst(OrderLoadReport.read(baseline), thresholds);
+        if (regressions.isEmpty()) {
+            System.out.println("No regression against " + baseline);
+            return 0;
+        }
+        System.out.println("Performance regressed against " + baseline + ":");
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        return 1;
+    }
+
+    // Percentile distribution of each operation in HdrHistogram's .hgrm format, in milliseconds, for plotting
+    private static void writeDistributions(OrderLoadGenerator generator, Path directory) throws Exception {
+        for (OrderLoadGenerator.Operation operation : OrderLoadGenerator.Operation.values()) {
+            Histogram histogram = generator.histogram(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("load-" + operation.key() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1e6);
+            }
+        }
+    }
+
+    // The application with request logging off, and without the per-client rate limit, which would otherwise refuse a
+    // single load client's traffic; the adaptive concurrency limit stays on, as in production
+    private static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(TestDrivenDevelopmentApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .run("--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--spring.h2.console.enabled=false",
+                        "--server.port=0",
+                        "--orders.rate-limit.enabled=false");
+    }
+
+    // create:20,get:50,... into weights by operation, in the order given
+    private static Map<OrderLoadGenerator.Operation, Integer> mix(String mix) {
+        Map<OrderLoadGenerator.Operation, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("load.mix entries must be operation:weight, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(OrderLoadGenerator.Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix must give at least one operation a positive weight");
+        }
+        return weights;
+    }
+
+    // A -D system property; empty values (as passed on by Maven for unset properties) count as unset
+    private static String setting(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
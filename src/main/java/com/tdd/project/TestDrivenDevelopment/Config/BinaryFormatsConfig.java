@@ -0,0 +1,33 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderBinarySerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+//CBOR (application/cbor) and Smile (application/x-jackson-smile) responses, chosen by the Accept header for every
+//endpoint that returns orders. JSON stays the default: a client listing JSON first in Accept or sending */* gets JSON.
+//The converters replace Spring MVC's defaults for these formats: they start from Boot's Jackson configuration and write
+//Order with OrderBinarySerializer.
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatsConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory())
+                .serializerByType(Order.class, new OrderBinarySerializer())
+                .build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory())
+                .serializerByType(Order.class, new OrderBinarySerializer())
+                .build());
+    }
+}
@@ -0,0 +1,53 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+//Publishes Hibernate's session factory statistics (hibernate.generate_statistics) as Micrometer meters.
+//A high entity fetch count relative to queries is the usual sign of N+1 selects.
+@Component
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public HibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "hibernate.statements", "prepared", Statistics::getPrepareStatementCount);
+        counter(registry, "hibernate.statements", "closed", Statistics::getCloseStatementCount);
+        counter(registry, "hibernate.sessions", "opened", Statistics::getSessionOpenCount);
+        counter(registry, "hibernate.transactions", "committed", Statistics::getSuccessfulTransactionCount);
+        counter(registry, "hibernate.queries.executed", null, Statistics::getQueryExecutionCount);
+        counter(registry, "hibernate.entities.loaded", null, Statistics::getEntityLoadCount);
+        counter(registry, "hibernate.entities.fetched", null, Statistics::getEntityFetchCount);
+        counter(registry, "hibernate.entities.inserted", null, Statistics::getEntityInsertCount);
+        counter(registry, "hibernate.entities.updated", null, Statistics::getEntityUpdateCount);
+        counter(registry, "hibernate.entities.deleted", null, Statistics::getEntityDeleteCount);
+        counter(registry, "hibernate.collections.fetched", null, Statistics::getCollectionFetchCount);
+        counter(registry, "hibernate.flushes", null, Statistics::getFlushCount);
+        counter(registry, "hibernate.optimistic.failures", null, Statistics::getOptimisticFailureCount);
+        Gauge.builder("hibernate.query.execution.max", statistics, Statistics::getQueryExecutionMaxTime)
+                .description("Slowest query execution time")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, String status, ToDoubleFunction<Statistics> value) {
+        FunctionCounter.Builder<Statistics> builder = FunctionCounter.builder(name, statistics, value);
+        if (status != null) {
+            builder.tag("status", status);
+        }
+        builder.register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//Sizes the Hikari pool from the core count when orders.db.pool-size-per-core is set and no explicit
+//spring.datasource.hikari.maximum-pool-size is configured. Runs after the config files are loaded so the
+//profile's settings are visible, and publishes the size as a property so everything reading it (Hikari,
+//VirtualThreadJdbcGuardFilter) agrees. The pool is fixed-size (minimum-idle = maximum) to avoid churn.
+public class HikariPoolSizing implements EnvironmentPostProcessor, Ordered {
+
+    static final String PER_CORE = "orders.db.pool-size-per-core";
+    static final String MAXIMUM_POOL_SIZE = "spring.datasource.hikari.maximum-pool-size";
+    static final String MINIMUM_IDLE = "spring.datasource.hikari.minimum-idle";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Integer perCore = environment.getProperty(PER_CORE, Integer.class);
+        if (perCore == null || environment.containsProperty(MAXIMUM_POOL_SIZE)) {
+            return;
+        }
+        int poolSize = poolSize(Runtime.getRuntime().availableProcessors(), perCore);
+        Map<String, Object> sizing = new HashMap<>();
+        sizing.put(MAXIMUM_POOL_SIZE, poolSize);
+        if (!environment.containsProperty(MINIMUM_IDLE)) {
+            sizing.put(MINIMUM_IDLE, poolSize);
+        }
+        environment.getPropertySources().addLast(new MapPropertySource("ordersHikariPoolSizing", sizing));
+    }
+
+    static int poolSize(int cores, int perCore) {
+        return Math.max(2, cores * perCore);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
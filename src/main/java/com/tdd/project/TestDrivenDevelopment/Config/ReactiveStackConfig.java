@@ -0,0 +1,84 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+//Server and R2DBC access for the reactive stack (spring.main.web-application-type=reactive).
+//Netty is chosen explicitly, as Boot would otherwise prefer Tomcat, which is also on the classpath for the MVC stack.
+//The R2DBC pool opens the same H2 database as spring.datasource.url in this JVM, so both stacks share one schema, which
+//Hibernate or Flyway still creates through JDBC. The pool is kept out of the context on purpose: a ConnectionFactory
+//bean would switch off the JDBC DataSource auto-configuration that JPA needs.
+//The H2 driver runs each statement synchronously on the subscribing thread, and the pool would hand a released connection
+//straight to the next waiting request on the releasing thread. Under sustained load that thread then never returns to
+//its own work, so database work is subscribed on a separate bounded scheduler, and connections handed to waiting
+//requests are delivered through that scheduler as well.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStackConfig implements DisposableBean {
+
+    private static final String H2_JDBC_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool connectionPool;
+    private final Scheduler databaseScheduler;
+
+    //Takes the URL from the bound DataSourceProperties rather than the raw property, which may contain
+    //${random...} placeholders that resolve differently on every lookup
+    public ReactiveStackConfig(DataSourceProperties dataSourceProperties,
+                                  @Value("${orders.reactive.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize) {
+        String jdbcUrl = dataSourceProperties.determineUrl();
+        if (!jdbcUrl.startsWith(H2_JDBC_PREFIX)) {
+            throw new IllegalStateException("The reactive stack only supports H2, but spring.datasource.url is " + jdbcUrl);
+        }
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(jdbcUrl.substring(H2_JDBC_PREFIX.length()))
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .build();
+        this.databaseScheduler = Schedulers.newBoundedElastic(poolSize, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "orders-r2dbc");
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .customizer(pool -> pool.acquisitionScheduler(databaseScheduler))
+                .build());
+    }
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public DatabaseClient orderDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator orderTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    @Bean
+    public Scheduler orderDatabaseScheduler() {
+        return databaseScheduler;
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+        databaseScheduler.dispose();
+    }
+}
@@ -0,0 +1,29 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import com.tdd.project.TestDrivenDevelopment.Filter.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+//Reports the latency of every Spring Data repository call to AdaptiveConcurrencyLimiter, the same way Spring Boot
+//attaches its spring.data.repository.invocations timer. The limiter is looked up when a repository is created, not
+//when this post-processor is, so it does not pull the meter registry in early.
+@Configuration(proxyBeanMethods = false)
+public class RepositoryLatencyConfig {
+
+    @Bean
+    static BeanPostProcessor repositoryLatencyListenerPostProcessor(ObjectProvider<AdaptiveConcurrencyLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+                    repositoryFactoryBean.addRepositoryFactoryCustomizer(
+                            repositoryFactory -> limiter.ifAvailable(repositoryFactory::addInvocationListener));
+                }
+                return bean;
+            }
+        };
+    }
+}
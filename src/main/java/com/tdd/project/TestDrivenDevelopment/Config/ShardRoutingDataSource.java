@@ -0,0 +1,32 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import com.tdd.project.TestDrivenDevelopment.Service.OrderShards;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+
+//DataSource of the sharded mode: each connection comes from the shard that OrderShards bound to the current thread.
+//Database access without a bound shard fails instead of silently reading or writing one of them.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = OrderShards.current();
+        if (shard == null) {
+            throw new IllegalStateException("No order shard selected; run database access through OrderShards");
+        }
+        return shard;
+    }
+
+    //Closes the shard pools with the context
+    @Override
+    public void close() throws IOException {
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import com.tdd.project.TestDrivenDevelopment.Service.OrderShards;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Sharded storage (orders.sharding.enabled=true): orders are spread over the databases in orders.sharding.urls.
+//Each shard gets its own Hikari pool, configured by spring.datasource.hikari and named orders-shard-N, and its schema
+//from the Flyway migrations, as Hibernate's schema tools would only reach one shard. The pools are put behind a
+//ShardRoutingDataSource, so JPA, JdbcTemplate and transactions work unchanged on whichever shard OrderShards selects.
+//The reactive stack reads spring.datasource.url over R2DBC and cannot be combined with sharding.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "orders.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardRoutingDataSource dataSource(OrderShards orderShards,
+                                             DataSourceProperties dataSourceProperties,
+                                             Environment environment,
+                                             ApplicationContext applicationContext,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        if (applicationContext instanceof ReactiveWebApplicationContext) {
+            throw new IllegalStateException("orders.sharding.enabled is not supported by the reactive stack");
+        }
+        List<String> urls = orderShards.urls();
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(shard))
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName("orders-shard-" + shard);
+            meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            Flyway.configure().dataSource(pool).load().migrate();
+            shards.put(shard, pool);
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    //Hibernate neither creates the schema nor reads database metadata at startup, as no shard is selected then
+    @Bean
+    public HibernatePropertiesCustomizer shardedSchemaCustomizer() {
+        return properties -> {
+            properties.put("hibernate.hbm2ddl.auto", "none");
+            properties.put("hibernate.temp.use_jdbc_metadata_defaults", false);
+        };
+    }
+
+    //The shards were already migrated when the DataSource was built (used when spring.flyway.enabled is set)
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy() {
+        return flyway -> {
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.tdd.project.TestDrivenDevelopment.Config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Counts the SQL statements Hibernate prepares while a request is being handled.
+//Records statements per request, flags requests that run one statement suspiciously often (N+1 selects), and logs a
+//random sample of statements instead of every one.
+@Component
+public class SqlStatementMonitor implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementMonitor.class);
+
+    private final ThreadLocal<Map<String, Integer>> requestStatements = new ThreadLocal<>();
+    private final MeterRegistry meterRegistry;
+    //Summaries by URI pattern, so recording a request does not build and look up a meter id each time
+    private final Map<String, DistributionSummary> statementsPerRequest = new ConcurrentHashMap<>();
+    private final Counter nPlusOneCounter;
+    private final double logSampleRate;
+    private final int nPlusOneThreshold;
+
+    public SqlStatementMonitor(MeterRegistry meterRegistry,
+                               @Value("${orders.sql.log-sample-rate:0}") double logSampleRate,
+                               @Value("${orders.sql.n-plus-one-threshold:10}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.logSampleRate = logSampleRate;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.nPlusOneCounter = Counter.builder("orders.jdbc.n_plus_one.suspected")
+                .description("Requests that ran the same statement more often than the N+1 threshold")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Map<String, Integer> statements = requestStatements.get();
+        if (statements != null) {
+            statements.merge(sql, 1, Integer::sum);
+        }
+        if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+            log.info("Sampled SQL: {}", sql);
+        }
+        return sql;
+    }
+
+    //Starts counting statements on the current thread
+    public void beginRequest() {
+        requestStatements.set(new HashMap<>());
+    }
+
+    //Statements counted so far on the current thread, by SQL text; empty when not counting
+    public Map<String, Integer> requestStatements() {
+        Map<String, Integer> statements = requestStatements.get();
+        return statements != null ? Map.copyOf(statements) : Map.of();
+    }
+
+    //Stops counting and records the request's statement count under the given URI pattern
+    public void endRequest(String uri) {
+        Map<String, Integer> statements = requestStatements.get();
+        requestStatements.remove();
+        if (statements == null) {
+            return;
+        }
+        int total = 0;
+        String repeated = null;
+        int repeatedCount = 0;
+        for (Map.Entry<String, Integer> entry : statements.entrySet()) {
+            total += entry.getValue();
+            if (entry.getValue() > repeatedCount) {
+                repeated = entry.getKey();
+                repeatedCount = entry.getValue();
+            }
+        }
+        statementsPerRequest(uri).record(total);
+        if (repeatedCount > nPlusOneThreshold) {
+            nPlusOneCounter.increment();
+            log.warn("Suspected N+1 selects on {}: statement ran {} times: {}", uri, repeatedCount, repeated);
+        }
+    }
+
+    //Looks the summary up before registering it, as computeIfAbsent would allocate its lambda on every call
+    private DistributionSummary statementsPerRequest(String uri) {
+        DistributionSummary summary = statementsPerRequest.get(uri);
+        if (summary == null) {
+            summary = statementsPerRequest.computeIfAbsent(uri, key -> DistributionSummary.builder("orders.jdbc.statements.per.request")
+                    .description("SQL statements prepared while handling one request")
+                    .tag("uri", key)
+                    .register(meterRegistry));
+        }
+        return summary;
+    }
+}
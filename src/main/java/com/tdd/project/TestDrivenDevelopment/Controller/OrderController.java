@@ -2,114 +2,610 @@ package com.tdd.project.TestDrivenDevelopment.Controller;
 
 import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
 import com.tdd.project.TestDrivenDevelopment.Exception.OrderNotFoundException;
+import com.tdd.project.TestDrivenDevelopment.Filter.ClientIdentity;
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
 import com.tdd.project.TestDrivenDevelopment.Model.Order;
-import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderConstraints;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotal;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderField;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderIngestStatus;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderPatch;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderSearchHit;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderStats;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderView;
+import com.tdd.project.TestDrivenDevelopment.Repository.ShardedOrderRepository;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderAnalyticsService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderArchiveService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderBatchService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderCache;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderEventLog;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderIdempotencyStore;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderIngestService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderMetrics;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderPurgeService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderRollupService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderSearchIndex;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderStatsService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderStreamingService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderTransferService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderUpdateService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.micrometer.common.util.StringUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
-import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/orders")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class OrderController {
 
+    // Media type of the streaming list mode, one JSON order per line
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    // Media type of bulk imports and exports as comma-separated values
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+    // Response header carrying the cursor of the next keyset page
+    public static final String NEXT_CURSOR_HEADER = "X-Next-After";
+    // Response header carrying the number of orders matching a search
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    // Request header making POST /orders safe to retry
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final int DEFAULT_SEARCH_SIZE = 20;
+    private static final int MAX_SEARCH_SIZE = 100;
+    // Seconds a client refused by a full ingest queue is asked to wait
+    private static final String INGEST_RETRY_AFTER_SECONDS = "1";
+    // Date range used by the stats endpoint when the client leaves it open
+    private static final LocalDate STATS_MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate STATS_MAX_DATE = LocalDate.of(9999, 12, 31);
+    // 400 responses for every set of violations, built once so rejecting an order allocates nothing; never modified
+    private static final List<ResponseEntity<ErrorResponse>> CREATE_VALIDATION_ERRORS = new ArrayList<>(OrderConstraints.COMBINATIONS);
+    private static final List<ResponseEntity<List<String>>> UPDATE_VALIDATION_ERRORS = new ArrayList<>(OrderConstraints.COMBINATIONS);
+
+    static {
+        for (int violations = 0; violations < OrderConstraints.COMBINATIONS; violations++) {
+            List<String> errors = OrderConstraints.errors(violations);
+            CREATE_VALIDATION_ERRORS.add(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Validation Error", errors)));
+            UPDATE_VALIDATION_ERRORS.add(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors));
+        }
+    }
+
+    @Autowired
+    private ShardedOrderRepository shardedOrderRepository;
+
+    @Autowired
+    private OrderStreamingService orderStreamingService;
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private OrderCache orderCache;
+
+    @Autowired
+    private OrderUpdateService orderUpdateService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderMetrics orderMetrics;
+
+    @Autowired
+    private OrderSearchIndex orderSearchIndex;
+
+    @Autowired
+    private OrderIngestService orderIngestService;
+
+    @Autowired
+    private OrderIdempotencyStore orderIdempotencyStore;
+
+    @Autowired
+    private ClientIdentity clientIdentity;
+
+    @Autowired
+    private OrderPurgeService orderPurgeService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderAnalyticsService orderAnalyticsService;
+
+    @Autowired
+    private OrderTransferService orderTransferService;
 
     // Create a new order
+    // A repeated Idempotency-Key is answered with the response of the first request instead of a second order
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody @Valid Order order, BindingResult bindingResult) {
+    public ResponseEntity<?> createOrder(@RequestBody Order order,
+                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                         HttpServletRequest request)
+            throws InterruptedException {
         // Check for validation errors
-        if (bindingResult.hasErrors()) {
-            List<String> errors = bindingResult.getFieldErrors().stream()
-                    .map(fieldError -> fieldError.getField() + ": " + fieldError.getDefaultMessage())
-                    .collect(Collectors.toList());
-
-            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        int violations = OrderConstraints.checkNew(order);
+        if (violations != OrderConstraints.VALID) {
+            orderMetrics.validationFailed("create");
+            return CREATE_VALIDATION_ERRORS.get(violations);
         }
-        // Check if the customer name is blank
-        if (StringUtils.isBlank(order.getCustomerName())) {
-            String errorMessage = "customerName: Customer name must not be blank";
-            List<String> errors = new ArrayList<>();
-            errors.add(errorMessage);
-            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+        if (idempotencyKey == null) {
+            return saveOrder(order);
+        }
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > OrderIdempotencyStore.MAX_KEY_LENGTH) {
+            orderMetrics.validationFailed("create");
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", Collections.singletonList(
+                    "Idempotency-Key: Idempotency-Key must be between 1 and " + OrderIdempotencyStore.MAX_KEY_LENGTH + " characters"));
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
-        // Set the order date and save the order
+        return orderIdempotencyStore.createOnce(clientIdentity.of(request), idempotencyKey, order, () -> saveOrder(order));
+    }
+
+    // Set the order date and save the order, or queue it in write-behind mode
+    private ResponseEntity<?> saveOrder(Order order) throws InterruptedException {
         order.setOrderDate(LocalDate.now());
-        Order savedOrder = orderRepository.save(order);
+        if (orderIngestService.isEnabled()) {
+            return enqueueOrder(order);
+        }
+        Order savedOrder = shardedOrderRepository.save(order);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedOrder);
     }
 
-    // Get all orders
+    // Hand a validated order to the write-behind queue
+    // 202 with the ingest status once queued, 201 once committed (durability=committed), 429 when the queue is full
+    private ResponseEntity<?> enqueueOrder(Order order) throws InterruptedException {
+        OrderIngestStatus status = orderIngestService.submit(order);
+        if (status == null) {
+            ErrorResponse errorResponse = new ErrorResponse("Too Many Requests",
+                    Collections.singletonList("orders: Ingest queue is full, retry later"));
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, INGEST_RETRY_AFTER_SECONDS)
+                    .body(errorResponse);
+        }
+        if (OrderIngestStatus.COMMITTED.equals(status.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        }
+        if (OrderIngestStatus.FAILED.equals(status.getStatus())) {
+            ErrorResponse errorResponse = new ErrorResponse("Internal Server Error", status.getErrors());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+        return ResponseEntity.accepted().location(URI.create("/orders/ingest/" + status.getId())).body(status);
+    }
+
+    // Get the status of an order accepted by the write-behind queue: QUEUED, COMMITTED or FAILED
+    @GetMapping("/ingest/{id}")
+    public ResponseEntity<?> getIngestStatus(@PathVariable Long id) {
+        OrderIngestStatus status = orderIngestService.status(id);
+        if (status == null) {
+            orderMetrics.notFound("ingest");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not found with id: " + id);
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    // Create many orders in one request
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrders(@RequestBody List<Order> orders) {
+        if (orders.isEmpty() || orders.size() > MAX_BATCH_SIZE) {
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error",
+                    Collections.singletonList("orders: Batch must contain between 1 and " + MAX_BATCH_SIZE + " orders"));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        List<BatchItemResult> results = orderBatchService.createAll(orders);
+        // 201 when every order was stored, 207 when some were rejected
+        boolean allCreated = true;
+        for (BatchItemResult result : results) {
+            if (!BatchItemResult.CREATED.equals(result.getStatus())) {
+                orderMetrics.validationFailed("batch");
+                allCreated = false;
+            }
+        }
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
+    // Get all orders, or one keyset page of them when after/limit is given
+    // fields (e.g. fields=customerName,total) selects and returns only those fields, plus the id
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orders = orderRepository.findAll();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) List<String> fields) {
+        List<String> errors = new ArrayList<>();
+        Set<OrderField> selected = fields != null ? OrderField.parse(fields, errors) : null;
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            errors.add("limit: Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (!errors.isEmpty()) {
+            orderMetrics.validationFailed("list");
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        if (after == null && limit == null) {
+            if (selected != null) {
+                return ResponseEntity.ok(shardedOrderRepository.findViews(null, null, selected));
+            }
+            List<Order> orders = shardedOrderRepository.findAll();
+            return ResponseEntity.ok(orders);
+        }
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (selected != null) {
+            List<OrderView> views = shardedOrderRepository.findViews(after, pageSize, selected);
+            Long last = views.size() == pageSize ? views.get(views.size() - 1).getId() : null;
+            return page(last).body(views);
+        }
+        List<Order> orders = shardedOrderRepository.findPage(after, pageSize);
+        Long last = orders.size() == pageSize ? orders.get(orders.size() - 1).getId() : null;
+        return page(last).body(orders);
+    }
+
+    // A full page means there may be more rows after its last id, which becomes the next cursor
+    private ResponseEntity.BodyBuilder page(Long last) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (last != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(last));
+        }
+        return response;
+    }
+
+    // Stream all orders as NDJSON, read through a database cursor
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public void streamAllOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        orderStreamingService.writeAllAsNdjson(response.getOutputStream());
     }
 
     // Get an order by ID
+    // The ETag carries the order version; a matching If-None-Match is answered with 304 and no body
+    // With fields only those columns are read, bypassing the cache, and the partial order carries no ETag
     @GetMapping("/{id}")
-    public ResponseEntity<?> getOrderById(@PathVariable Long id) {
-        Optional<Order> optionalOrder = orderRepository.findById(id);
+    public ResponseEntity<?> getOrderById(@PathVariable Long id,
+                                          @RequestParam(required = false) List<String> fields) {
+        if (fields != null) {
+            return getOrderViewById(id, fields);
+        }
+        Optional<Order> optionalOrder = orderCache.findById(id);
         if (optionalOrder.isPresent()) {
             Order order = optionalOrder.get();
-            return ResponseEntity.ok(order);
+            return ResponseEntity.ok().eTag(OrderETags.etagOf(order)).body(order);
         } else {
+            orderMetrics.notFound("get");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not found with id: " + id);
         }
     }
 
+    private ResponseEntity<?> getOrderViewById(Long id, List<String> fields) {
+        List<String> errors = new ArrayList<>();
+        Set<OrderField> selected = OrderField.parse(fields, errors);
+        if (!errors.isEmpty()) {
+            orderMetrics.validationFailed("get");
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        Optional<OrderView> view = shardedOrderRepository.findViewById(id, selected);
+        if (view.isEmpty()) {
+            orderMetrics.notFound("get");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not found with id: " + id);
+        }
+        return ResponseEntity.ok(view.get());
+    }
+
+    // Get count/sum/min/max/avg of order totals for a date range
+    // groupBy takes "customer" and/or "date"; bucket sets the date grouping to day, week or month
+    @GetMapping("/stats")
+    public ResponseEntity<?> getOrderStats(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                           @RequestParam(required = false) List<String> groupBy,
+                                           @RequestParam(defaultValue = "day") String bucket) {
+        List<String> errors = new ArrayList<>();
+        StatsQuery query = statsQuery(from, to, groupBy, bucket, errors);
+        if (!errors.isEmpty()) {
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        List<OrderStats> stats = orderStatsService.stats(query.from(), query.to(), query.byCustomer(), query.bucket());
+        return ResponseEntity.ok(stats);
+    }
+
+    // Same aggregates as /stats, computed from the in-memory analytics columns instead of the database
+    // Also filters by customerName and by a total range (minTotal, maxTotal, inclusive)
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getOrderAnalytics(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                               @RequestParam(required = false) List<String> groupBy,
+                                               @RequestParam(defaultValue = "day") String bucket,
+                                               @RequestParam(required = false) String customerName,
+                                               @RequestParam(required = false) Double minTotal,
+                                               @RequestParam(required = false) Double maxTotal) {
+        if (!orderAnalyticsService.isEnabled()) {
+            ErrorResponse errorResponse = new ErrorResponse("Analytics is disabled",
+                    Collections.singletonList("orders: Set orders.analytics.enabled=true to serve /orders/analytics"));
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        List<String> errors = new ArrayList<>();
+        StatsQuery query = statsQuery(from, to, groupBy, bucket, errors);
+        if (minTotal != null && maxTotal != null && minTotal > maxTotal) {
+            errors.add("minTotal: Min total must not be greater than max total");
+        }
+        if (!errors.isEmpty()) {
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        List<OrderStats> stats = orderAnalyticsService.stats(query.from(), query.to(), query.byCustomer(), query.bucket(),
+                customerName, minTotal, maxTotal);
+        return ResponseEntity.ok(stats);
+    }
+
+    // Date range and grouping of a stats request; bucket is null when not grouping by date
+    private record StatsQuery(LocalDate from, LocalDate to, boolean byCustomer, OrderStatsService.Bucket bucket) {
+    }
+
+    // Read the parameters shared by /stats and /analytics, adding errors for invalid ones
+    private StatsQuery statsQuery(LocalDate from, LocalDate to, List<String> groupBy, String bucket, List<String> errors) {
+        boolean byCustomer = false;
+        boolean byDate = false;
+        if (groupBy != null) {
+            for (String group : groupBy) {
+                if (group.equalsIgnoreCase("customer")) {
+                    byCustomer = true;
+                } else if (group.equalsIgnoreCase("date")) {
+                    byDate = true;
+                } else {
+                    errors.add("groupBy: Unknown group " + group + ", expected customer or date");
+                }
+            }
+        }
+        OrderStatsService.Bucket dateBucket = null;
+        try {
+            dateBucket = OrderStatsService.Bucket.valueOf(bucket.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            errors.add("bucket: Bucket must be day, week or month");
+        }
+        LocalDate fromDate = from != null ? from : STATS_MIN_DATE;
+        LocalDate toDate = to != null ? to : STATS_MAX_DATE;
+        if (fromDate.isAfter(toDate)) {
+            errors.add("from: From date must not be after to date");
+        }
+        return new StatsQuery(fromDate, toDate, byCustomer, byDate ? dateBucket : null);
+    }
+
+    // Get the pre-aggregated daily order count and total per customer
+    @GetMapping("/rollup/daily")
+    public ResponseEntity<List<OrderDailyTotal>> getDailyTotals(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(required = false) String customerName) {
+        LocalDate fromDate = from != null ? from : STATS_MIN_DATE;
+        LocalDate toDate = to != null ? to : STATS_MAX_DATE;
+        return ResponseEntity.ok(orderRollupService.daily(fromDate, toDate, customerName));
+    }
+
+    // Recompute the daily rollup from the orders table
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildDailyTotals() {
+        int rows = orderRollupService.rebuild();
+        return ResponseEntity.ok(Map.of("rows", rows));
+    }
+
+    // Subscribe to order changes as Server-Sent Events
+    // Starts at the from offset, after the Last-Event-ID of a reconnecting client, or else at the next new change
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToChanges(@RequestParam(required = false) Long from,
+                                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long offset = from != null ? from : lastEventId != null ? lastEventId + 1 : orderEventLog.endOffset();
+        SseEmitter emitter = orderEventLog.subscribe(offset);
+        if (emitter == null) {
+            // Subscriber limit reached
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Search orders by words or word prefixes of customerName and shippingAddress, best matches first
+    @GetMapping("/search")
+    public ResponseEntity<?> searchOrders(@RequestParam(required = false) String q,
+                                          @RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(required = false) Integer size) {
+        List<String> errors = new ArrayList<>();
+        if (StringUtils.isBlank(q)) {
+            errors.add("q: Search query must not be blank");
+        }
+        if (page < 0) {
+            errors.add("page: Page must not be negative");
+        }
+        if (size != null && (size < 1 || size > MAX_SEARCH_SIZE)) {
+            errors.add("size: Size must be between 1 and " + MAX_SEARCH_SIZE);
+        }
+        if (!errors.isEmpty()) {
+            orderMetrics.validationFailed("search");
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        int pageSize = size != null ? size : DEFAULT_SEARCH_SIZE;
+        OrderSearchIndex.Result result = orderSearchIndex.search(q, page * pageSize, pageSize);
+
+        // Load the page in one query and put it back in rank order; orders deleted meanwhile are skipped
+        Map<Long, Order> orders = shardedOrderRepository.findAllById(result.ids()).stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+        List<OrderSearchHit> hits = new ArrayList<>();
+        for (int i = 0; i < result.ids().size(); i++) {
+            Order order = orders.get(result.ids().get(i));
+            if (order != null) {
+                hits.add(new OrderSearchHit(order, result.scores().get(i)));
+            }
+        }
+        return ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(result.total())).body(hits);
+    }
+
+    // Get the order cache counters
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(orderCache.stats());
+    }
+
     // Update an order
+    // An If-Match header makes the update conditional on the order version (412 when it does not match)
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateOrder(@PathVariable Long id, @RequestBody @Valid Order updatedOrder, BindingResult bindingResult) {
+    public ResponseEntity<?> updateOrder(@PathVariable Long id,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                         @RequestBody Order updatedOrder) {
         // Check for validation errors
-        if (bindingResult.hasErrors()) {
-            List<String> errors = bindingResult.getFieldErrors().stream()
-                    .map(fieldError -> fieldError.getField() + ": " + fieldError.getDefaultMessage())
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
+        int violations = OrderConstraints.check(updatedOrder);
+        if (violations != OrderConstraints.VALID) {
+            orderMetrics.validationFailed("update");
+            return UPDATE_VALIDATION_ERRORS.get(violations);
         }
 
-        Optional<Order> optionalOrder = orderRepository.findById(id);
+        Optional<Order> optionalOrder = orderUpdateService.update(id, OrderETags.ifMatch(ifMatch), updatedOrder);
         if (optionalOrder.isPresent()) {
-            Order order = optionalOrder.get();
-            order.setCustomerName(updatedOrder.getCustomerName());
-            order.setShippingAddress(updatedOrder.getShippingAddress());
-            order.setTotal(updatedOrder.getTotal());
-            Order savedOrder = orderRepository.save(order);
-            return ResponseEntity.ok(savedOrder);
+            Order savedOrder = optionalOrder.get();
+            orderCache.evict(id);
+            return ResponseEntity.ok().eTag(OrderETags.etagOf(savedOrder)).body(savedOrder);
         } else {
             // Return an error response if the order is not found
+            orderMetrics.notFound("update");
             ErrorResponse errorResponse = new ErrorResponse("Order not found", Collections.singletonList("Order not found with id: " + id));
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
         }
     }
 
+    // Partially update an order with a JSON Merge Patch (RFC 7396): only the members sent are changed
+    // Only the changed columns are written; If-Match works as for PUT
+    @PatchMapping(path = "/{id}", consumes = {OrderPatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchOrder(@PathVariable Long id,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        @RequestBody JsonNode mergePatch) {
+        List<String> errors = new ArrayList<>();
+        OrderPatch patch = OrderPatch.parse(mergePatch, errors);
+        if (!errors.isEmpty()) {
+            orderMetrics.validationFailed("patch");
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        Optional<Order> optionalOrder = orderUpdateService.patch(id, OrderETags.ifMatch(ifMatch), patch);
+        if (optionalOrder.isEmpty()) {
+            orderMetrics.notFound("patch");
+            ErrorResponse errorResponse = new ErrorResponse("Order not found", Collections.singletonList("Order not found with id: " + id));
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        Order savedOrder = optionalOrder.get();
+        orderCache.evict(id);
+        return ResponseEntity.ok().eTag(OrderETags.etagOf(savedOrder)).body(savedOrder);
+    }
+
     // Delete an order
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteOrder(@PathVariable Long id) {
-        if (!orderRepository.existsById(id)) {
+        // One locking read and one DELETE; an order that is not there deletes nothing
+        if (orderPurgeService.deleteByIds(List.of(id)) == 0) {
+            orderMetrics.notFound("delete");
             throw new OrderNotFoundException("Order not found with id: " + id);
         }
-        orderRepository.deleteById(id);
         return ResponseEntity.ok("Order deleted successfully");
     }
 
+    // Delete many orders: those with the given ids, or every order dated before a day
+    @DeleteMapping
+    public ResponseEntity<?> deleteOrders(@RequestParam(required = false) List<Long> ids,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+        List<String> errors = new ArrayList<>();
+        if ((ids == null) == (before == null)) {
+            errors.add("ids: Either ids or before is required, not both");
+        } else if (ids != null && (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE)) {
+            errors.add("ids: Ids must contain between 1 and " + MAX_BATCH_SIZE + " ids");
+        }
+        if (!errors.isEmpty()) {
+            orderMetrics.validationFailed("delete");
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        int deleted = ids != null ? orderPurgeService.deleteByIds(ids) : orderPurgeService.deleteBefore(before);
+        return ResponseEntity.ok(Map.of("deleted", deleted));
+    }
+
+    // Move orders older than the retention to the archive now, instead of waiting for the next scheduled run
+    // The run goes on in the background: 202 with the run, whose progress is at its Location
+    @PostMapping("/archive/run")
+    public ResponseEntity<OrderArchiveService.Run> runArchive() {
+        OrderArchiveService.Run run = orderArchiveService.submit();
+        return ResponseEntity.accepted().location(URI.create("/orders/archive/runs/" + run.id())).body(run);
+    }
+
+    // Get an archival run: QUEUED, RUNNING, COMPLETED with the orders and batches archived, or FAILED with the error
+    @GetMapping("/archive/runs/{id}")
+    public ResponseEntity<?> getArchiveRun(@PathVariable long id) {
+        OrderArchiveService.Run run = orderArchiveService.run(id);
+        if (run == null) {
+            orderMetrics.notFound("archive");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Archive run not found with id: " + id);
+        }
+        return ResponseEntity.ok(run);
+    }
+
+    // Import orders in bulk from a CSV file with a header line, or from NDJSON, sent as the request body
+    // Every valid order is stored under a new id; invalid lines are skipped and reported by line number
+    @PostMapping(path = "/import", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importOrders(HttpServletRequest request) throws IOException {
+        OrderTransferService.Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV)
+                ? OrderTransferService.Format.CSV : OrderTransferService.Format.NDJSON;
+        try {
+            return ResponseEntity.ok(orderTransferService.importStream(request.getInputStream(), format));
+        } catch (IllegalArgumentException ex) {
+            orderMetrics.validationFailed("import");
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error", Collections.singletonList(ex.getMessage()));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+
+    // Export every order as NDJSON, or as CSV with Accept: text/csv
+    @GetMapping("/export")
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        export(OrderTransferService.Format.NDJSON, response);
+    }
+
+    @GetMapping(path = "/export", produces = TEXT_CSV_VALUE)
+    public void exportOrdersAsCsv(HttpServletResponse response) throws IOException {
+        export(OrderTransferService.Format.CSV, response);
+    }
+
+    private void export(OrderTransferService.Format format, HttpServletResponse response) throws IOException {
+        response.setContentType(format.mediaType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders" + format.extension() + "\"");
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        orderTransferService.export(format, channel);
+    }
+
     // Exception handling for OrderNotFoundException
     @ExceptionHandler(OrderNotFoundException.class)
     public ResponseEntity<String> handleOrderNotFoundException(OrderNotFoundException ex) {
@@ -119,6 +615,7 @@ public class OrderController {
     // Exception handling for MethodArgumentNotValidException
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> handleValidationException(MethodArgumentNotValidException ex) {
+        orderMetrics.validationFailed("request");
         String errorMessage = ex.getBindingResult().getFieldErrors().stream()
                 .map(error -> error.getField() + ": " + error.getDefaultMessage())
                 .collect(Collectors.joining(", "));
@@ -130,6 +627,7 @@ public class OrderController {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
     public ResponseEntity<List<String>> handleConstraintViolationException(ConstraintViolationException ex) {
+        orderMetrics.validationFailed("request");
         List<String> errors = new ArrayList<>();
         for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
             errors.add(violation.getMessage());
@@ -0,0 +1,41 @@
+package com.tdd.project.TestDrivenDevelopment.Controller;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+//Maps an order's @Version column to a strong entity tag and back
+final class OrderETags {
+
+    private OrderETags() {
+    }
+
+    static String etagOf(Order order) {
+        return "\"" + order.getVersion() + "\"";
+    }
+
+    //Turns an If-Match header into a version check, or null when the header is absent.
+    //"*" matches any existing order; weak or foreign tags never match, as If-Match uses strong comparison.
+    static LongPredicate ifMatch(String header) {
+        if (header == null) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return version -> true;
+            }
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // Not one of our tags, so it cannot match
+                }
+            }
+        }
+        return versions::contains;
+    }
+}
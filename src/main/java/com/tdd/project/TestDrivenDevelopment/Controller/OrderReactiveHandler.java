@@ -0,0 +1,150 @@
+package com.tdd.project.TestDrivenDevelopment.Controller;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Exception.OrderVersionConflictException;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderConstraints;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderReactiveRepository;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+//Handlers of the reactive stack's /orders routes (see OrderRouter).
+//They keep OrderController's contract for create, list, get, update and delete: the same status codes, headers and
+//error bodies, but no request ever holds a thread while waiting on the database.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class OrderReactiveHandler {
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(OrderController.APPLICATION_NDJSON_VALUE);
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    // 400 bodies for every set of violations, built once as in OrderController so rejecting an order allocates no
+    // error body; never modified. Updates answer with OrderConstraints' shared error lists.
+    private static final List<ErrorResponse> CREATE_VALIDATION_ERRORS = new ArrayList<>(OrderConstraints.COMBINATIONS);
+
+    static {
+        for (int violations = 0; violations < OrderConstraints.COMBINATIONS; violations++) {
+            CREATE_VALIDATION_ERRORS.add(new ErrorResponse("Validation Error", OrderConstraints.errors(violations)));
+        }
+    }
+
+    @Autowired
+    private OrderReactiveRepository orderReactiveRepository;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    // Create a new order
+    public Mono<ServerResponse> createOrder(ServerRequest request) {
+        return request.bodyToMono(Order.class).flatMap(order -> {
+            int violations = OrderConstraints.checkNew(order);
+            if (violations != OrderConstraints.VALID) {
+                orderMetrics.validationFailed("create");
+                return ServerResponse.badRequest().bodyValue(CREATE_VALIDATION_ERRORS.get(violations));
+            }
+            // Set the order date and save the order
+            order.setOrderDate(LocalDate.now());
+            return orderReactiveRepository.insert(order)
+                    .flatMap(saved -> ServerResponse.status(HttpStatus.CREATED).bodyValue(saved));
+        });
+    }
+
+    // Get all orders as a streamed JSON array or NDJSON, or one keyset page when after/limit is given
+    public Mono<ServerResponse> getAllOrders(ServerRequest request) {
+        Optional<String> after = request.queryParam("after");
+        Optional<String> limit = request.queryParam("limit");
+        if (after.isEmpty() && limit.isEmpty()) {
+            MediaType contentType = request.headers().accept().contains(APPLICATION_NDJSON)
+                    ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+            return ServerResponse.ok().contentType(contentType).body(orderReactiveRepository.findAll(), Order.class);
+        }
+        int pageSize;
+        long cursor;
+        try {
+            pageSize = limit.map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE);
+            cursor = after.map(Long::parseLong).orElse(Long.MIN_VALUE);
+        } catch (NumberFormatException ex) {
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error",
+                    Collections.singletonList("after: After and limit must be numbers"));
+            return ServerResponse.badRequest().bodyValue(errorResponse);
+        }
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            ErrorResponse errorResponse = new ErrorResponse("Validation Error",
+                    Collections.singletonList("limit: Limit must be between 1 and " + MAX_PAGE_SIZE));
+            return ServerResponse.badRequest().bodyValue(errorResponse);
+        }
+        int size = pageSize;
+        return orderReactiveRepository.findPage(cursor, size).collectList().flatMap(orders -> {
+            // A full page means there may be more rows after the last id
+            ServerResponse.BodyBuilder response = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+            if (orders.size() == size) {
+                response.header(OrderController.NEXT_CURSOR_HEADER, String.valueOf(orders.get(orders.size() - 1).getId()));
+            }
+            return response.bodyValue(orders);
+        });
+    }
+
+    // Get an order by ID, answering a matching If-None-Match with 304
+    public Mono<ServerResponse> getOrderById(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        return orderReactiveRepository.findById(id)
+                .flatMap(order -> {
+                    String etag = OrderETags.etagOf(order);
+                    return request.checkNotModified(etag)
+                            .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(etag).bodyValue(order)));
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    orderMetrics.notFound("get");
+                    return ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue("Order not found with id: " + id);
+                }));
+    }
+
+    // Update an order, conditionally when If-Match is sent
+    public Mono<ServerResponse> updateOrder(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        String ifMatch = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+        return request.bodyToMono(Order.class).flatMap(changes -> {
+            int violations = OrderConstraints.check(changes);
+            if (violations != OrderConstraints.VALID) {
+                orderMetrics.validationFailed("update");
+                return ServerResponse.badRequest().bodyValue(OrderConstraints.errors(violations));
+            }
+            return orderReactiveRepository.update(id, OrderETags.ifMatch(ifMatch), changes)
+                    .flatMap(saved -> ServerResponse.ok().eTag(OrderETags.etagOf(saved)).bodyValue(saved))
+                    .switchIfEmpty(Mono.defer(() -> {
+                        orderMetrics.notFound("update");
+                        ErrorResponse errorResponse = new ErrorResponse("Order not found",
+                                Collections.singletonList("Order not found with id: " + id));
+                        return ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue(errorResponse);
+                    }))
+                    .onErrorResume(OrderVersionConflictException.class, ex -> ServerResponse
+                            .status(HttpStatus.PRECONDITION_FAILED).bodyValue(new ErrorResponse(ex.getMessage(), List.of())));
+        });
+    }
+
+    // Delete an order
+    public Mono<ServerResponse> deleteOrder(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        return orderReactiveRepository.deleteById(id).flatMap(deleted -> {
+            if (!deleted) {
+                orderMetrics.notFound("delete");
+                return ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue("Order not found with id: " + id);
+            }
+            return ServerResponse.ok().bodyValue("Order deleted successfully");
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.tdd.project.TestDrivenDevelopment.Controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+//WebFlux routes of the reactive stack, started with spring.main.web-application-type=reactive.
+//Only the core order contract is served here; batch, stats, rollup, search and change stream stay on OrderController.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class OrderRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> orderRoutes(OrderReactiveHandler handler) {
+        return route(POST("/orders"), handler::createOrder)
+                .andRoute(GET("/orders"), handler::getAllOrders)
+                .andRoute(GET("/orders/{id}"), handler::getOrderById)
+                .andRoute(PUT("/orders/{id}"), handler::updateOrder)
+                .andRoute(DELETE("/orders/{id}"), handler::deleteOrder);
+    }
+}
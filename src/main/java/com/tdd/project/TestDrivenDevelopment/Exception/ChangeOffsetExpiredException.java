@@ -0,0 +1,13 @@
+package com.tdd.project.TestDrivenDevelopment.Exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown when a change-log offset is outside the retained window of events
+@ResponseStatus(HttpStatus.GONE)
+public class ChangeOffsetExpiredException extends RuntimeException {
+
+    public ChangeOffsetExpiredException(String message) {
+        super(message);
+    }
+}
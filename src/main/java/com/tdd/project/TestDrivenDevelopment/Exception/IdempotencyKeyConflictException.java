@@ -0,0 +1,14 @@
+package com.tdd.project.TestDrivenDevelopment.Exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown when a request repeats an Idempotency-Key whose first request is still being processed.
+//Created without a stack trace, like OrderNotFoundException.
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,14 @@
+package com.tdd.project.TestDrivenDevelopment.Exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown when an Idempotency-Key is sent again with a different order than the one it was first used for.
+//Created without a stack trace, like OrderNotFoundException.
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,19 +1,30 @@
 package com.tdd.project.TestDrivenDevelopment.Exception;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class OrderExceptionHandler {
 
+    // Seconds a client refused because the database is busy is asked to wait
+    private static final String DATABASE_BUSY_RETRY_AFTER_SECONDS = "1";
+
     //Exception handler for OrderNotFoundException.
     //Returns a 404 Not Found response with an ErrorResponse containing the error message.
     @ExceptionHandler(OrderNotFoundException.class)
@@ -23,33 +34,81 @@ public class OrderExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    //Exception handler for OrderVersionConflictException.
+    //Returns a 412 Precondition Failed response when the If-Match version is not the current one.
+    @ExceptionHandler(OrderVersionConflictException.class)
+    public ResponseEntity<Object> handleOrderVersionConflictException(OrderVersionConflictException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), List.of());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(errorResponse);
+    }
+
+    //Exception handler for OptimisticLockingFailureException.
+    //Returns a 409 Conflict response when an update kept losing to concurrent writers after its retries.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Order was modified concurrently, please retry", List.of());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    //Exception handler for IdempotencyKeyConflictException.
+    //Returns a 409 Conflict response while the first request with the same Idempotency-Key is still running.
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyConflictException(IdempotencyKeyConflictException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), List.of());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    //Exception handler for IdempotencyKeyReuseException.
+    //Returns a 422 Unprocessable Entity response when an Idempotency-Key comes back with a different order.
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyReuseException(IdempotencyKeyReuseException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), List.of());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+    }
+
+    //Exception handler for ChangeOffsetExpiredException.
+    //Returns a 410 Gone response as JSON, also to clients that asked for an event stream.
+    @ExceptionHandler(ChangeOffsetExpiredException.class)
+    public ResponseEntity<Object> handleChangeOffsetExpiredException(ChangeOffsetExpiredException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), List.of());
+        return ResponseEntity.status(HttpStatus.GONE).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+    }
+
     //Exception handler for BindException.
     //Returns a 400 Bad Request response with an ErrorResponse containing the validation errors.
     @ExceptionHandler(BindException.class)
     public ResponseEntity<Object> handleBindException(BindException ex) {
         BindingResult bindingResult = ex.getBindingResult();
-        List<String> errors = bindingResult.getAllErrors().stream()
-                .map(error -> {
-                    if (error instanceof FieldError) {
-                        FieldError fieldError = (FieldError) error;
-                        return fieldError.getField() + ": " + error.getDefaultMessage();
-                    }
-                    return error.getDefaultMessage();
-                })
-                .collect(Collectors.toList());
+        List<String> errors = new ArrayList<>(bindingResult.getErrorCount());
+        for (ObjectError error : bindingResult.getAllErrors()) {
+            if (error instanceof FieldError fieldError) {
+                errors.add(fieldError.getField() + ": " + error.getDefaultMessage());
+            } else {
+                errors.add(error.getDefaultMessage());
+            }
+        }
 
         ErrorResponse errorResponse = new ErrorResponse("Validation Error", errors);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    //Exception handler for database timeouts: no connection free in time (CannotCreateTransactionException) or a
+    //statement that timed out or hit a lock timeout (TransientDataAccessException).
+    //Returns a 503 Service Unavailable response with Retry-After, as the request may succeed once the load drops.
+    @ExceptionHandler({CannotCreateTransactionException.class, TransientDataAccessException.class})
+    public ResponseEntity<Object> handleDatabaseBusyException(Exception ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Service Unavailable",
+                Collections.singletonList("orders: Database is busy, retry later"));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, DATABASE_BUSY_RETRY_AFTER_SECONDS)
+                .body(errorResponse);
+    }
+
     //Generic exception handler.
     //Returns a 500 Internal Server Error response with an ErrorResponse containing the error message.
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleException(Exception ex) {
-        List<String> errors = new ArrayList<>();
-        errors.add(ex.getMessage());
-
-        ErrorResponse errorResponse = new ErrorResponse("Internal Server Error", errors);
+        ErrorResponse errorResponse = new ErrorResponse("Internal Server Error", Collections.singletonList(ex.getMessage()));
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
 }
@@ -4,12 +4,12 @@ package com.tdd.project.TestDrivenDevelopment.Exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+//An expected outcome answered with 404, not a fault: it is created without a stack trace, which would cost more
+//than the rest of the request and is never read
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class OrderNotFoundException extends RuntimeException {
 
     public OrderNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
-
-
@@ -0,0 +1,14 @@
+package com.tdd.project.TestDrivenDevelopment.Exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown when an If-Match precondition does not match the current version of the order.
+//Created without a stack trace, like OrderNotFoundException.
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class OrderVersionConflictException extends RuntimeException {
+
+    public OrderVersionConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,173 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Limit on the order requests in progress at once, adapted to how fast OrderRepository answers (a gradient limit).
+//Every OrderRepository call reports its latency. Once per window the average latency of the window is compared with
+//the long-run average: while it stays within tolerance times the long-run average the limit grows by about its
+//square root, and when the database slows down beyond that the limit shrinks in proportion to the slowdown. Each
+//new limit is blended with the previous one (smoothing), so a single slow window does not halve it. A request that
+//finds the limit reached is refused at once instead of queueing for a connection, so the requests let in keep their
+//latency.
+//Latencies are summed in striped LongAdders and the limit is an AtomicInteger, so the request path takes no lock; one
+//thread at a time recomputes the limit at the end of a window, and the others skip it.
+@Component
+public class AdaptiveConcurrencyLimiter implements RepositoryMethodInvocationListener {
+
+    //Windows with fewer repository calls than this are too noisy to act on, and are extended instead
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    //Windows the long-run average latency spans
+    private static final double LONG_WINDOWS = 100;
+    //Lowest ratio of the long-run to the window latency acted on, so a latency spike cuts at most half of the limit
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Highest in-flight count of the current window
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder windowLatencyNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowEnd;
+    private final ReentrantLock updateLock = new ReentrantLock();
+    // Guarded by updateLock
+    private double estimatedLimit;
+    private volatile double shortLatencyNanos;
+    private volatile double longLatencyNanos;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${orders.concurrency.initial-limit:50}") int initialLimit,
+                                      @Value("${orders.concurrency.min-limit:10}") int minLimit,
+                                      @Value("${orders.concurrency.max-limit:500}") int maxLimit,
+                                      @Value("${orders.concurrency.window:100ms}") Duration window,
+                                      @Value("${orders.concurrency.tolerance:2.0}") double tolerance,
+                                      @Value("${orders.concurrency.smoothing:0.2}") double smoothing) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max: "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = window.toNanos();
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = new AtomicInteger(initialLimit);
+        this.estimatedLimit = initialLimit;
+        this.windowEnd = new AtomicLong(System.nanoTime() + windowNanos);
+        Gauge.builder("orders.concurrency.limit", limit, AtomicInteger::get)
+                .description("Order requests allowed in progress at once")
+                .register(meterRegistry);
+        Gauge.builder("orders.concurrency.in_flight", inFlight, AtomicInteger::get)
+                .description("Order requests in progress")
+                .register(meterRegistry);
+        Gauge.builder("orders.concurrency.latency", this, limiter -> limiter.shortLatencyNanos / 1e9)
+                .description("Average OrderRepository latency of the last window")
+                .baseUnit("seconds")
+                .tag("window", "short")
+                .register(meterRegistry);
+        Gauge.builder("orders.concurrency.latency", this, limiter -> limiter.longLatencyNanos / 1e9)
+                .description("Long-run average OrderRepository latency")
+                .baseUnit("seconds")
+                .tag("window", "long")
+                .register(meterRegistry);
+    }
+
+    //Admits a request if fewer than the limit are in progress; each admitted request must call release
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > peakInFlight.get()) {
+                    peakInFlight.accumulateAndGet(current + 1, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        if (invocation.getRepositoryInterface() != OrderRepository.class) {
+            return;
+        }
+        record(invocation.getDuration(TimeUnit.NANOSECONDS));
+    }
+
+    //Adds one repository call's latency to the current window
+    public void record(long latencyNanos) {
+        windowLatencyNanos.add(latencyNanos);
+        windowSamples.increment();
+        long now = System.nanoTime();
+        if (now - windowEnd.get() >= 0 && updateLock.tryLock()) {
+            try {
+                if (now - windowEnd.get() >= 0) {
+                    endWindow(now);
+                }
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    private void endWindow(long now) {
+        long samples = windowSamples.sum();
+        if (samples < MIN_WINDOW_SAMPLES) {
+            windowEnd.set(now + windowNanos);
+            return;
+        }
+        double shortLatency = (double) windowLatencyNanos.sumThenReset() / windowSamples.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        double longLatency = longLatencyNanos;
+        if (longLatency == 0) {
+            longLatency = shortLatency;
+        } else if (shortLatency < longLatency) {
+            // Follow improvements quickly, so a slow start-up does not leave the baseline too high
+            longLatency = Math.max(shortLatency, longLatency * 0.9);
+        } else {
+            longLatency += (shortLatency - longLatency) / LONG_WINDOWS;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longLatency / shortLatency));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (gradient == 1.0 && peak < estimatedLimit / 2) {
+            // Traffic never came near the limit, so this window says nothing about a higher one
+            newLimit = estimatedLimit;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+        shortLatencyNanos = shortLatency;
+        longLatencyNanos = longLatency;
+        limit.set((int) estimatedLimit);
+        windowEnd.set(now + windowNanos);
+    }
+}
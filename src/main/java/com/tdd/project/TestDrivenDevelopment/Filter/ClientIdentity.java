@@ -0,0 +1,34 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+//Tells the API's clients apart, for their rate limits (LoadSheddingFilter) and their idempotency keys.
+//A client is its address. The orders.client.header header names the client instead only when the request comes from
+//one of orders.client.trusted-proxies, which set it for the clients behind them: anyone else could send a new value
+//with every request and pass for a new client each time.
+@Component
+public class ClientIdentity {
+
+    private final String header;
+    private final Set<String> trustedProxies;
+
+    public ClientIdentity(@Value("${orders.client.header:X-Client-Id}") String header,
+                          @Value("${orders.client.trusted-proxies:}") List<String> trustedProxies) {
+        this.header = header;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+    }
+
+    public String of(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+        String client = request.getHeader(header);
+        return client != null && !client.isEmpty() ? client : address;
+    }
+}
@@ -0,0 +1,55 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Token bucket per client: permitsPerSecond tokens are added each second, up to burst tokens, and every request takes
+//one.
+//Each bucket is a single AtomicLong holding the time at which it will be full again (the generic cell rate
+//algorithm, which behaves exactly like a token bucket). Taking a token is one compare-and-set with no lock and no
+//refill thread, so clients never contend with each other and rarely with themselves. Buckets of clients that stopped
+//sending are dropped after idleTimeout (by then they are full anyway) and there are at most maxClients of them.
+public class ClientRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    public ClientRateLimiter(double permitsPerSecond, int burst, Duration idleTimeout, long maxClients) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1: " + permitsPerSecond + "/s, " + burst);
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxClients)
+                .build();
+    }
+
+    //Takes a token from the client's bucket. Returns 0 when granted, otherwise the nanoseconds until one is available.
+    public long tryAcquire(String client) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(client, key -> new AtomicLong(now));
+        while (true) {
+            long fullAt = bucket.get();
+            // A bucket that has been full for a while starts from now, not from when it filled up
+            long start = now - fullAt > 0 ? now : fullAt;
+            long wait = start - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public long clients() {
+        return buckets.estimatedSize();
+    }
+}
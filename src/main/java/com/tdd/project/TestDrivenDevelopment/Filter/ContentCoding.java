@@ -0,0 +1,84 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+//Response compression offered by ResponseCompressionFilter, in order of preference
+public enum ContentCoding {
+
+    //Compresses about as well as gzip at a fraction of the CPU time
+    ZSTD("zstd") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new ZstdOutputStream(out, ZSTD_LEVEL);
+        }
+    },
+    GZIP("gzip") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            // Sync flush, so rows flushed by a streamed response reach the client without waiting for the end
+            return new GZIPOutputStream(out, BUFFER_SIZE, true);
+        }
+    };
+
+    private static final int ZSTD_LEVEL = 3;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    //Value of the Content-Encoding header
+    public String token() {
+        return token;
+    }
+
+    //Wraps out in a stream that compresses everything written to it; closing it finishes the encoding
+    public abstract OutputStream encode(OutputStream out) throws IOException;
+
+    //Preferred coding the Accept-Encoding header allows, or null when it allows none.
+    //q=0 excludes a coding; "*" stands for every coding not listed by name.
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        Boolean[] listed = new Boolean[values().length];
+        boolean wildcard = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+            boolean allowed = true;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        allowed = Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException ex) {
+                        allowed = false;
+                    }
+                }
+            }
+            if (name.equals("*")) {
+                wildcard = allowed;
+            }
+            for (ContentCoding coding : values()) {
+                if (name.equals(coding.token)) {
+                    listed[coding.ordinal()] = allowed;
+                }
+            }
+        }
+        for (ContentCoding coding : values()) {
+            Boolean allowed = listed[coding.ordinal()];
+            if (allowed != null ? allowed : wildcard) {
+                return coding;
+            }
+        }
+        return null;
+    }
+}
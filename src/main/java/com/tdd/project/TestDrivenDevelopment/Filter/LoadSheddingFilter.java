@@ -0,0 +1,120 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Sheds excess order requests before they reach the controller, so a traffic spike gets fast refusals instead of
+//queueing on the database and timing out for everyone.
+//First each client is held to its token bucket (ClientRateLimiter): a client over its rate gets 429 with the seconds
+//until its next token in Retry-After. Then the request must fit under the adaptive concurrency limit
+//(AdaptiveConcurrencyLimiter): when as many requests are in progress as the database currently sustains, it gets 503.
+//Clients are told apart by ClientIdentity. The change stream is rate limited but not counted as in progress, since its
+//subscriptions stay open for minutes.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final String OVERLOADED_RETRY_AFTER_SECONDS = "1";
+
+    private final boolean rateLimitEnabled;
+    private final boolean concurrencyLimitEnabled;
+    private final ClientIdentity clientIdentity;
+    private final ClientRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ObjectMapper objectMapper;
+    private final Counter rateLimitedCounter;
+    private final Counter overloadedCounter;
+
+    public LoadSheddingFilter(AdaptiveConcurrencyLimiter concurrencyLimiter,
+                              ClientIdentity clientIdentity,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${orders.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                              @Value("${orders.rate-limit.permits-per-second:200}") double permitsPerSecond,
+                              @Value("${orders.rate-limit.burst:400}") int burst,
+                              @Value("${orders.rate-limit.max-clients:100000}") long maxClients,
+                              @Value("${orders.concurrency.enabled:true}") boolean concurrencyLimitEnabled) {
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+        this.clientIdentity = clientIdentity;
+        // An idle bucket is full again after burst / rate seconds, and then no different from a new one
+        Duration idleTimeout = Duration.ofNanos((long) (TimeUnit.SECONDS.toNanos(1) * burst / permitsPerSecond)).plusSeconds(1);
+        this.rateLimiter = new ClientRateLimiter(permitsPerSecond, burst, idleTimeout, maxClients);
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.objectMapper = objectMapper;
+        this.rateLimitedCounter = Counter.builder("orders.requests.shed")
+                .description("Order requests refused before reaching the controller")
+                .tag("reason", "rate_limited")
+                .register(meterRegistry);
+        this.overloadedCounter = Counter.builder("orders.requests.shed")
+                .description("Order requests refused before reaching the controller")
+                .tag("reason", "overloaded")
+                .register(meterRegistry);
+        Gauge.builder("orders.rate_limit.clients", rateLimiter, ClientRateLimiter::clients)
+                .description("Clients with a token bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return (!rateLimitEnabled && !concurrencyLimitEnabled) || !request.getRequestURI().startsWith("/orders");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (rateLimitEnabled) {
+            long waitNanos = rateLimiter.tryAcquire(clientIdentity.of(request));
+            if (waitNanos > 0) {
+                rateLimitedCounter.increment();
+                // Whole seconds, rounded up so the client does not come back before its token
+                long retryAfter = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+                refuse(response, HttpStatus.TOO_MANY_REQUESTS, String.valueOf(retryAfter),
+                        "client: Request rate limit exceeded, retry later");
+                return;
+            }
+        }
+        if (!concurrencyLimitEnabled || request.getRequestURI().endsWith("/changes")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            overloadedCounter.increment();
+            refuse(response, HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED_RETRY_AFTER_SECONDS,
+                    "orders: Server is at its concurrency limit, retry later");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release();
+        }
+    }
+
+    private void refuse(HttpServletResponse response, HttpStatus status, String retryAfter, String error) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(status.getReasonPhrase(), List.of(error)));
+    }
+}
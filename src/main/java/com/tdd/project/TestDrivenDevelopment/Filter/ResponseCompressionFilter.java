@@ -0,0 +1,254 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+
+//Compresses order responses with zstd or gzip, whichever the client's Accept-Encoding allows (zstd first).
+//The first min-response-size bytes are held back: a response that ends within them is sent as is, since compressing
+//it would not pay off. Longer responses of a compressible type are encoded as they are written, so streamed lists are
+//compressed on the fly without being buffered. The change stream is left alone, as its events must not wait in a
+//compressor. So are bodies written after the request leaves the filter (async requests) or with non-blocking I/O: the
+//container's stream then takes over as is, and a write listener is registered with it.
+@Component
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int minResponseSize;
+    private final List<MediaType> mimeTypes;
+
+    public ResponseCompressionFilter(@Value("${orders.compression.enabled:true}") boolean enabled,
+                                     @Value("${orders.compression.min-response-size:2KB}") DataSize minResponseSize,
+                                     @Value("${orders.compression.mime-types:application/json,application/x-ndjson,application/cbor,application/x-jackson-smile,text/csv}") List<MediaType> mimeTypes) {
+        this.enabled = enabled;
+        this.minResponseSize = (int) minResponseSize.toBytes();
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !enabled || !uri.startsWith("/orders") || uri.endsWith("/changes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCoding coding = ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null || HttpMethod.HEAD.matches(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        CompressingResponse compressingResponse = new CompressingResponse(response, coding);
+        filterChain.doFilter(request, compressingResponse);
+        // An async request has its body still to come; it goes out uncompressed after what was held back
+        compressingResponse.finish();
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.isCompatibleWith(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Holds back the Content-Length until it is known whether the body is sent compressed
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final ContentCoding coding;
+        private CompressingOutputStream outputStream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        CompressingResponse(HttpServletResponse response, ContentCoding coding) {
+            super(response);
+            this.coding = coding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new CompressingOutputStream(this);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                Charset charset = Charset.forName(getCharacterEncoding());
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = value != null ? Long.parseLong(value) : -1;
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setHeader(name, value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.flush();
+            }
+            // Committing now would send the headers before the encoding is chosen
+            if (outputStream != null && outputStream.body != null) {
+                super.flushBuffer();
+            }
+        }
+
+        //Chooses the encoding once the body outgrows the held-back bytes
+        private OutputStream startBody(boolean complete) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (complete || getHeader(HttpHeaders.CONTENT_ENCODING) != null || !isCompressible(getContentType())) {
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                }
+                return response.getOutputStream();
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+            return coding.encode(response.getOutputStream());
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.finish();
+            } else if (contentLength >= 0) {
+                getResponse().setContentLengthLong(contentLength);
+            }
+        }
+    }
+
+    //Buffers the first minResponseSize bytes, then writes through the chosen encoding
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private final CompressingResponse response;
+        private byte[] head = new byte[minResponseSize];
+        private int headLength;
+        private OutputStream body;
+
+        CompressingOutputStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (body == null && headLength < head.length) {
+                head[headLength++] = (byte) b;
+                return;
+            }
+            startBody(false).write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (body == null && headLength + length <= head.length) {
+                System.arraycopy(bytes, offset, head, headLength, length);
+                headLength += length;
+                return;
+            }
+            startBody(false).write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Held-back bytes stay back until the size decision is made
+            if (body != null) {
+                body.flush();
+            }
+        }
+
+        private OutputStream startBody(boolean complete) throws IOException {
+            if (body == null) {
+                body = response.startBody(complete);
+                body.write(head, 0, headLength);
+                head = null;
+            }
+            return body;
+        }
+
+        private void finish() throws IOException {
+            startBody(true);
+            if (body instanceof ServletOutputStream) {
+                body.flush();
+            } else {
+                // Ends the compressed stream; the container closes the connection's stream itself
+                body.close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return !(body instanceof ServletOutputStream servletOutputStream) || servletOutputStream.isReady();
+        }
+
+        //Non-blocking writes go straight to the container's stream, which alone knows when it can take more
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                startBody(true);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not start the response body", e);
+            }
+            if (!(body instanceof ServletOutputStream servletOutputStream)) {
+                throw new IllegalStateException("Non-blocking I/O cannot take over a response already being compressed");
+            }
+            servletOutputStream.setWriteListener(writeListener);
+        }
+    }
+}
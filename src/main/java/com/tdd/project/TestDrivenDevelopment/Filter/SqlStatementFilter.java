@@ -0,0 +1,39 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import com.tdd.project.TestDrivenDevelopment.Config.SqlStatementMonitor;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+//Brackets every order request with SqlStatementMonitor, so statements are counted per request and endpoint
+@Component
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private SqlStatementMonitor sqlStatementMonitor;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/orders");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        sqlStatementMonitor.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // The matched pattern keeps the uri tag bounded, e.g. /orders/{id} rather than every id
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            sqlStatementMonitor.endRequest(pattern != null ? pattern.toString() : "UNKNOWN");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.tdd.project.TestDrivenDevelopment.Filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+//Active only when requests run on virtual threads (spring.threads.virtual.enabled=true).
+//With virtual threads there is no thread pool bounding how many requests reach JDBC at once, and a virtual thread
+//inside synchronized driver code pins its carrier thread. Order requests therefore take a permit first, sized to the
+//connection pool: waiting virtual threads park on the semaphore, which unmounts them, instead of piling into the driver.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadJdbcGuardFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+
+    public VirtualThreadJdbcGuardFilter(
+            @Value("${orders.virtual-threads.jdbc-permits:${spring.datasource.hikari.maximum-pool-size:10}}") int jdbcPermits) {
+        this.permits = new Semaphore(jdbcPermits, true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/orders");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
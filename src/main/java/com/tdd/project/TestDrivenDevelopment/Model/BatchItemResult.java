@@ -0,0 +1,65 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import java.util.List;
+
+//Outcome of one order in a POST /orders/batch request, in the same position as the submitted order
+public class BatchItemResult {
+    public static final String CREATED = "CREATED";
+    public static final String INVALID = "INVALID";
+
+    private int index;
+    private String status;
+    private Long id;
+    private List<String> errors;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(int index, String status, Long id, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, CREATED, id, List.of());
+    }
+
+    public static BatchItemResult invalid(int index, List<String> errors) {
+        return new BatchItemResult(index, INVALID, null, errors);
+    }
+
+    //Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
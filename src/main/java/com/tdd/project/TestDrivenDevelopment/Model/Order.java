@@ -1,6 +1,14 @@
 package com.tdd.project.TestDrivenDevelopment.Model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderChangeListener;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderRollupListener;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderSearchListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -9,10 +17,22 @@ import jakarta.validation.constraints.Positive;
 import java.time.LocalDate;
 
 @Entity
-@Table(name="orders")
+//Updates write only the columns that changed, so PATCH of one field sends one column (plus the version)
+@DynamicUpdate
+@EntityListeners({OrderRollupListener.class, OrderChangeListener.class, OrderSearchListener.class})
+@Table(name="orders", indexes = {
+        @Index(name = "idx_orders_order_date", columnList = "order_date"),
+        @Index(name = "idx_orders_customer_name_order_date", columnList = "customer_name, order_date")
+})
 public class Order{
     @Id
-    @GeneratedValue
+    //Pooled sequence: one sequence call reserves a block of ids, so inserts can be batched.
+    //OrderIdGenerator hands out the id reserved ahead of the insert by the write-behind ingest queue instead.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @GenericGenerator(name = "orders_seq", type = OrderIdGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "orders_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     private Long id;
     @NotEmpty(message = "Customer name required")
     @Column(nullable = false)
@@ -27,6 +47,24 @@ public class Order{
     @Positive(message = "Total must be positive")
     @Column(nullable = false)
     private Double total;
+    //Optimistic lock version, exposed to clients as the ETag rather than in the body
+    @Version
+    @JsonIgnore
+    private Long version;
+    //Rollup key and total as last read from or written to the database, so updates and deletes can reverse them
+    @Transient
+    @JsonIgnore
+    private String persistedCustomerName;
+    @Transient
+    @JsonIgnore
+    private LocalDate persistedOrderDate;
+    @Transient
+    @JsonIgnore
+    private Double persistedTotal;
+    //Id taken from orders_seq before the order was queued for insert, which it gets when it is persisted
+    @Transient
+    @JsonIgnore
+    private Long reservedId;
 
     //Getters and Setters
     public Long getId() {
@@ -68,4 +106,51 @@ public class Order{
     public void setTotal(Double total) {
         this.total = total;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getPersistedCustomerName() {
+        return persistedCustomerName;
+    }
+
+    public LocalDate getPersistedOrderDate() {
+        return persistedOrderDate;
+    }
+
+    public Double getPersistedTotal() {
+        return persistedTotal;
+    }
+
+    //Detached copy of the order's fields, safe to hand to other threads
+    public Order copy() {
+        Order copy = new Order();
+        copy.setId(id);
+        copy.setCustomerName(customerName);
+        copy.setOrderDate(orderDate);
+        copy.setShippingAddress(shippingAddress);
+        copy.setTotal(total);
+        copy.setVersion(version);
+        return copy;
+    }
+
+    public Long getReservedId() {
+        return reservedId;
+    }
+
+    public void reserveId(Long reservedId) {
+        this.reservedId = reservedId;
+    }
+
+    //Records the current values as the ones stored in the database
+    public void markPersisted() {
+        this.persistedCustomerName = customerName;
+        this.persistedOrderDate = orderDate;
+        this.persistedTotal = total;
+    }
 }
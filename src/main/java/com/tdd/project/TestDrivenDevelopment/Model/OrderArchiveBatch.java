@@ -0,0 +1,99 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+//One batch of orders moved out of the orders table by OrderArchiveService.
+//The orders are kept as zstd-compressed NDJSON in payload; the other columns describe the batch so it can be found
+//again without decompressing it.
+@Entity
+@Table(name = "order_archive", indexes = {
+        @Index(name = "idx_order_archive_max_order_date", columnList = "max_order_date")
+})
+public class OrderArchiveBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private long firstOrderId;
+    @Column(nullable = false)
+    private long lastOrderId;
+    @Column(nullable = false)
+    private int orderCount;
+    @Column(nullable = false)
+    private LocalDate minOrderDate;
+    @Column(nullable = false)
+    private LocalDate maxOrderDate;
+    @Column(nullable = false)
+    private Instant archivedAt;
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+
+    //Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getFirstOrderId() {
+        return firstOrderId;
+    }
+
+    public void setFirstOrderId(long firstOrderId) {
+        this.firstOrderId = firstOrderId;
+    }
+
+    public long getLastOrderId() {
+        return lastOrderId;
+    }
+
+    public void setLastOrderId(long lastOrderId) {
+        this.lastOrderId = lastOrderId;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public LocalDate getMinOrderDate() {
+        return minOrderDate;
+    }
+
+    public void setMinOrderDate(LocalDate minOrderDate) {
+        this.minOrderDate = minOrderDate;
+    }
+
+    public LocalDate getMaxOrderDate() {
+        return maxOrderDate;
+    }
+
+    public void setMaxOrderDate(LocalDate maxOrderDate) {
+        this.maxOrderDate = maxOrderDate;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(Instant archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+}
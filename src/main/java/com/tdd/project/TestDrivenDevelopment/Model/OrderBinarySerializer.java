@@ -0,0 +1,49 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+//Writes an Order for the binary formats (CBOR, Smile) straight to the generator, without bean introspection.
+//Carries the same fields as the JSON form, but orderDate is written as its epoch day, a small integer, instead of
+//ISO text; Jackson's LocalDate deserializer reads both. Field names are encoded once and reused for every order.
+public class OrderBinarySerializer extends StdSerializer<Order> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString CUSTOMER_NAME = new SerializedString("customerName");
+    private static final SerializableString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializableString SHIPPING_ADDRESS = new SerializedString("shippingAddress");
+    private static final SerializableString TOTAL = new SerializedString("total");
+
+    public OrderBinarySerializer() {
+        super(Order.class);
+    }
+
+    @Override
+    public void serialize(Order order, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        // CBOR writes a definite-length map from the field count, one byte shorter than an open-ended one
+        int fields = 2 + (order.getId() != null ? 1 : 0) + (order.getOrderDate() != null ? 1 : 0) + (order.getTotal() != null ? 1 : 0);
+        generator.writeStartObject(order, fields);
+        if (order.getId() != null) {
+            generator.writeFieldName(ID);
+            generator.writeNumber(order.getId());
+        }
+        generator.writeFieldName(CUSTOMER_NAME);
+        generator.writeString(order.getCustomerName());
+        if (order.getOrderDate() != null) {
+            generator.writeFieldName(ORDER_DATE);
+            generator.writeNumber(order.getOrderDate().toEpochDay());
+        }
+        generator.writeFieldName(SHIPPING_ADDRESS);
+        generator.writeString(order.getShippingAddress());
+        if (order.getTotal() != null) {
+            generator.writeFieldName(TOTAL);
+            generator.writeNumber(order.getTotal());
+        }
+        generator.writeEndObject();
+    }
+}
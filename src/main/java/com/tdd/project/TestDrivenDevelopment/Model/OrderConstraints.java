@@ -0,0 +1,113 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import io.micrometer.common.util.StringUtils;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Checks Order's Bean Validation constraints with plain field reads, so rejecting an order allocates nothing.
+//Violations are returned as a bit set. Every combination of them maps to one error list built at startup from the
+//constraint messages declared on Order, in field order, as "field: message".
+public final class OrderConstraints {
+
+    public static final int VALID = 0;
+    public static final int CUSTOMER_NAME_REQUIRED = 1;
+    public static final int ORDER_DATE_REQUIRED = 1 << 1;
+    public static final int SHIPPING_ADDRESS_REQUIRED = 1 << 2;
+    public static final int TOTAL_REQUIRED = 1 << 3;
+    public static final int TOTAL_NOT_POSITIVE = 1 << 4;
+    //Only checked for new orders, and only when the constraints hold
+    public static final int CUSTOMER_NAME_BLANK = 1 << 5;
+    //Number of distinct violation sets, for callers that precompute a response per set
+    public static final int COMBINATIONS = 1 << 6;
+
+    private static final String[] MESSAGES = {
+            message("customerName", NotEmpty.class),
+            message("orderDate", NotNull.class),
+            message("shippingAddress", NotBlank.class),
+            message("total", NotNull.class),
+            message("total", Positive.class),
+            "customerName: Customer name must not be blank"
+    };
+    private static final List<List<String>> ERRORS = new ArrayList<>(COMBINATIONS);
+
+    static {
+        for (int violations = 0; violations < COMBINATIONS; violations++) {
+            List<String> errors = new ArrayList<>();
+            for (int bit = 0; bit < MESSAGES.length; bit++) {
+                if ((violations & (1 << bit)) != 0) {
+                    errors.add(MESSAGES[bit]);
+                }
+            }
+            ERRORS.add(Collections.unmodifiableList(errors));
+        }
+    }
+
+    private OrderConstraints() {
+    }
+
+    //Same result as validating the order with Bean Validation
+    public static int check(Order order) {
+        int violations = VALID;
+        String customerName = order.getCustomerName();
+        if (customerName == null || customerName.isEmpty()) {
+            violations |= CUSTOMER_NAME_REQUIRED;
+        }
+        if (order.getOrderDate() == null) {
+            violations |= ORDER_DATE_REQUIRED;
+        }
+        if (!hasText(order.getShippingAddress())) {
+            violations |= SHIPPING_ADDRESS_REQUIRED;
+        }
+        Double total = order.getTotal();
+        if (total == null) {
+            violations |= TOTAL_REQUIRED;
+        } else if (!(total > 0)) {
+            violations |= TOTAL_NOT_POSITIVE;
+        }
+        return violations;
+    }
+
+    //Constraints of an order to be created: a customer name of only whitespace is refused too
+    public static int checkNew(Order order) {
+        int violations = check(order);
+        if (violations == VALID && StringUtils.isBlank(order.getCustomerName())) {
+            violations = CUSTOMER_NAME_BLANK;
+        }
+        return violations;
+    }
+
+    //The shared, unmodifiable error list for a set of violations; empty when valid
+    public static List<String> errors(int violations) {
+        return ERRORS.get(violations);
+    }
+
+    //@NotBlank: some character remains after trimming
+    private static boolean hasText(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Message declared by a constraint annotation on an Order field, read once
+    private static String message(String field, Class<? extends Annotation> constraint) {
+        try {
+            Annotation annotation = Order.class.getDeclaredField(field).getAnnotation(constraint);
+            return field + ": " + constraint.getMethod("message").invoke(annotation);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Order." + field + " has no @" + constraint.getSimpleName(), ex);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+//Pre-aggregated rollup of orders per day and customer, kept up to date by OrderRollupListener
+@Entity
+@Table(name = "order_daily_totals")
+@IdClass(OrderDailyTotalId.class)
+public class OrderDailyTotal {
+    @Id
+    @Column(nullable = false)
+    private LocalDate orderDate;
+    @Id
+    @Column(nullable = false)
+    private String customerName;
+    @Column(nullable = false)
+    private long orderCount;
+    @Column(nullable = false)
+    private double totalSum;
+
+    //Getters and Setters
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getTotalSum() {
+        return totalSum;
+    }
+
+    public void setTotalSum(double totalSum) {
+        this.totalSum = totalSum;
+    }
+}
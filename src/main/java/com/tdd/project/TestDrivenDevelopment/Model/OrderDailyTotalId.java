@@ -0,0 +1,44 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+//Primary key of OrderDailyTotal: one row per order date and customer
+public class OrderDailyTotalId implements Serializable {
+    private LocalDate orderDate;
+    private String customerName;
+
+    public OrderDailyTotalId() {
+    }
+
+    public OrderDailyTotalId(LocalDate orderDate, String customerName) {
+        this.orderDate = orderDate;
+        this.customerName = customerName;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OrderDailyTotalId)) {
+            return false;
+        }
+        OrderDailyTotalId that = (OrderDailyTotalId) o;
+        return Objects.equals(orderDate, that.orderDate) && Objects.equals(customerName, that.customerName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderDate, customerName);
+    }
+}
@@ -0,0 +1,72 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+//One committed change to an order, as published on GET /orders/changes.
+//offset is the event's position in the change log; order is the state after the change and is absent for deletes.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderEvent {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private long offset;
+    private String type;
+    private Long orderId;
+    private Order order;
+    private Instant timestamp;
+
+    public OrderEvent() {
+    }
+
+    public OrderEvent(long offset, String type, Long orderId, Order order, Instant timestamp) {
+        this.offset = offset;
+        this.type = type;
+        this.orderId = orderId;
+        this.order = order;
+        this.timestamp = timestamp;
+    }
+
+    //Getters and Setters
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+//Order fields a client can select with ?fields=, by their JSON and entity property name
+public enum OrderField {
+    ID("id"),
+    CUSTOMER_NAME("customerName"),
+    ORDER_DATE("orderDate"),
+    SHIPPING_ADDRESS("shippingAddress"),
+    TOTAL("total");
+
+    private final String property;
+
+    OrderField(String property) {
+        this.property = property;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    //Parses a ?fields= list into the set of fields to select; the id is always included, as pages are keyed by it.
+    //Unknown names are reported to errors as "fields: ..." and skipped.
+    public static Set<OrderField> parse(List<String> names, List<String> errors) {
+        Set<OrderField> fields = EnumSet.of(ID);
+        for (String name : names) {
+            OrderField field = byProperty(name.trim());
+            if (field == null) {
+                errors.add("fields: Unknown field " + name + ", expected id, customerName, orderDate, shippingAddress or total");
+            } else {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static OrderField byProperty(String property) {
+        for (OrderField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
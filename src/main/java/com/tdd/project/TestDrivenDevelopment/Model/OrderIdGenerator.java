@@ -0,0 +1,20 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+//orders_seq generator that gives an order the id reserved with Order.reserveId, and otherwise draws from the sequence.
+//Without sharding, reserved ids come from the same sequence in blocks of the same size (INCREMENT_PARAM), so reserved
+//and generated ids lie in disjoint blocks. With sharding, OrderShards.assignId reserves every new order's id from
+//OrderIdAllocator instead: those ids are unique per node and millisecond, and start far above any value the sequence
+//reaches, so they cannot collide with ids drawn from it either.
+public class OrderIdGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (object instanceof Order order && order.getReservedId() != null) {
+            return order.getReservedId();
+        }
+        return super.generate(session, object);
+    }
+}
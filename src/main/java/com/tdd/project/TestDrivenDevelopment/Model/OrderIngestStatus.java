@@ -0,0 +1,60 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import java.util.List;
+
+//Where an order accepted by the write-behind ingest queue is: still queued, committed, or failed to be written
+public class OrderIngestStatus {
+    public static final String QUEUED = "QUEUED";
+    public static final String COMMITTED = "COMMITTED";
+    public static final String FAILED = "FAILED";
+
+    private Long id;
+    private String status;
+    private List<String> errors;
+
+    public OrderIngestStatus() {
+    }
+
+    public OrderIngestStatus(Long id, String status, List<String> errors) {
+        this.id = id;
+        this.status = status;
+        this.errors = errors;
+    }
+
+    public static OrderIngestStatus queued(Long id) {
+        return new OrderIngestStatus(id, QUEUED, List.of());
+    }
+
+    public static OrderIngestStatus committed(Long id) {
+        return new OrderIngestStatus(id, COMMITTED, List.of());
+    }
+
+    public static OrderIngestStatus failed(Long id, List<String> errors) {
+        return new OrderIngestStatus(id, FAILED, errors);
+    }
+
+    //Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
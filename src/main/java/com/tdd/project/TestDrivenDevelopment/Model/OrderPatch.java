@@ -0,0 +1,91 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+//JSON Merge Patch (RFC 7396) of an order, for PATCH /orders/{id}.
+//Members present in the patch replace the field, absent members leave it unchanged. A null member would remove the
+//field, which every order field forbids, so it fails the same constraint as a missing value in PUT. The id and order
+//date cannot be changed, like in PUT.
+public class OrderPatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private String customerName;
+    private String shippingAddress;
+    private Double total;
+    private boolean customerNamePresent;
+    private boolean shippingAddressPresent;
+    private boolean totalPresent;
+
+    //Reads the patch document, adding "field: message" errors for members that cannot be applied
+    public static OrderPatch parse(JsonNode document, List<String> errors) {
+        OrderPatch patch = new OrderPatch();
+        if (document == null || !document.isObject()) {
+            errors.add("patch: Merge patch must be a JSON object");
+            return patch;
+        }
+        int violations = OrderConstraints.VALID;
+        List<String> fieldErrors = new ArrayList<>();
+        Iterator<String> names = document.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            JsonNode value = document.get(name);
+            switch (name) {
+                case "customerName" -> {
+                    patch.customerNamePresent = true;
+                    if (value.isNull() || (value.isTextual() && value.textValue().isEmpty())) {
+                        violations |= OrderConstraints.CUSTOMER_NAME_REQUIRED;
+                    } else if (!value.isTextual()) {
+                        fieldErrors.add("customerName: Customer name must be a string");
+                    } else {
+                        patch.customerName = value.textValue();
+                    }
+                }
+                case "shippingAddress" -> {
+                    patch.shippingAddressPresent = true;
+                    if (value.isNull() || (value.isTextual() && value.textValue().isBlank())) {
+                        violations |= OrderConstraints.SHIPPING_ADDRESS_REQUIRED;
+                    } else if (!value.isTextual()) {
+                        fieldErrors.add("shippingAddress: Shipping address must be a string");
+                    } else {
+                        patch.shippingAddress = value.textValue();
+                    }
+                }
+                case "total" -> {
+                    patch.totalPresent = true;
+                    if (value.isNull()) {
+                        violations |= OrderConstraints.TOTAL_REQUIRED;
+                    } else if (!value.isNumber()) {
+                        fieldErrors.add("total: Total must be a number");
+                    } else if (!(value.doubleValue() > 0)) {
+                        violations |= OrderConstraints.TOTAL_NOT_POSITIVE;
+                    } else {
+                        patch.total = value.doubleValue();
+                    }
+                }
+                case "id", "orderDate" -> fieldErrors.add(name + ": Field cannot be changed");
+                default -> fieldErrors.add(name + ": Unknown field");
+            }
+        }
+        errors.addAll(OrderConstraints.errors(violations));
+        errors.addAll(fieldErrors);
+        return patch;
+    }
+
+    //Sets the patched fields on the order; Hibernate then updates only the columns whose value changed
+    public void applyTo(Order order) {
+        if (customerNamePresent) {
+            order.setCustomerName(customerName);
+        }
+        if (shippingAddressPresent) {
+            order.setShippingAddress(shippingAddress);
+        }
+        if (totalPresent) {
+            order.setTotal(total);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+//One ranked result of GET /orders/search: the order and how well it matched the query (higher is better).
+public class OrderSearchHit {
+    private Order order;
+    private double score;
+
+    public OrderSearchHit() {
+    }
+
+    public OrderSearchHit(Order order, double score) {
+        this.order = order;
+        this.score = score;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,88 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+//Aggregates of Order.total for one group returned by GET /orders/stats.
+//customerName and period are only set when the stats are grouped by them; period is the first day of the bucket.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderStats {
+    private String customerName;
+    private LocalDate period;
+    private long count;
+    private double sum;
+    private Double min;
+    private Double max;
+    private Double avg;
+
+    public OrderStats() {
+    }
+
+    public OrderStats(String customerName, LocalDate period, long count, double sum, Double min, Double max) {
+        this.customerName = customerName;
+        this.period = period;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.avg = count > 0 ? sum / count : null;
+    }
+
+    //Getters and Setters
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public LocalDate getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(LocalDate period) {
+        this.period = period;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Double getAvg() {
+        return avg;
+    }
+
+    public void setAvg(Double avg) {
+        this.avg = avg;
+    }
+}
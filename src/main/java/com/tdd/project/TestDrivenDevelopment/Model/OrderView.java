@@ -0,0 +1,56 @@
+package com.tdd.project.TestDrivenDevelopment.Model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+//Projection of an order to the fields selected with ?fields=.
+//Only the selected columns are read from the database; the others stay null and are left out of the JSON.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderView {
+    private Long id;
+    private String customerName;
+    private LocalDate orderDate;
+    private String shippingAddress;
+    private Double total;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public void setShippingAddress(String shippingAddress) {
+        this.shippingAddress = shippingAddress;
+    }
+
+    public Double getTotal() {
+        return total;
+    }
+
+    public void setTotal(Double total) {
+        this.total = total;
+    }
+}
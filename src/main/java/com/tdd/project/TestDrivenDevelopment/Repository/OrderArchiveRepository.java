@@ -0,0 +1,7 @@
+package com.tdd.project.TestDrivenDevelopment.Repository;
+
+import com.tdd.project.TestDrivenDevelopment.Model.OrderArchiveBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderArchiveRepository extends JpaRepository<OrderArchiveBatch, Long> {
+}
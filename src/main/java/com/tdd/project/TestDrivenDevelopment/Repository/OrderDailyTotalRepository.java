@@ -0,0 +1,15 @@
+package com.tdd.project.TestDrivenDevelopment.Repository;
+
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotal;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface OrderDailyTotalRepository extends JpaRepository<OrderDailyTotal, OrderDailyTotalId> {
+
+    List<OrderDailyTotal> findByOrderDateBetweenOrderByOrderDateAscCustomerNameAsc(LocalDate from, LocalDate to);
+
+    List<OrderDailyTotal> findByCustomerNameAndOrderDateBetweenOrderByOrderDateAsc(String customerName, LocalDate from, LocalDate to);
+}
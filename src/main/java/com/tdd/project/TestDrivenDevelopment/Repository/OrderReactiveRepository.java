@@ -0,0 +1,212 @@
+package com.tdd.project.TestDrivenDevelopment.Repository;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.OrderVersionConflictException;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.function.LongPredicate;
+
+//Non-blocking access to the orders table over R2DBC, used by the reactive stack in place of OrderRepository.
+//Writes bypass the JPA entity listeners, so each one applies its own daily rollup delta in the same transaction.
+//Ids come from orders_seq in blocks of ALLOCATION_SIZE, handed out the same way as Hibernate's pooled-lo optimizer,
+//so both stacks can write to one database without colliding.
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class OrderReactiveRepository {
+
+    //Must match the INCREMENT_PARAM of Order's orders_seq @GenericGenerator and the sequence increment
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String COLUMNS = "id, customer_name, order_date, shipping_address, total, version";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM orders ORDER BY id";
+    private static final String SELECT_PAGE_SQL = "SELECT " + COLUMNS + " FROM orders WHERE id > :after ORDER BY id LIMIT :limit";
+    private static final String SELECT_BY_ID_SQL = "SELECT " + COLUMNS + " FROM orders WHERE id = :id";
+    private static final String SELECT_FOR_UPDATE_SQL = SELECT_BY_ID_SQL + " FOR UPDATE";
+    private static final String NEXT_ID_BLOCK_SQL = "SELECT NEXT VALUE FOR orders_seq";
+    private static final String INSERT_SQL =
+            "INSERT INTO orders (" + COLUMNS + ") VALUES (:id, :customerName, :orderDate, :shippingAddress, :total, 0)";
+    private static final String UPDATE_SQL =
+            "UPDATE orders SET customer_name = :customerName, shipping_address = :shippingAddress, total = :total, " +
+            "version = version + 1 WHERE id = :id";
+    private static final String DELETE_SQL = "DELETE FROM orders WHERE id = :id";
+    private static final String UPDATE_DELTA_SQL =
+            "UPDATE order_daily_totals SET order_count = order_count + :orderCount, total_sum = total_sum + :totalSum " +
+            "WHERE order_date = :orderDate AND customer_name = :customerName";
+    private static final String INSERT_ROW_SQL =
+            "INSERT INTO order_daily_totals (order_date, customer_name, order_count, total_sum) " +
+            "VALUES (:orderDate, :customerName, :orderCount, :totalSum)";
+    private static final String DELETE_EMPTY_SQL =
+            "DELETE FROM order_daily_totals WHERE order_date = :orderDate AND customer_name = :customerName AND order_count <= 0";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    //Keeps the H2 driver's synchronous work off the Netty event loops (see ReactiveStackConfig)
+    @Autowired
+    private Scheduler orderDatabaseScheduler;
+
+    //Next unused id of the current block, and the first id past it
+    private long nextId;
+    private long blockEnd;
+
+    //Every order in id order, emitted as rows arrive and as fast as the subscriber requests them
+    public Flux<Order> findAll() {
+        return databaseClient.sql(SELECT_ALL_SQL).map(OrderReactiveRepository::toOrder).all()
+                .subscribeOn(orderDatabaseScheduler);
+    }
+
+    //Keyset page: the first limit orders with an id greater than after
+    public Flux<Order> findPage(long after, int limit) {
+        return databaseClient.sql(SELECT_PAGE_SQL)
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(OrderReactiveRepository::toOrder)
+                .all()
+                .subscribeOn(orderDatabaseScheduler);
+    }
+
+    public Mono<Order> findById(Long id) {
+        return databaseClient.sql(SELECT_BY_ID_SQL).bind("id", id).map(OrderReactiveRepository::toOrder).one()
+                .subscribeOn(orderDatabaseScheduler);
+    }
+
+    public Mono<Order> insert(Order order) {
+        Mono<Order> insert = nextId().flatMap(id -> databaseClient.sql(INSERT_SQL)
+                .bind("id", id)
+                .bind("customerName", order.getCustomerName())
+                .bind("orderDate", order.getOrderDate())
+                .bind("shippingAddress", order.getShippingAddress())
+                .bind("total", order.getTotal())
+                .fetch()
+                .rowsUpdated()
+                .then(applyDelta(order.getOrderDate(), order.getCustomerName(), 1, order.getTotal()))
+                .then(Mono.fromCallable(() -> {
+                    Order saved = order.copy();
+                    saved.setId(id);
+                    saved.setVersion(0L);
+                    return saved;
+                })));
+        return transactionalOperator.transactional(insert).subscribeOn(orderDatabaseScheduler);
+    }
+
+    //Read-modify-write of customerName, shippingAddress and total under a row lock, so concurrent updates queue up
+    //instead of conflicting. versionMatches is the client's If-Match precondition, or null for none; a failing one
+    //ends in OrderVersionConflictException. Empty when the order does not exist.
+    public Mono<Order> update(Long id, LongPredicate versionMatches, Order changes) {
+        Mono<Order> update = lockById(id).flatMap(current -> {
+            if (versionMatches != null && !versionMatches.test(current.getVersion())) {
+                return Mono.error(new OrderVersionConflictException("Order version does not match If-Match for id: " + id));
+            }
+            Order updated = current.copy();
+            updated.setCustomerName(changes.getCustomerName());
+            updated.setShippingAddress(changes.getShippingAddress());
+            updated.setTotal(changes.getTotal());
+            updated.setVersion(current.getVersion() + 1);
+            return databaseClient.sql(UPDATE_SQL)
+                    .bind("id", id)
+                    .bind("customerName", updated.getCustomerName())
+                    .bind("shippingAddress", updated.getShippingAddress())
+                    .bind("total", updated.getTotal())
+                    .fetch()
+                    .rowsUpdated()
+                    .then(moveDelta(current, updated))
+                    .thenReturn(updated);
+        });
+        return transactionalOperator.transactional(update).subscribeOn(orderDatabaseScheduler);
+    }
+
+    //True when the order existed and was deleted
+    public Mono<Boolean> deleteById(Long id) {
+        Mono<Boolean> delete = lockById(id)
+                .flatMap(current -> databaseClient.sql(DELETE_SQL).bind("id", id).fetch().rowsUpdated()
+                        .then(applyDelta(current.getOrderDate(), current.getCustomerName(), -1, -current.getTotal()))
+                        .thenReturn(true))
+                .defaultIfEmpty(false);
+        return transactionalOperator.transactional(delete).subscribeOn(orderDatabaseScheduler);
+    }
+
+    private Mono<Order> lockById(Long id) {
+        return databaseClient.sql(SELECT_FOR_UPDATE_SQL).bind("id", id).map(OrderReactiveRepository::toOrder).one();
+    }
+
+    private Mono<Long> nextId() {
+        synchronized (this) {
+            if (nextId < blockEnd) {
+                return Mono.just(nextId++);
+            }
+        }
+        // The sequence value is the first id of a fresh block; concurrent refills each get their own block
+        return databaseClient.sql(NEXT_ID_BLOCK_SQL).map(row -> row.get(0, Long.class)).one().map(low -> {
+            synchronized (this) {
+                nextId = low + 1;
+                blockEnd = low + ALLOCATION_SIZE;
+            }
+            return low;
+        });
+    }
+
+    //Moves an updated order's contribution from its old rollup row to its new one
+    private Mono<Void> moveDelta(Order before, Order after) {
+        if (Objects.equals(before.getCustomerName(), after.getCustomerName())
+                && Objects.equals(before.getOrderDate(), after.getOrderDate())) {
+            double difference = after.getTotal() - before.getTotal();
+            return difference == 0 ? Mono.empty()
+                    : applyDelta(after.getOrderDate(), after.getCustomerName(), 0, difference);
+        }
+        return applyDelta(before.getOrderDate(), before.getCustomerName(), -1, -before.getTotal())
+                .then(applyDelta(after.getOrderDate(), after.getCustomerName(), 1, after.getTotal()));
+    }
+
+    private Mono<Void> applyDelta(LocalDate orderDate, String customerName, long countDelta, double totalDelta) {
+        // A row inserted by a concurrent transaction after the UPDATE missed it is committed by the time the INSERT
+        // fails, so the delta is added to it instead
+        Mono<Long> update = rollupStatement(UPDATE_DELTA_SQL, orderDate, customerName, countDelta, totalDelta);
+        Mono<Long> merge = update.flatMap(rows -> rows > 0 ? Mono.just(rows)
+                : rollupStatement(INSERT_ROW_SQL, orderDate, customerName, countDelta, totalDelta)
+                        .onErrorResume(DuplicateKeyException.class, e -> update));
+        if (countDelta >= 0) {
+            return merge.then();
+        }
+        return merge.then(databaseClient.sql(DELETE_EMPTY_SQL)
+                .bind("orderDate", orderDate)
+                .bind("customerName", customerName)
+                .fetch()
+                .rowsUpdated())
+                .then();
+    }
+
+    private Mono<Long> rollupStatement(String sql, LocalDate orderDate, String customerName, long countDelta, double totalDelta) {
+        return databaseClient.sql(sql)
+                .bind("orderDate", orderDate)
+                .bind("customerName", customerName)
+                .bind("orderCount", countDelta)
+                .bind("totalSum", totalDelta)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Order toOrder(Readable row) {
+        Order order = new Order();
+        order.setId(row.get("id", Long.class));
+        order.setCustomerName(row.get("customer_name", String.class));
+        order.setOrderDate(row.get("order_date", LocalDate.class));
+        order.setShippingAddress(row.get("shipping_address", String.class));
+        order.setTotal(row.get("total", Double.class));
+        order.setVersion(row.get("version", Long.class));
+        return order;
+    }
+}
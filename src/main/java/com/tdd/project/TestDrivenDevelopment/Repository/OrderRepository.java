@@ -1,7 +1,54 @@
 package com.tdd.project.TestDrivenDevelopment.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderRepository extends JpaRepository<Order, Long>{
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderViewRepository {
+
+    //Keyset page: the first orders with an id greater than the given cursor, in id order.
+    //Only the page itself is read, no count query and no offset scan.
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    //First keyset page, used when the client has no cursor yet.
+    List<Order> findAllByOrderByIdAsc(Pageable pageable);
+
+    //Streams every order in id order over an open JDBC cursor.
+    //Must be consumed inside a transaction and closed by the caller.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from Order o order by o.id")
+    Stream<Order> streamAllByOrderByIdAsc();
+
+    //Aggregates of total for orders dated between from and to (inclusive), computed by the database.
+    //Only the aggregate columns are read, no Order entities are loaded.
+    @Query("select count(o) as orderCount, sum(o.total) as totalSum, min(o.total) as totalMin, max(o.total) as totalMax " +
+            "from Order o where o.orderDate between :from and :to")
+    OrderTotalsView totalsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select o.customerName as customerName, count(o) as orderCount, sum(o.total) as totalSum, min(o.total) as totalMin, " +
+            "max(o.total) as totalMax from Order o where o.orderDate between :from and :to " +
+            "group by o.customerName order by o.customerName")
+    List<OrderTotalsView> totalsByCustomerBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select o.orderDate as orderDate, count(o) as orderCount, sum(o.total) as totalSum, min(o.total) as totalMin, " +
+            "max(o.total) as totalMax from Order o where o.orderDate between :from and :to " +
+            "group by o.orderDate order by o.orderDate")
+    List<OrderTotalsView> totalsByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select o.customerName as customerName, o.orderDate as orderDate, count(o) as orderCount, sum(o.total) as totalSum, " +
+            "min(o.total) as totalMin, max(o.total) as totalMax from Order o where o.orderDate between :from and :to " +
+            "group by o.customerName, o.orderDate order by o.customerName, o.orderDate")
+    List<OrderTotalsView> totalsByCustomerAndDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -0,0 +1,19 @@
+package com.tdd.project.TestDrivenDevelopment.Repository;
+
+import java.time.LocalDate;
+
+//Projection of one aggregate row over Order.total.
+//customerName and orderDate are null when the query does not group by them.
+public interface OrderTotalsView {
+    String getCustomerName();
+
+    LocalDate getOrderDate();
+
+    long getOrderCount();
+
+    Double getTotalSum();
+
+    Double getTotalMin();
+
+    Double getTotalMax();
+}
@@ -0,0 +1,19 @@
+package com.tdd.project.TestDrivenDevelopment.Repository;
+
+import com.tdd.project.TestDrivenDevelopment.Model.OrderField;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderView;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+//Projections of orders to a client-chosen set of fields; part of OrderRepository.
+//Derived and @Query projections need one interface per field combination, so the select list is built from the
+//fields instead. Only those columns are read and no Order entities are loaded.
+public interface OrderViewRepository {
+
+    Optional<OrderView> findViewById(Long id, Set<OrderField> fields);
+
+    //Orders with an id greater than after (all when null), in id order; at most limit of them unless limit is null
+    List<OrderView> findViews(Long after, Integer limit, Set<OrderField> fields);
+}
@@ -0,0 +1,74 @@
+package com.tdd.project.TestDrivenDevelopment.Repository;
+
+import com.tdd.project.TestDrivenDevelopment.Model.OrderField;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+//HQL select lists built from the requested fields. There are only a few dozen distinct query strings, so Hibernate's
+//query plan cache parses each of them once.
+public class OrderViewRepositoryImpl implements OrderViewRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<OrderView> findViewById(Long id, Set<OrderField> fields) {
+        List<Tuple> rows = entityManager.createQuery(select(fields) + " where o.id = :id", Tuple.class)
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.of(toView(rows.get(0), fields));
+    }
+
+    @Override
+    public List<OrderView> findViews(Long after, Integer limit, Set<OrderField> fields) {
+        String where = after != null ? " where o.id > :after" : "";
+        TypedQuery<Tuple> query = entityManager.createQuery(select(fields) + where + " order by o.id", Tuple.class);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        List<Tuple> rows = query.getResultList();
+        List<OrderView> views = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            views.add(toView(row, fields));
+        }
+        return views;
+    }
+
+    private static String select(Set<OrderField> fields) {
+        StringBuilder select = new StringBuilder("select ");
+        for (OrderField field : fields) {
+            if (select.length() > "select ".length()) {
+                select.append(", ");
+            }
+            select.append("o.").append(field.property()).append(" as ").append(field.property());
+        }
+        return select.append(" from Order o").toString();
+    }
+
+    private static OrderView toView(Tuple row, Set<OrderField> fields) {
+        OrderView view = new OrderView();
+        for (OrderField field : fields) {
+            Object value = row.get(field.property());
+            switch (field) {
+                case ID -> view.setId((Long) value);
+                case CUSTOMER_NAME -> view.setCustomerName((String) value);
+                case ORDER_DATE -> view.setOrderDate((LocalDate) value);
+                case SHIPPING_ADDRESS -> view.setShippingAddress((String) value);
+                case TOTAL -> view.setTotal((Double) value);
+            }
+        }
+        return view;
+    }
+}
@@ -0,0 +1,178 @@
+package com.tdd.project.TestDrivenDevelopment.Repository;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderField;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderView;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderShards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+//OrderRepository operations routed over the shards of OrderShards.
+//Lookups, saves and deletes by id go to the one shard owning the id. Queries over all orders ask every shard in
+//parallel and merge the answers in id order. Without sharding every call goes straight to OrderRepository.
+@Component
+public class ShardedOrderRepository {
+
+    private static final Comparator<Order> BY_ID = Comparator.comparing(Order::getId);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    //Inserts a new order on the shard of the id it is given first
+    public Order save(Order order) {
+        if (!orderShards.isEnabled()) {
+            return orderRepository.save(order);
+        }
+        int shard = order.getId() != null ? orderShards.shardOf(order.getId()) : orderShards.assignId(order);
+        return orderShards.on(shard, () -> orderRepository.save(order));
+    }
+
+    public Optional<Order> findById(Long id) {
+        return orderShards.onShardOf(id, () -> orderRepository.findById(id));
+    }
+
+    //Every order, in id order
+    public List<Order> findAll() {
+        if (!orderShards.isEnabled()) {
+            return orderRepository.findAll();
+        }
+        List<Order> orders = new ArrayList<>();
+        for (List<Order> shardOrders : orderShards.onEach(shard -> orderRepository.findAll())) {
+            orders.addAll(shardOrders);
+        }
+        orders.sort(BY_ID);
+        return orders;
+    }
+
+    //Orders with the given ids that exist, in no particular order
+    public List<Order> findAllById(Collection<Long> ids) {
+        if (!orderShards.isEnabled()) {
+            return orderRepository.findAllById(ids);
+        }
+        List<List<Long>> idsByShard = new ArrayList<>(orderShards.count());
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            idsByShard.add(new ArrayList<>());
+        }
+        for (Long id : ids) {
+            idsByShard.get(orderShards.shardOf(id)).add(id);
+        }
+        List<Order> orders = new ArrayList<>(ids.size());
+        for (List<Order> shardOrders : orderShards.onEach(shard -> idsByShard.get(shard).isEmpty()
+                ? List.<Order>of() : orderRepository.findAllById(idsByShard.get(shard)))) {
+            orders.addAll(shardOrders);
+        }
+        return orders;
+    }
+
+    //Keyset page: the first limit orders with an id greater than after (or from the start when after is null).
+    //Each shard reads its own first limit orders past the cursor; the page is the lowest limit ids among them.
+    public List<Order> findPage(Long after, int limit) {
+        if (!orderShards.isEnabled()) {
+            return readPage(after, limit);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (List<Order> shardOrders : orderShards.onEach(shard -> readPage(after, limit))) {
+            orders.addAll(shardOrders);
+        }
+        orders.sort(BY_ID);
+        return orders.size() > limit ? new ArrayList<>(orders.subList(0, limit)) : orders;
+    }
+
+    //Order with only the given fields, read from the shard of the id
+    public Optional<OrderView> findViewById(Long id, Set<OrderField> fields) {
+        return orderShards.onShardOf(id, () -> orderRepository.findViewById(id, fields));
+    }
+
+    //Orders with only the given fields after the cursor, in id order, merged over the shards like findPage
+    public List<OrderView> findViews(Long after, Integer limit, Set<OrderField> fields) {
+        if (!orderShards.isEnabled()) {
+            return orderRepository.findViews(after, limit, fields);
+        }
+        List<OrderView> views = new ArrayList<>();
+        for (List<OrderView> shardViews : orderShards.onEach(shard -> orderRepository.findViews(after, limit, fields))) {
+            views.addAll(shardViews);
+        }
+        views.sort(Comparator.comparing(OrderView::getId));
+        return limit != null && views.size() > limit ? new ArrayList<>(views.subList(0, limit)) : views;
+    }
+
+    //Hands every order to action in id order, merging keyset pages of pageSize orders read from all shards.
+    //The next page of a shard is read ahead while the current one is consumed, so memory stays at two pages per shard.
+    //Only for sharded storage; a single database is streamed over a cursor (see OrderStreamingService).
+    public void forEachInIdOrder(int pageSize, Consumer<Order> action) {
+        PriorityQueue<ShardCursor> cursors = new PriorityQueue<>(Comparator.comparing(cursor -> cursor.head().getId()));
+        List<ShardCursor> started = new ArrayList<>(orderShards.count());
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            started.add(new ShardCursor(shard, pageSize));
+        }
+        for (ShardCursor cursor : started) {
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        while (!cursors.isEmpty()) {
+            ShardCursor cursor = cursors.poll();
+            action.accept(cursor.head());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+    }
+
+    private List<Order> readPage(Long after, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        return after != null
+                ? orderRepository.findByIdGreaterThanOrderByIdAsc(after, page)
+                : orderRepository.findAllByOrderByIdAsc(page);
+    }
+
+    //Position in the pages of one shard
+    private final class ShardCursor {
+        private final int shard;
+        private final int pageSize;
+        private CompletableFuture<List<Order>> nextPage;
+        private List<Order> page = List.of();
+        private int index = -1;
+
+        private ShardCursor(int shard, int pageSize) {
+            this.shard = shard;
+            this.pageSize = pageSize;
+            this.nextPage = orderShards.async(shard, () -> readPage(null, pageSize));
+        }
+
+        private Order head() {
+            return page.get(index);
+        }
+
+        //Moves to the next order; false once the shard has no more
+        private boolean advance() {
+            index++;
+            if (index < page.size()) {
+                return true;
+            }
+            if (nextPage == null) {
+                return false;
+            }
+            page = OrderShards.join(nextPage);
+            index = 0;
+            // A short page is the shard's last one
+            Long last = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+            nextPage = page.size() == pageSize ? orderShards.async(shard, () -> readPage(last, pageSize)) : null;
+            return !page.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import java.util.Arrays;
+
+//Maps order ids to shards by consistent hashing.
+//Each shard owns virtualNodes points on a ring of 64-bit hashes, and an id belongs to the shard owning the first point
+//at or after the id's hash. Adding a shard only moves the ids that now hash next to its points, about 1/N of them, and
+//the many points per shard keep the shares even. Points depend only on the shard's index, so the same shard list
+//always gives the same mapping.
+public class ConsistentHashRing {
+
+    private final long[] points;
+    private final int[] owners;
+    private final int shards;
+
+    public ConsistentHashRing(int shards, int virtualNodes) {
+        if (shards < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard and one virtual node per shard");
+        }
+        this.shards = shards;
+        long[][] entries = new long[shards * virtualNodes][];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[shard * virtualNodes + node] = new long[]{mix((long) shard << 32 | node), shard};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        points = new long[entries.length];
+        owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    public int shardOf(long id) {
+        int index = Arrays.binarySearch(points, mix(id));
+        if (index < 0) {
+            // First point after the hash, wrapping around past the last one
+            index = -index - 1;
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return owners[index];
+    }
+
+    //SplitMix64 finalizer: spreads sequential ids and shard numbers evenly over the ring
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
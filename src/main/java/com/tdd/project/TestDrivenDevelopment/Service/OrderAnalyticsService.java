@@ -0,0 +1,518 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.ChangeOffsetExpiredException;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderEvent;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Read-only columnar copy of the orders in memory for GET /orders/analytics, switched on with orders.analytics.enabled.
+//Each order is one row across primitive columns: order date as epoch day (int[]), total (double[]) and customer name
+//as a code into a dictionary of distinct names (int[]), plus the id (long[]) and an open-addressing id-to-row map for
+//updates. That is 50 to 80 bytes per order depending on how full the arrays are, against several hundred for an Order
+//entity with its strings, boxed values and persistence context entry. shippingAddress is not kept.
+//Queries filter and aggregate with a fork-join scan: the rows are split in halves until a slice is small enough, each
+//slice is aggregated into its own groups on a pool thread, and the partial groups are merged on the way back.
+//The copy is loaded at startup from the order columns alone (no entities) and then follows the change log
+//(OrderEventLog): before each query it applies the changes committed since the last one, so a query sees every write
+//that committed before it started. If the log has dropped changes the copy has not seen yet, it is loaded again.
+@Service
+public class OrderAnalyticsService {
+
+    private static final String LOAD_SQL = "SELECT id, customer_name, order_date, total FROM orders";
+    private static final int LOAD_FETCH_SIZE = 1000;
+    //Change log events applied per read of the log
+    private static final int EVENT_BATCH_SIZE = 10_000;
+    //Rows one fork-join task scans itself instead of splitting further
+    private static final int LEAF_ROWS = 16_384;
+
+    private static final Logger log = LoggerFactory.getLogger(OrderAnalyticsService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    private final boolean enabled;
+    private final ForkJoinPool pool;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer scanTimer;
+    // Writers (loading and applying changes) take the write lock, scans the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Columns columns = new Columns();
+    // Offset of the first change log event not yet applied; written under the write lock
+    private volatile long appliedOffset = -1;
+
+    public OrderAnalyticsService(PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${orders.analytics.enabled:false}") boolean enabled,
+                                 @Value("${orders.analytics.parallelism:0}") int parallelism) {
+        this.enabled = enabled;
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.scanTimer = Timer.builder("orders.analytics.scan")
+                .description("Time to filter and aggregate the in-memory order columns")
+                .register(meterRegistry);
+        Gauge.builder("orders.analytics.rows", this, service -> service.size())
+                .description("Orders in the in-memory analytics columns")
+                .register(meterRegistry);
+        Gauge.builder("orders.analytics.memory", this, service -> service.memoryBytes())
+                .description("Heap held by the in-memory analytics columns")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            reload();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Aggregates of total for orders dated between from and to, like OrderStatsService.stats, optionally narrowed to one
+    //customer and to totals between minTotal and maxTotal (inclusive, each optional)
+    public List<OrderStats> stats(LocalDate from, LocalDate to, boolean byCustomer, OrderStatsService.Bucket bucket,
+                                  String customerName, Double minTotal, Double maxTotal) {
+        catchUp();
+        lock.readLock().lock();
+        try {
+            long started = System.nanoTime();
+            Filter filter = new Filter((int) from.toEpochDay(), (int) to.toEpochDay(),
+                    minTotal != null ? minTotal : Double.NEGATIVE_INFINITY,
+                    maxTotal != null ? maxTotal : Double.POSITIVE_INFINITY,
+                    customerName != null ? columns.codeOf(customerName) : Filter.ANY_CUSTOMER,
+                    byCustomer, bucket != null);
+            Groups groups = filter.customer == Filter.NO_CUSTOMER
+                    ? new Groups()
+                    : pool.invoke(new ScanTask(columns, filter, 0, columns.size));
+            List<OrderStats> stats = toStats(groups, byCustomer, bucket);
+            scanTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return columns.memoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies the changes committed since the last query
+    private void catchUp() {
+        if (!enabled || appliedOffset == orderEventLog.endOffset()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (appliedOffset < 0) {
+                reload();
+                return;
+            }
+            while (appliedOffset < orderEventLog.endOffset()) {
+                List<OrderEvent> events;
+                try {
+                    events = orderEventLog.read(appliedOffset, EVENT_BATCH_SIZE);
+                } catch (ChangeOffsetExpiredException ex) {
+                    log.info("Change log moved past the analytics columns, reloading them");
+                    reload();
+                    return;
+                }
+                for (OrderEvent event : events) {
+                    apply(event);
+                }
+                appliedOffset += events.size();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(OrderEvent event) {
+        Order order = event.getOrder();
+        if (OrderEvent.DELETED.equals(event.getType()) || order == null) {
+            columns.remove(event.getOrderId());
+        } else {
+            columns.put(order.getId(), order.getCustomerName(), (int) order.getOrderDate().toEpochDay(), order.getTotal());
+        }
+    }
+
+    // Loads every order from the database. Changes committed meanwhile are in the log after the offset taken first,
+    // and applying one again only writes the same values, so none is lost.
+    private void reload() {
+        long started = System.nanoTime();
+        long offset = orderEventLog.endOffset();
+        Columns loaded = new Columns();
+        // Shards are read one after another, as the columns are not safe for concurrent writes
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            orderShards.on(shard, () -> readOnlyTransaction.execute(status -> {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+                    statement.setFetchSize(LOAD_FETCH_SIZE);
+                    return statement;
+                }, (RowCallbackHandler) rs -> loaded.put(rs.getLong(1), rs.getString(2),
+                        (int) rs.getDate(3).toLocalDate().toEpochDay(), rs.getDouble(4)));
+                return null;
+            }));
+        }
+        columns = loaded;
+        appliedOffset = offset;
+        log.info("Loaded {} orders into the analytics columns ({} KB) in {} ms", loaded.size,
+                loaded.memoryBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Rolls days up into buckets and sorts the groups like OrderStatsService
+    private List<OrderStats> toStats(Groups groups, boolean byCustomer, OrderStatsService.Bucket bucket) {
+        if (bucket == null && !byCustomer) {
+            if (groups.size == 0) {
+                return List.of(new OrderStats(null, null, 0, 0.0, null, null));
+            }
+            return List.of(new OrderStats(null, null, groups.counts[0], groups.sums[0], groups.mins[0], groups.maxes[0]));
+        }
+        Map<List<Object>, OrderStats> merged = new HashMap<>();
+        for (int slot = 0; slot < groups.size; slot++) {
+            long key = groups.keys[slot];
+            String customerName = byCustomer ? columns.nameOf(bucket != null ? (int) (key >>> 32) : (int) key) : null;
+            LocalDate period = bucket != null ? bucket.startOf(LocalDate.ofEpochDay((int) key)) : null;
+            List<Object> groupKey = Arrays.asList(customerName, period);
+            OrderStats group = merged.get(groupKey);
+            merged.put(groupKey, group == null
+                    ? new OrderStats(customerName, period, groups.counts[slot], groups.sums[slot], groups.mins[slot], groups.maxes[slot])
+                    : new OrderStats(customerName, period, group.getCount() + groups.counts[slot],
+                    group.getSum() + groups.sums[slot], Math.min(group.getMin(), groups.mins[slot]),
+                    Math.max(group.getMax(), groups.maxes[slot])));
+        }
+        List<OrderStats> stats = new ArrayList<>(merged.values());
+        stats.sort(Comparator.comparing(OrderStats::getCustomerName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparing(OrderStats::getPeriod, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder())));
+        return stats;
+    }
+
+    //Query predicates and grouping in column terms
+    private record Filter(int fromDay, int toDay, double minTotal, double maxTotal, int customer,
+                          boolean byCustomer, boolean byDay) {
+        static final int ANY_CUSTOMER = -1;
+        //A customer name that no order has
+        static final int NO_CUSTOMER = -2;
+
+        // Group of a row: the customer code in the high half and the epoch day in the low half, whichever apply
+        long groupOf(int customerCode, int day) {
+            if (byCustomer && byDay) {
+                return ((long) customerCode << 32) | (day & 0xFFFFFFFFL);
+            }
+            return byCustomer ? customerCode : byDay ? day : 0;
+        }
+    }
+
+    //Aggregates a slice of rows, splitting it in two while it is larger than LEAF_ROWS
+    private static final class ScanTask extends RecursiveTask<Groups> {
+        private final Columns columns;
+        private final Filter filter;
+        private final int from;
+        private final int to;
+
+        ScanTask(Columns columns, Filter filter, int from, int to) {
+            this.columns = columns;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Groups compute() {
+            if (to - from <= LEAF_ROWS) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(columns, filter, from, middle);
+            left.fork();
+            Groups right = new ScanTask(columns, filter, middle, to).compute();
+            return left.join().mergeFrom(right);
+        }
+
+        private Groups scan() {
+            Groups groups = new Groups();
+            int[] days = columns.days;
+            double[] totals = columns.totals;
+            int[] customers = columns.customers;
+            for (int row = from; row < to; row++) {
+                int day = days[row];
+                double total = totals[row];
+                if (day < filter.fromDay || day > filter.toDay || total < filter.minTotal || total > filter.maxTotal) {
+                    continue;
+                }
+                int customer = customers[row];
+                if (filter.customer != Filter.ANY_CUSTOMER && customer != filter.customer) {
+                    continue;
+                }
+                groups.add(filter.groupOf(customer, day), 1, total, total, total);
+            }
+            return groups;
+        }
+    }
+
+    //Count, sum, min and max of total per group key, in slots found through a key-to-slot map
+    private static final class Groups {
+        private final LongIntMap slots = new LongIntMap(16);
+        private long[] keys = new long[16];
+        private long[] counts = new long[16];
+        private double[] sums = new double[16];
+        private double[] mins = new double[16];
+        private double[] maxes = new double[16];
+        private int size;
+        // Rows of the same group tend to come together (or all rows share group 0), so the last slot is tried first
+        private long lastKey;
+        private int lastSlot = -1;
+
+        void add(long key, long count, double sum, double min, double max) {
+            int slot = lastSlot >= 0 && key == lastKey ? lastSlot : slots.get(key);
+            if (slot < 0) {
+                slot = size++;
+                if (slot == keys.length) {
+                    int capacity = keys.length * 2;
+                    keys = Arrays.copyOf(keys, capacity);
+                    counts = Arrays.copyOf(counts, capacity);
+                    sums = Arrays.copyOf(sums, capacity);
+                    mins = Arrays.copyOf(mins, capacity);
+                    maxes = Arrays.copyOf(maxes, capacity);
+                }
+                slots.put(key, slot);
+                keys[slot] = key;
+                mins[slot] = Double.POSITIVE_INFINITY;
+                maxes[slot] = Double.NEGATIVE_INFINITY;
+            }
+            counts[slot] += count;
+            sums[slot] += sum;
+            mins[slot] = Math.min(mins[slot], min);
+            maxes[slot] = Math.max(maxes[slot], max);
+            lastKey = key;
+            lastSlot = slot;
+        }
+
+        Groups mergeFrom(Groups other) {
+            for (int slot = 0; slot < other.size; slot++) {
+                add(other.keys[slot], other.counts[slot], other.sums[slot], other.mins[slot], other.maxes[slot]);
+            }
+            return this;
+        }
+    }
+
+    //The order columns. Rows are kept dense: removing an order moves the last row into its place.
+    private static final class Columns {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] days = new int[INITIAL_CAPACITY];
+        private double[] totals = new double[INITIAL_CAPACITY];
+        private int[] customers = new int[INITIAL_CAPACITY];
+        private int size;
+        private final LongIntMap rows = new LongIntMap(INITIAL_CAPACITY);
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        void put(long id, String customerName, int day, double total) {
+            int row = rows.get(id);
+            if (row < 0) {
+                row = size++;
+                if (row == ids.length) {
+                    int capacity = ids.length + (ids.length >> 1);
+                    ids = Arrays.copyOf(ids, capacity);
+                    days = Arrays.copyOf(days, capacity);
+                    totals = Arrays.copyOf(totals, capacity);
+                    customers = Arrays.copyOf(customers, capacity);
+                }
+                ids[row] = id;
+                rows.put(id, row);
+            }
+            days[row] = day;
+            totals[row] = total;
+            customers[row] = encode(customerName);
+        }
+
+        void remove(long id) {
+            int row = rows.remove(id);
+            if (row < 0) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                days[row] = days[last];
+                totals[row] = totals[last];
+                customers[row] = customers[last];
+                rows.put(ids[row], row);
+            }
+        }
+
+        // Names of customers whose orders are all gone stay in the dictionary; there are few distinct names
+        private int encode(String customerName) {
+            Integer code = codes.get(customerName);
+            if (code == null) {
+                code = names.size();
+                names.add(customerName);
+                codes.put(customerName, code);
+            }
+            return code;
+        }
+
+        int codeOf(String customerName) {
+            Integer code = codes.get(customerName);
+            return code != null ? code : Filter.NO_CUSTOMER;
+        }
+
+        String nameOf(int code) {
+            return names.get(code);
+        }
+
+        // Column arrays and id map; the dictionary strings are shared with nothing else but are few
+        long memoryBytes() {
+            return (long) ids.length * (Long.BYTES + Integer.BYTES + Double.BYTES + Integer.BYTES) + rows.memoryBytes();
+        }
+    }
+
+    //Open-addressing hash map from long to non-negative int with linear probing, without boxing
+    private static final class LongIntMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        LongIntMap(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private int home(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        //Value of the key, or -1 if it is absent
+        int get(long key) {
+            for (int i = home(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            int i = home(key);
+            for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            // Kept at most half full, so probe sequences stay short
+            if (++size * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                allocate(keys.length * 2);
+                size = 0;
+                for (int j = 0; j < oldKeys.length; j++) {
+                    if (oldKeys[j] != EMPTY) {
+                        put(oldKeys[j], oldValues[j]);
+                    }
+                }
+            }
+        }
+
+        //Removes the key and returns its value, or -1 if it was absent
+        int remove(long key) {
+            int i = home(key);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int value = values[i];
+            // Shift later entries of the probe sequence back, so lookups need no tombstones
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = home(keys[j]);
+                boolean homeInGap = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+                if (!homeInGap) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+            size--;
+            return value;
+        }
+
+        long memoryBytes() {
+            return (long) keys.length * (Long.BYTES + Integer.BYTES);
+        }
+    }
+}
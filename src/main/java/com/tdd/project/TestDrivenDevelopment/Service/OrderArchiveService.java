@@ -0,0 +1,328 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderArchiveBatch;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Moves orders older than orders.archive.retention out of the orders table into order_archive, switched on with
+//orders.archive.enabled and run every orders.archive.interval (or on demand with POST /orders/archive/run).
+//Runs go one at a time on the orders-archiver thread; the last MAX_RUNS of them can be looked up by id.
+//Each batch of orders.archive.batch-size orders is read, deleted and stored as one compressed archive row in a single
+//transaction, so an order is always either live or archived. Batches go in id order on every shard.
+//The job is throttled so live traffic keeps the database: after each batch it pauses so that it is busy for at most
+//orders.archive.duty-cycle of the time (0.25: a batch that took 40 ms is followed by a 120 ms pause).
+@Service
+public class OrderArchiveService {
+
+    private static final int ZSTD_LEVEL = 3;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_RUNS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    //One archival run: QUEUED, RUNNING, COMPLETED with the orders and batches archived, or FAILED with the error
+    public record Run(long id, String status, LocalDate cutoff, int orders, int batches, String error) {
+        public static final String QUEUED = "QUEUED";
+        public static final String RUNNING = "RUNNING";
+        public static final String COMPLETED = "COMPLETED";
+        public static final String FAILED = "FAILED";
+    }
+
+    @Autowired
+    private OrderPurgeService orderPurgeService;
+
+    @Autowired
+    private OrderArchiveRepository orderArchiveRepository;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    private final boolean enabled;
+    private final Period retention;
+    private final Duration interval;
+    private final int batchSize;
+    private final double dutyCycle;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter rowWriter;
+    private final ObjectReader rowReader;
+    private final JsonFactory jsonFactory;
+
+    private final Counter archivedCounter;
+    private final Timer batchTimer;
+
+    private final AtomicLong runIds = new AtomicLong();
+    //Last MAX_RUNS runs by id, and the id of the run queued or in progress on the archiver thread (0 for none);
+    //both guarded by runs
+    private final Map<Long, Run> runs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Run> eldest) {
+            return size() > MAX_RUNS;
+        }
+    };
+    private long pendingRunId;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    public OrderArchiveService(PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${orders.archive.enabled:false}") boolean enabled,
+                               @Value("${orders.archive.retention:2y}") Period retention,
+                               @Value("${orders.archive.interval:1h}") Duration interval,
+                               @Value("${orders.archive.batch-size:500}") int batchSize,
+                               @Value("${orders.archive.duty-cycle:0.25}") double dutyCycle) {
+        if (!(dutyCycle > 0 && dutyCycle <= 1)) {
+            throw new IllegalArgumentException("orders.archive.duty-cycle must be in (0, 1]: " + dutyCycle);
+        }
+        this.enabled = enabled;
+        this.retention = retention;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.dutyCycle = dutyCycle;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowWriter = objectMapper.writerFor(Order.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.rowReader = objectMapper.readerFor(Order.class);
+        this.jsonFactory = objectMapper.getFactory();
+        this.archivedCounter = Counter.builder("orders.archive.orders")
+                .description("Orders moved to the archive")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("orders.archive.batch")
+                .description("Time to archive one batch of orders, pauses excluded")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // Also runs the archival started on demand, so it is there even without the schedule
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("orders-archiver").daemon().factory());
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::scheduledRun, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //Stops after the batch in progress; its transaction commits or rolls back as a whole
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        closed = true;
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    //Queues a run archiving every order dated before today minus the retention, and returns it without waiting.
+    //While a run is queued or in progress that one is returned instead, as a second run would find nothing left.
+    public Run submit() {
+        synchronized (runs) {
+            if (pendingRunId != 0) {
+                return runs.get(pendingRunId);
+            }
+            Run run = newRun(Run.QUEUED, LocalDate.now().minus(retention));
+            pendingRunId = run.id();
+            scheduler.execute(() -> runInBackground(run));
+            return run;
+        }
+    }
+
+    //A run by id; null when unknown or no longer among the last MAX_RUNS
+    public Run run(long id) {
+        synchronized (runs) {
+            return runs.get(id);
+        }
+    }
+
+    //Archives every order dated before the cutoff in the calling thread, batch by batch on every shard
+    public Run archiveBefore(LocalDate cutoff) {
+        Run run;
+        synchronized (runs) {
+            run = newRun(Run.RUNNING, cutoff);
+        }
+        return execute(run);
+    }
+
+    //Orders of an archived batch, in id order
+    public List<Order> read(OrderArchiveBatch batch) {
+        try (MappingIterator<Order> rows = rowReader.readValues(new ZstdInputStream(new ByteArrayInputStream(batch.getPayload())))) {
+            return rows.readAll();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void scheduledRun() {
+        Run run;
+        synchronized (runs) {
+            if (pendingRunId != 0) {
+                // A run asked for on demand is queued right behind this one and covers it
+                return;
+            }
+            run = newRun(Run.RUNNING, LocalDate.now().minus(retention));
+            pendingRunId = run.id();
+        }
+        runInBackground(run);
+    }
+
+    //Runs on the archiver thread, for the schedule and for submit
+    private void runInBackground(Run run) {
+        try {
+            Run done = execute(run);
+            if (done.orders() > 0) {
+                log.info("Archived {} orders dated before {} in {} batches", done.orders(), done.cutoff(), done.batches());
+            }
+        } catch (RuntimeException ex) {
+            // Keep the schedule; the next run retries what this one left
+            log.warn("Order archival failed", ex);
+        }
+    }
+
+    //One run at a time, whichever thread it is started from
+    private synchronized Run execute(Run run) {
+        record(new Run(run.id(), Run.RUNNING, run.cutoff(), 0, 0, null));
+        try {
+            int orders = 0;
+            int batches = 0;
+            for (int[] shardRun : orderShards.onEach(shard -> archiveShard(run.cutoff()))) {
+                orders += shardRun[0];
+                batches += shardRun[1];
+            }
+            return record(new Run(run.id(), Run.COMPLETED, run.cutoff(), orders, batches, null));
+        } catch (RuntimeException ex) {
+            record(new Run(run.id(), Run.FAILED, run.cutoff(), 0, 0, String.valueOf(ex.getMessage())));
+            throw ex;
+        } finally {
+            synchronized (runs) {
+                if (pendingRunId == run.id()) {
+                    pendingRunId = 0;
+                }
+            }
+        }
+    }
+
+    //Caller holds runs
+    private Run newRun(String status, LocalDate cutoff) {
+        Run run = new Run(runIds.incrementAndGet(), status, cutoff, 0, 0, null);
+        runs.put(run.id(), run);
+        return run;
+    }
+
+    private Run record(Run run) {
+        synchronized (runs) {
+            runs.put(run.id(), run);
+        }
+        return run;
+    }
+
+    private int[] archiveShard(LocalDate cutoff) {
+        int orders = 0;
+        int batches = 0;
+        while (!closed && !Thread.currentThread().isInterrupted()) {
+            long started = System.nanoTime();
+            int archived = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            long busyNanos = System.nanoTime() - started;
+            if (archived == 0) {
+                break;
+            }
+            batchTimer.record(busyNanos, TimeUnit.NANOSECONDS);
+            archivedCounter.increment(archived);
+            orders += archived;
+            batches++;
+            if (archived < batchSize || !pause(busyNanos)) {
+                break;
+            }
+        }
+        return new int[]{orders, batches};
+    }
+
+    private int archiveBatch(LocalDate cutoff) {
+        List<Order> orders = orderPurgeService.removeBefore(cutoff, batchSize);
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        OrderArchiveBatch batch = new OrderArchiveBatch();
+        batch.setFirstOrderId(orders.get(0).getId());
+        batch.setLastOrderId(orders.get(orders.size() - 1).getId());
+        batch.setOrderCount(orders.size());
+        LocalDate minOrderDate = orders.get(0).getOrderDate();
+        LocalDate maxOrderDate = minOrderDate;
+        for (Order order : orders) {
+            if (order.getOrderDate().isBefore(minOrderDate)) {
+                minOrderDate = order.getOrderDate();
+            }
+            if (order.getOrderDate().isAfter(maxOrderDate)) {
+                maxOrderDate = order.getOrderDate();
+            }
+        }
+        batch.setMinOrderDate(minOrderDate);
+        batch.setMaxOrderDate(maxOrderDate);
+        batch.setArchivedAt(Instant.now());
+        batch.setPayload(compress(orders));
+        orderArchiveRepository.save(batch);
+        return orders.size();
+    }
+
+    private byte[] compress(List<Order> orders) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator generator = jsonFactory.createGenerator(new ZstdOutputStream(bytes, ZSTD_LEVEL))) {
+            // Rows are separated by our own newline instead of the default root value separator
+            generator.setRootValueSeparator(null);
+            for (Order order : orders) {
+                rowWriter.writeValue(generator, order);
+                generator.writeRaw('\n');
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Sleeps long enough to keep the job within its duty cycle; false when interrupted by stop
+    private boolean pause(long busyNanos) {
+        long pauseNanos = (long) (busyNanos * (1 - dutyCycle) / dutyCycle);
+        if (pauseNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderConstraints;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class OrderBatchService {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    //Orders persisted between two flushes; matches hibernate.jdbc.batch_size so each flush is one JDBC batch
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int chunkSize;
+
+    //Validates every order, then inserts the valid ones in chunked JDBC batches within one transaction.
+    //With sharded storage the valid orders get their ids first and each shard inserts its share in its own transaction,
+    //all shards in parallel.
+    //Returns one result per submitted order, in submission order.
+    public List<BatchItemResult> createAll(List<Order> orders) {
+        List<BatchItemResult> results = new ArrayList<>(Collections.nCopies(orders.size(), null));
+        List<List<Integer>> validIndexes = new ArrayList<>(orderShards.count());
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            validIndexes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            List<String> errors = validate(order);
+            if (!errors.isEmpty()) {
+                results.set(i, BatchItemResult.invalid(i, errors));
+                continue;
+            }
+            order.setId(null);
+            validIndexes.get(orderShards.assignId(order)).add(i);
+        }
+        // Each shard sets the results of its own orders
+        orderShards.onEach(shard -> validIndexes.get(shard).isEmpty() ? null
+                : transactionTemplate.execute(status -> insert(orders, validIndexes.get(shard), results)));
+        return results;
+    }
+
+    private Void insert(List<Order> orders, List<Integer> indexes, List<BatchItemResult> results) {
+        List<Order> pending = new ArrayList<>(chunkSize);
+        List<Integer> pendingIndexes = new ArrayList<>(chunkSize);
+        for (int index : indexes) {
+            Order order = orders.get(index);
+            entityManager.persist(order);
+            pending.add(order);
+            pendingIndexes.add(index);
+            if (pending.size() == chunkSize) {
+                flushChunk(pending, pendingIndexes, results);
+            }
+        }
+        flushChunk(pending, pendingIndexes, results);
+        return null;
+    }
+
+    private void flushChunk(List<Order> pending, List<Integer> pendingIndexes, List<BatchItemResult> results) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        for (int i = 0; i < pending.size(); i++) {
+            int index = pendingIndexes.get(i);
+            results.set(index, BatchItemResult.created(index, pending.get(i).getId()));
+        }
+        // Keep the persistence context small however many orders are imported
+        entityManager.clear();
+        pending.clear();
+        pendingIndexes.clear();
+    }
+
+    private List<String> validate(Order order) {
+        if (order == null) {
+            return List.of("order: Order required");
+        }
+        return OrderConstraints.errors(OrderConstraints.checkNew(order));
+    }
+}
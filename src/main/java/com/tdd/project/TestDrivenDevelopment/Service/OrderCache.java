@@ -0,0 +1,63 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.ShardedOrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+//Bounded read-through cache in front of OrderRepository.findById, on the shard of the id.
+//Caffeine evicts by size (W-TinyLFU) and by time since the entry was written.
+@Component
+public class OrderCache {
+
+    private final ShardedOrderRepository orderRepository;
+    private final Cache<Long, Order> cache;
+
+    public OrderCache(ShardedOrderRepository orderRepository,
+                      @Value("${orders.cache.maximum-size:10000}") long maximumSize,
+                      @Value("${orders.cache.ttl:10m}") Duration ttl) {
+        this.orderRepository = orderRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    //Returns the cached order, loading it from the repository on a miss.
+    //Missing orders are not cached.
+    public Optional<Order> findById(Long id) {
+        return Optional.ofNullable(cache.get(id, key -> orderRepository.findById(key).orElse(null)));
+    }
+
+    //Drops the cached copy after the order was updated or deleted, so the next read loads the committed row.
+    //Writers do not put their copy: one that committed earlier but got here later would replace a newer version.
+    //An eviction waits for a load of the same id in progress, so an older row loaded meanwhile is dropped too.
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    //Hit, miss and eviction counters for sizing the cache
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
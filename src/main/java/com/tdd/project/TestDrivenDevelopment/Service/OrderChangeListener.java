@@ -0,0 +1,32 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+//JPA entity listener that publishes every order insert, update and delete to the change log once it commits.
+//The event log is looked up lazily for the same reason as in OrderRollupListener.
+public class OrderChangeListener {
+
+    @Autowired
+    private ObjectProvider<OrderEventLog> orderEventLogProvider;
+
+    @PostPersist
+    public void orderCreated(Order order) {
+        orderEventLogProvider.getObject().appendAfterCommit(OrderEvent.CREATED, order.getId(), order.copy());
+    }
+
+    @PostUpdate
+    public void orderUpdated(Order order) {
+        orderEventLogProvider.getObject().appendAfterCommit(OrderEvent.UPDATED, order.getId(), order.copy());
+    }
+
+    @PostRemove
+    public void orderDeleted(Order order) {
+        orderEventLogProvider.getObject().appendAfterCommit(OrderEvent.DELETED, order.getId(), null);
+    }
+}
@@ -0,0 +1,236 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.ChangeOffsetExpiredException;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Ordered, in-process log of committed order changes, with Server-Sent Events subscribers.
+//The log keeps the most recent events in a ring buffer, so subscribers can replay from any retained offset.
+//Each subscriber reads the log at its own pace on its own virtual thread: writers never wait for subscribers, and a
+//subscriber that falls so far behind that its next event was overwritten is told so and disconnected.
+@Service
+public class OrderEventLog {
+
+    //Largest number of events sent to one subscriber before it checks for new ones again
+    private static final int SEND_BATCH_SIZE = 256;
+    //Idle time after which a comment is sent to detect closed connections
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private final OrderEvent[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final ExecutorService subscriberThreads = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final int maxSubscribers;
+    private final long subscriptionTimeoutMillis;
+    // Offset the next appended event gets; guarded by lock
+    private long nextOffset;
+    private volatile boolean closed;
+
+    public OrderEventLog(@Value("${orders.changes.retention:100000}") int retention,
+                         @Value("${orders.changes.max-subscribers:1000}") int maxSubscribers,
+                         @Value("${orders.changes.subscription-timeout:30m}") Duration subscriptionTimeout) {
+        this.ring = new OrderEvent[retention];
+        this.maxSubscribers = maxSubscribers;
+        this.subscriptionTimeoutMillis = subscriptionTimeout.toMillis();
+    }
+
+    //Appends the change when the current transaction commits, or right away outside a transaction
+    public void appendAfterCommit(String type, Long orderId, Order order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(type, orderId, order);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(type, orderId, order);
+            }
+        });
+    }
+
+    public OrderEvent append(String type, Long orderId, Order order) {
+        lock.lock();
+        try {
+            OrderEvent event = new OrderEvent(nextOffset, type, orderId, order, Instant.now());
+            ring[(int) (nextOffset % ring.length)] = event;
+            nextOffset++;
+            appended.signalAll();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Offset the next event will get; subscribing from here receives only new changes
+    public long endOffset() {
+        lock.lock();
+        try {
+            return nextOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Oldest offset still retained
+    public long startOffset() {
+        lock.lock();
+        try {
+            return Math.max(0, nextOffset - ring.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Up to max events starting at offset, or an empty list if there are none yet.
+    //Throws ChangeOffsetExpiredException if offset is older than the retained window.
+    public List<OrderEvent> read(long offset, int max) {
+        lock.lock();
+        try {
+            return readLocked(offset, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<OrderEvent> readLocked(long offset, int max) {
+        if (offset < Math.max(0, nextOffset - ring.length)) {
+            throw new ChangeOffsetExpiredException("Offset " + offset + " is no longer retained");
+        }
+        int count = (int) Math.min(max, nextOffset - offset);
+        List<OrderEvent> events = new ArrayList<>(Math.max(count, 0));
+        for (long i = offset; i < offset + count; i++) {
+            events.add(ring[(int) (i % ring.length)]);
+        }
+        return events;
+    }
+
+    //Like read, but waits up to timeout for events when there are none yet
+    private List<OrderEvent> await(long offset, int max, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = timeout.toNanos();
+            while (offset >= nextOffset && nanos > 0 && !closed) {
+                nanos = appended.awaitNanos(nanos);
+            }
+            return readLocked(offset, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    //Opens an SSE stream of events starting at offset. Returns null when the subscriber limit is reached.
+    //Throws ChangeOffsetExpiredException if offset is not between startOffset() and endOffset().
+    public SseEmitter subscribe(long offset) {
+        lock.lock();
+        try {
+            if (offset < Math.max(0, nextOffset - ring.length) || offset > nextOffset) {
+                throw new ChangeOffsetExpiredException("Offset must be between " + Math.max(0, nextOffset - ring.length)
+                        + " and " + nextOffset + ", was " + offset);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(subscriptionTimeoutMillis);
+        Subscription subscription = new Subscription(emitter, offset);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        subscriberThreads.submit(subscription::run);
+        return emitter;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        subscriberThreads.shutdownNow();
+    }
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private volatile boolean cancelled;
+        private long cursor;
+
+        Subscription(SseEmitter emitter, long offset) {
+            this.emitter = emitter;
+            this.cursor = offset;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        void run() {
+            try {
+                while (!cancelled && !closed) {
+                    List<OrderEvent> events = await(cursor, SEND_BATCH_SIZE, HEARTBEAT_INTERVAL);
+                    if (events.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                        continue;
+                    }
+                    for (OrderEvent event : events) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.getOffset()))
+                                .name(event.getType())
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                    cursor += events.size();
+                }
+                emitter.complete();
+            } catch (ChangeOffsetExpiredException ex) {
+                // Fell behind the retained window: tell the client where the log now starts and disconnect
+                sendQuietly(SseEmitter.event().name("OVERFLOW").data(startOffset()));
+                emitter.complete();
+            } catch (IOException | IllegalStateException ex) {
+                // The client went away or the emitter timed out
+                emitter.completeWithError(ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                subscribers.decrementAndGet();
+            }
+        }
+
+        private void sendQuietly(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException ignored) {
+                // Disconnecting anyway
+            }
+        }
+    }
+}
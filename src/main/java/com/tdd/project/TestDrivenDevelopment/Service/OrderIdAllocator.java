@@ -0,0 +1,44 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Order ids that are unique across every instance of the application without asking a database or each other.
+//An id is the milliseconds since 2024-01-01 (41 bits), a counter within the millisecond (8 bits) and the node id of
+//the instance (4 bits), so ids grow with time and fit in 53 bits, which JSON clients can hold without loss.
+//A node that needs more than 256 ids in a millisecond borrows from the next one instead of waiting; the clock catches up
+//as soon as the burst ends. Each instance needs its own node id, and must not restart with its clock set back.
+public class OrderIdAllocator {
+
+    public static final int NODE_BITS = 4;
+    public static final int MAX_NODES = 1 << NODE_BITS;
+    private static final int COUNTER_BITS = 8;
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private final long node;
+    // Milliseconds since the epoch shifted left by COUNTER_BITS, plus the counter, of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public OrderIdAllocator(int node) {
+        if (node < 0 || node >= MAX_NODES) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + (MAX_NODES - 1) + ", got " + node);
+        }
+        this.node = node;
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << COUNTER_BITS;
+        while (true) {
+            long previous = last.get();
+            long next = Math.max(now, previous + 1);
+            if (last.compareAndSet(previous, next)) {
+                return next << NODE_BITS | node;
+            }
+        }
+    }
+
+    //Node that generated the id
+    public static int nodeOf(long id) {
+        return (int) (id & (MAX_NODES - 1));
+    }
+}
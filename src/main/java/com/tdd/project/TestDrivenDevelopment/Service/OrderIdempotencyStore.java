@@ -0,0 +1,171 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tdd.project.TestDrivenDevelopment.Exception.IdempotencyKeyConflictException;
+import com.tdd.project.TestDrivenDevelopment.Exception.IdempotencyKeyReuseException;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//Responses of POST /orders by client and Idempotency-Key, so a client retrying a create gets the first response back
+//instead of a second order. Each client has its own keys: the same key from another client is a different request.
+//The first request with a key puts an incomplete future in the cache and creates the order; requests with the same
+//key arriving meanwhile wait for that future instead of inserting again. Only successful responses are kept: failures
+//and refusals such as a full ingest queue leave the key free for the retry. Entries expire after orders.idempotency.ttl,
+//and the estimated heap taken by all entries is capped at orders.idempotency.max-memory, evicting the least valuable
+//entries first (Caffeine's W-TinyLFU).
+@Component
+public class OrderIdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+    // Response header set on responses replayed from the store
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    // Rough heap cost of an entry besides its strings: cache node, future, response, headers and order copy
+    private static final int ENTRY_OVERHEAD_BYTES = 640;
+
+    //Creates the order and returns the response to keep for its key
+    @FunctionalInterface
+    public interface Creation {
+        ResponseEntity<?> create() throws InterruptedException;
+    }
+
+    private record Key(String client, String idempotencyKey) {
+    }
+
+    //Fields a client sends when creating an order, compared in full; the order date is set by the server
+    private record Fingerprint(String customerName, String shippingAddress, Double total) {
+    }
+
+    private record StoredResponse(Fingerprint fingerprint, HttpStatusCode status, HttpHeaders headers, Object body, int textLength) {
+    }
+
+    private final AsyncCache<Key, StoredResponse> responses;
+    private final long waitTimeoutMillis;
+    private final Counter replayedCounter;
+    private final Counter inProgressCounter;
+    private final Counter reusedCounter;
+
+    public OrderIdempotencyStore(MeterRegistry meterRegistry,
+                                 @Value("${orders.idempotency.ttl:24h}") Duration ttl,
+                                 @Value("${orders.idempotency.max-memory:16MB}") DataSize maxMemory,
+                                 @Value("${orders.idempotency.wait-timeout:5s}") Duration waitTimeout) {
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .<Key, StoredResponse>weigher((key, response) -> ENTRY_OVERHEAD_BYTES
+                        + 2 * (key.client().length() + key.idempotencyKey().length() + response.textLength()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        // Size, hits (replays and waits), misses (first requests) and evictions by size or age
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "orders.idempotency");
+        Gauge.builder("orders.idempotency.memory", responses,
+                        cache -> cache.synchronous().policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Estimated heap taken by stored idempotent responses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("orders.idempotency.replays")
+                .description("Order creations answered with the stored response of an earlier request")
+                .register(meterRegistry);
+        this.inProgressCounter = Counter.builder("orders.idempotency.rejected")
+                .description("Requests refused because of their Idempotency-Key")
+                .tag("reason", "in_progress")
+                .register(meterRegistry);
+        this.reusedCounter = Counter.builder("orders.idempotency.rejected")
+                .description("Requests refused because of their Idempotency-Key")
+                .tag("reason", "different_order")
+                .register(meterRegistry);
+    }
+
+    //Runs creation unless the client already used the key, in which case the stored response is returned without it.
+    //Throws IdempotencyKeyReuseException when the key was used for a different order, and
+    //IdempotencyKeyConflictException when the first request with the key does not finish within the wait timeout.
+    public ResponseEntity<?> createOnce(String client, String idempotencyKey, Order order, Creation creation)
+            throws InterruptedException {
+        Key key = new Key(client, idempotencyKey);
+        Fingerprint fingerprint = new Fingerprint(order.getCustomerName(), order.getShippingAddress(), order.getTotal());
+        while (true) {
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = responses.get(key, (k, executor) -> mine);
+            if (existing == mine) {
+                return create(key, fingerprint, mine, creation);
+            }
+            StoredResponse stored = await(key, existing);
+            if (stored == null) {
+                // The first request created nothing; this one takes its place
+                continue;
+            }
+            if (!stored.fingerprint().equals(fingerprint)) {
+                reusedCounter.increment();
+                throw new IdempotencyKeyReuseException("Idempotency-Key was already used for a different order");
+            }
+            replayedCounter.increment();
+            return ResponseEntity.status(stored.status())
+                    .headers(stored.headers())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(stored.body());
+        }
+    }
+
+    public long size() {
+        return responses.synchronous().estimatedSize();
+    }
+
+    private ResponseEntity<?> create(Key key, Fingerprint fingerprint, CompletableFuture<StoredResponse> mine,
+                                     Creation creation) throws InterruptedException {
+        ResponseEntity<?> response;
+        try {
+            response = creation.create();
+        } catch (Throwable ex) {
+            // Caffeine drops failed futures, so a retry with the key creates the order again
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            responses.asMap().remove(key, mine);
+            mine.complete(null);
+            return response;
+        }
+        Object body = response.getBody();
+        if (body instanceof Order created) {
+            // Detached copy, as the entity may still be handled by the write-behind writer
+            body = created.copy();
+        }
+        // The fingerprint's strings, which the copy of the created order shares
+        int textLength = length(fingerprint.customerName()) + length(fingerprint.shippingAddress());
+        mine.complete(new StoredResponse(fingerprint, response.getStatusCode(), response.getHeaders(), body, textLength));
+        return response;
+    }
+
+    //Waits for the first request with the key; null when it stored nothing
+    private StoredResponse await(Key key, CompletableFuture<StoredResponse> existing) throws InterruptedException {
+        try {
+            return existing.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            inProgressCounter.increment();
+            throw new IdempotencyKeyConflictException("A request with this Idempotency-Key is still in progress");
+        } catch (ExecutionException ex) {
+            responses.asMap().remove(key, existing);
+            return null;
+        }
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
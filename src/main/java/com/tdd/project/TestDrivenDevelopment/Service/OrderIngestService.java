@@ -0,0 +1,332 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderIngestStatus;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+//Write-behind ingestion of new orders, switched on with orders.ingest.async.
+//POST /orders reserves the order's id from orders_seq (from OrderShards with sharded storage), queues the order and
+//returns. One writer thread drains the queue and inserts everything it finds in one transaction (one per shard), so a
+//burst of orders shares a single commit.
+//The queue is a lock-free linked queue bounded by a counter of orders accepted but not yet committed: producers never
+//wait, and an order that does not fit is refused so the client can retry later.
+//Durability is set with orders.ingest.durability. With ACCEPTED the request returns as soon as the order is queued, and
+//orders still queued are lost if the process dies. With COMMITTED the request waits until its group has committed.
+@Service
+public class OrderIngestService {
+
+    public enum Durability { ACCEPTED, COMMITTED }
+
+    //Ids reserved per sequence call; the same block size as the orders_seq generator, so both hand out disjoint ids
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String NEXT_ID_BLOCK_SQL = "SELECT NEXT VALUE FOR orders_seq";
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIngestService.class);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    //Orders persisted between two flushes; matches hibernate.jdbc.batch_size so each flush is one JDBC batch
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int chunkSize;
+
+    private final boolean enabled;
+    private final Durability durability;
+    private final int capacity;
+    private final int maxGroupSize;
+    private final long maxGroupDelayNanos;
+    private final long commitTimeoutMillis;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentLinkedQueue<Ticket> queue = new ConcurrentLinkedQueue<>();
+    // Orders accepted and not yet committed or failed; taken before an offer, so it never undercounts and bounds the queue
+    private final AtomicInteger accepted = new AtomicInteger();
+    // Orders accepted but not yet committed, by id
+    private final ConcurrentHashMap<Long, Ticket> uncommitted = new ConcurrentHashMap<>();
+    // Orders the writer could not insert, kept for a while so clients polling their status learn why
+    private final Cache<Long, List<String>> failures;
+
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final DistributionSummary groupSizes;
+
+    private Thread writer;
+    private volatile boolean writerIdle;
+    private volatile boolean closed;
+    // Next reserved id and the end of its block; guarded by this
+    private long nextId;
+    private long blockEnd;
+
+    public OrderIngestService(PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${orders.ingest.async:false}") boolean enabled,
+                              @Value("${orders.ingest.durability:accepted}") Durability durability,
+                              @Value("${orders.ingest.queue-capacity:10000}") int capacity,
+                              @Value("${orders.ingest.max-group-size:500}") int maxGroupSize,
+                              @Value("${orders.ingest.max-group-delay:0ms}") Duration maxGroupDelay,
+                              @Value("${orders.ingest.commit-timeout:5s}") Duration commitTimeout,
+                              @Value("${orders.ingest.failure-retention:10m}") Duration failureRetention) {
+        this.enabled = enabled;
+        this.durability = durability;
+        this.capacity = capacity;
+        this.maxGroupSize = maxGroupSize;
+        this.maxGroupDelayNanos = maxGroupDelay.toNanos();
+        this.commitTimeoutMillis = commitTimeout.toMillis();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(capacity)
+                .expireAfterWrite(failureRetention)
+                .build();
+        Gauge.builder("orders.ingest.queue.size", accepted, AtomicInteger::get)
+                .description("Orders accepted by the write-behind queue and not yet written")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("orders.ingest.rejected")
+                .description("Orders refused because the write-behind queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("orders.ingest.failed")
+                .description("Queued orders the writer could not insert")
+                .register(meterRegistry);
+        this.groupSizes = DistributionSummary.builder("orders.ingest.group.size")
+                .description("Orders committed together by the write-behind writer")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            writer = Thread.ofPlatform().name("orders-ingest-writer").daemon().start(this::writeLoop);
+        }
+    }
+
+    //Stops accepting orders and waits for the writer to commit the ones already queued
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        closed = true;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(SHUTDOWN_TIMEOUT.toMillis());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //Queues a validated order and gives it its id.
+    //Returns null when the queue is full. Otherwise returns QUEUED, or with COMMITTED durability the outcome of the
+    //order's group (still QUEUED if that took longer than orders.ingest.commit-timeout).
+    public OrderIngestStatus submit(Order order) throws InterruptedException {
+        if (closed) {
+            return null;
+        }
+        if (accepted.incrementAndGet() > capacity) {
+            accepted.decrementAndGet();
+            rejectedCounter.increment();
+            return null;
+        }
+        if (orderShards.isEnabled()) {
+            orderShards.assignId(order);
+        } else {
+            order.reserveId(nextId());
+        }
+        Ticket ticket = new Ticket(order);
+        uncommitted.put(order.getReservedId(), ticket);
+        queue.offer(ticket);
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+        if (durability == Durability.ACCEPTED) {
+            return OrderIngestStatus.queued(order.getReservedId());
+        }
+        try {
+            return ticket.result.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            return OrderIngestStatus.queued(order.getReservedId());
+        } catch (ExecutionException ex) {
+            return OrderIngestStatus.failed(order.getReservedId(), List.of(String.valueOf(ex.getCause().getMessage())));
+        }
+    }
+
+    //Status of an order accepted by submit, or null if no such order was queued or stored
+    public OrderIngestStatus status(Long id) {
+        if (uncommitted.containsKey(id)) {
+            return OrderIngestStatus.queued(id);
+        }
+        List<String> errors = failures.getIfPresent(id);
+        if (errors != null) {
+            return OrderIngestStatus.failed(id, errors);
+        }
+        return orderShards.onShardOf(id, () -> orderRepository.existsById(id)) ? OrderIngestStatus.committed(id) : null;
+    }
+
+    private synchronized long nextId() {
+        if (nextId == blockEnd) {
+            // The sequence value is the first id of a fresh block, as with the pooled-lo optimizer
+            long low = jdbcTemplate.queryForObject(NEXT_ID_BLOCK_SQL, Long.class);
+            nextId = low;
+            blockEnd = low + ID_BLOCK_SIZE;
+        }
+        return nextId++;
+    }
+
+    private void writeLoop() {
+        List<Ticket> group = new ArrayList<>(maxGroupSize);
+        while (true) {
+            drainTo(group);
+            if (group.isEmpty()) {
+                if (closed) {
+                    return;
+                }
+                // Producers unpark the writer only while this flag is set; check the queue again after setting it
+                writerIdle = true;
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                writerIdle = false;
+                continue;
+            }
+            if (group.size() < maxGroupSize && maxGroupDelayNanos > 0 && !closed) {
+                // Give a partial group a moment to fill up
+                LockSupport.parkNanos(this, maxGroupDelayNanos);
+                drainTo(group);
+            }
+            write(group);
+            group.clear();
+        }
+    }
+
+    private void drainTo(List<Ticket> group) {
+        Ticket ticket;
+        while (group.size() < maxGroupSize && (ticket = queue.poll()) != null) {
+            group.add(ticket);
+        }
+    }
+
+    private void write(List<Ticket> group) {
+        if (!orderShards.isEnabled()) {
+            writeGroup(group);
+            return;
+        }
+        // Each shard commits its part of the group in its own transaction, all shards in parallel
+        List<List<Ticket>> parts = new ArrayList<>(orderShards.count());
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            parts.add(new ArrayList<>());
+        }
+        for (Ticket ticket : group) {
+            parts.get(orderShards.shardOf(ticket.order.getReservedId())).add(ticket);
+        }
+        orderShards.onEach(shard -> {
+            if (!parts.get(shard).isEmpty()) {
+                writeGroup(parts.get(shard));
+            }
+            return null;
+        });
+    }
+
+    private void writeGroup(List<Ticket> group) {
+        try {
+            insert(group);
+            groupSizes.record(group.size());
+            for (Ticket ticket : group) {
+                committed(ticket);
+            }
+        } catch (RuntimeException ex) {
+            if (group.size() == 1) {
+                failed(group.get(0), ex);
+                return;
+            }
+            // One bad order fails the whole group; write the orders one by one so only that order fails
+            for (Ticket ticket : group) {
+                // Undo what the failed persist assigned
+                ticket.order.setId(null);
+                ticket.order.setVersion(null);
+                try {
+                    insert(List.of(ticket));
+                    groupSizes.record(1);
+                    committed(ticket);
+                } catch (RuntimeException singleEx) {
+                    failed(ticket, singleEx);
+                }
+            }
+        }
+    }
+
+    private void insert(List<Ticket> group) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < group.size(); i++) {
+                entityManager.persist(group.get(i).order);
+                if ((i + 1) % chunkSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+    }
+
+    private void committed(Ticket ticket) {
+        Long id = ticket.order.getReservedId();
+        uncommitted.remove(id);
+        accepted.decrementAndGet();
+        ticket.result.complete(OrderIngestStatus.committed(id));
+    }
+
+    private void failed(Ticket ticket, RuntimeException ex) {
+        Long id = ticket.order.getReservedId();
+        log.warn("Queued order {} could not be written", id, ex);
+        failedCounter.increment();
+        List<String> errors = List.of(String.valueOf(ex.getMessage()));
+        failures.put(id, errors);
+        uncommitted.remove(id);
+        accepted.decrementAndGet();
+        ticket.result.complete(OrderIngestStatus.failed(id, errors));
+    }
+
+    //A queued order and the outcome its submitter may wait for
+    private static final class Ticket {
+        private final Order order;
+        private final CompletableFuture<OrderIngestStatus> result = new CompletableFuture<>();
+
+        private Ticket(Order order) {
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Domain counters for the order API; request and repository timers come from Spring Boot's instrumentation
+@Component
+public class OrderMetrics {
+
+    private final MeterRegistry meterRegistry;
+    //Counters by operation, so counting a rejected request does not build and look up a meter id each time
+    private final Map<String, Counter> validationFailures = new ConcurrentHashMap<>();
+    private final Map<String, Counter> notFounds = new ConcurrentHashMap<>();
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    //An order request rejected because of invalid input
+    public void validationFailed(String operation) {
+        counter(validationFailures, "orders.validation.failures", "Order requests rejected by validation", operation)
+                .increment();
+    }
+
+    //An order request for an id that does not exist
+    public void notFound(String operation) {
+        counter(notFounds, "orders.not_found", "Order requests for an id that does not exist", operation)
+                .increment();
+    }
+
+    //Looks the counter up before registering it, as computeIfAbsent would allocate its lambda on every call
+    private Counter counter(Map<String, Counter> counters, String name, String description, String operation) {
+        Counter counter = counters.get(operation);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(operation, key -> Counter.builder(name)
+                    .description(description)
+                    .tag("operation", key)
+                    .register(meterRegistry));
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,168 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+//Set-based deletes of many orders: by id list (DELETE /orders?ids=) or by order date cutoff (DELETE /orders?before=,
+//and the archival job).
+//Orders are removed in batches of orders.purge.batch-size, each in its own transaction: the rows of the batch are
+//locked and read with one SELECT ... FOR UPDATE, then removed with one DELETE ... WHERE id IN. No Order entities are
+//loaded, so the entity listeners do not run; the rollup deltas are recorded here instead, and the change log, search
+//index and cache are updated once the batch commits. Short batches keep locks and undo short-lived, so concurrent
+//requests wait at most one batch.
+@Service
+public class OrderPurgeService {
+
+    private static final String COLUMNS = "SELECT id, customer_name, order_date, shipping_address, total, version FROM orders ";
+    private static final String LOCK_BY_IDS_SQL = COLUMNS + "WHERE id IN (:ids) FOR UPDATE";
+    private static final String LOCK_BEFORE_SQL =
+            COLUMNS + "WHERE order_date < :cutoff ORDER BY id FETCH FIRST :limit ROWS ONLY FOR UPDATE";
+    private static final String DELETE_BY_IDS_SQL = "DELETE FROM orders WHERE id IN (:ids)";
+
+    private static final RowMapper<Order> ORDER_ROW = (rs, rowNum) -> {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setCustomerName(rs.getString("customer_name"));
+        order.setOrderDate(rs.getDate("order_date").toLocalDate());
+        order.setShippingAddress(rs.getString("shipping_address"));
+        order.setTotal(rs.getDouble("total"));
+        order.setVersion(rs.getObject("version", Long.class));
+        return order;
+    };
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private OrderSearchIndex orderSearchIndex;
+
+    @Autowired
+    private OrderCache orderCache;
+
+    //Orders removed per statement and transaction
+    @Value("${orders.purge.batch-size:1000}")
+    private int batchSize;
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    //Deletes the orders with the given ids, each shard its own ids. Returns the number of orders deleted; ids of
+    //orders that do not exist are skipped.
+    public int deleteByIds(Collection<Long> ids) {
+        List<List<Long>> idsByShard = new ArrayList<>(orderShards.count());
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            idsByShard.add(new ArrayList<>());
+        }
+        for (Long id : ids) {
+            idsByShard.get(orderShards.shardOf(id)).add(id);
+        }
+        int deleted = 0;
+        for (int shardDeleted : orderShards.onEach(shard -> {
+            List<Long> shardIds = idsByShard.get(shard);
+            int removed = 0;
+            for (int from = 0; from < shardIds.size(); from += batchSize) {
+                List<Long> batch = shardIds.subList(from, Math.min(from + batchSize, shardIds.size()));
+                removed += transactionTemplate.execute(status -> removeByIds(batch).size());
+            }
+            return removed;
+        })) {
+            deleted += shardDeleted;
+        }
+        return deleted;
+    }
+
+    //Deletes every order dated before the cutoff, batch by batch on every shard. Returns the number of orders deleted.
+    public int deleteBefore(LocalDate cutoff) {
+        int deleted = 0;
+        for (int shardDeleted : orderShards.onEach(shard -> {
+            int removed = 0;
+            int batch;
+            do {
+                batch = transactionTemplate.execute(status -> removeBefore(cutoff, batchSize).size());
+                removed += batch;
+            } while (batch == batchSize);
+            return removed;
+        })) {
+            deleted += shardDeleted;
+        }
+        return deleted;
+    }
+
+    //Removes the orders with the given ids within the current transaction and returns them as they were
+    public List<Order> removeByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return remove(jdbcTemplate.query(LOCK_BY_IDS_SQL, Map.of("ids", ids), ORDER_ROW));
+    }
+
+    //Removes up to limit orders dated before the cutoff, lowest ids first, within the current transaction and
+    //returns them as they were
+    public List<Order> removeBefore(LocalDate cutoff, int limit) {
+        return remove(jdbcTemplate.query(LOCK_BEFORE_SQL, Map.of("cutoff", Date.valueOf(cutoff), "limit", limit), ORDER_ROW));
+    }
+
+    private List<Order> remove(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        List<Long> ids = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            ids.add(order.getId());
+            orderRollupService.recordDelta(order.getOrderDate(), order.getCustomerName(), -1, -order.getTotal());
+        }
+        jdbcTemplate.update(DELETE_BY_IDS_SQL, Map.of("ids", ids));
+        afterCommit(ids);
+        return orders;
+    }
+
+    // One synchronization for the whole batch rather than one per order and listener
+    private void afterCommit(List<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                forget(ids);
+            }
+        });
+    }
+
+    private void forget(List<Long> ids) {
+        for (Long id : ids) {
+            orderCache.evict(id);
+            orderSearchIndex.remove(id);
+            orderEventLog.append(OrderEvent.DELETED, id, null);
+        }
+    }
+}
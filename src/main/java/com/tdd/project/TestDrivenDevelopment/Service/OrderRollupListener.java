@@ -0,0 +1,66 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Objects;
+
+//JPA entity listener that turns every order insert, update and delete into a delta on the daily rollup.
+//Instantiated by Hibernate through Spring while the EntityManagerFactory is being built, so the rollup service
+//(which needs that factory) is looked up lazily.
+public class OrderRollupListener {
+
+    @Autowired
+    private ObjectProvider<OrderRollupService> orderRollupServiceProvider;
+
+    private OrderRollupService orderRollupService() {
+        return orderRollupServiceProvider.getObject();
+    }
+
+    @PostLoad
+    public void orderLoaded(Order order) {
+        order.markPersisted();
+        // A loaded order may be changed and flushed at commit, so the transaction must apply deltas before it ends
+        orderRollupService().watchTransaction();
+    }
+
+    @PrePersist
+    @PreRemove
+    public void orderWillChange(Order order) {
+        orderRollupService().watchTransaction();
+    }
+
+    @PostPersist
+    public void orderCreated(Order order) {
+        orderRollupService().recordDelta(order.getOrderDate(), order.getCustomerName(), 1, order.getTotal());
+        order.markPersisted();
+    }
+
+    @PostUpdate
+    public void orderUpdated(Order order) {
+        boolean sameKey = Objects.equals(order.getPersistedOrderDate(), order.getOrderDate())
+                && Objects.equals(order.getPersistedCustomerName(), order.getCustomerName());
+        if (sameKey) {
+            double totalDelta = order.getTotal() - order.getPersistedTotal();
+            if (totalDelta != 0) {
+                orderRollupService().recordDelta(order.getOrderDate(), order.getCustomerName(), 0, totalDelta);
+            }
+        } else {
+            orderRollupService().recordDelta(order.getPersistedOrderDate(), order.getPersistedCustomerName(), -1, -order.getPersistedTotal());
+            orderRollupService().recordDelta(order.getOrderDate(), order.getCustomerName(), 1, order.getTotal());
+        }
+        order.markPersisted();
+    }
+
+    @PostRemove
+    public void orderDeleted(Order order) {
+        orderRollupService().recordDelta(order.getPersistedOrderDate(), order.getPersistedCustomerName(), -1, -order.getPersistedTotal());
+    }
+}
@@ -0,0 +1,204 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotal;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderDailyTotalRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Maintains the order_daily_totals rollup (count and sum of total per day and customer).
+//Deltas from one transaction are summed per row and applied with a single batched UPDATE just before it commits, on the
+//same connection, so the rollup commits or rolls back together with the orders. Rows the UPDATE did not find are
+//inserted; when a concurrent transaction inserted the same row first, the delta is added to its row instead.
+@Service
+public class OrderRollupService {
+
+    private static final String UPDATE_DELTA_SQL =
+            "UPDATE order_daily_totals SET order_count = order_count + ?, total_sum = total_sum + ? " +
+            "WHERE order_date = ? AND customer_name = ?";
+    private static final String INSERT_ROW_SQL =
+            "INSERT INTO order_daily_totals (order_date, customer_name, order_count, total_sum) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_EMPTY_SQL =
+            "DELETE FROM order_daily_totals WHERE order_date = ? AND customer_name = ? AND order_count <= 0";
+    private static final String CLEAR_SQL = "DELETE FROM order_daily_totals";
+    private static final String REBUILD_SQL =
+            "INSERT INTO order_daily_totals (order_date, customer_name, order_count, total_sum) " +
+            "SELECT order_date, customer_name, COUNT(*), SUM(total) FROM orders GROUP BY order_date, customer_name";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderDailyTotalRepository orderDailyTotalRepository;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    //Adds countDelta orders and totalDelta to the rollup row of the given day and customer
+    public void recordDelta(LocalDate orderDate, String customerName, long countDelta, double totalDelta) {
+        PendingDeltas pending = pendingDeltas();
+        if (pending == null) {
+            // Outside a transaction there is nothing to join, so apply right away
+            PendingDeltas immediate = new PendingDeltas();
+            immediate.add(orderDate, customerName, countDelta, totalDelta);
+            apply(immediate);
+            return;
+        }
+        pending.add(orderDate, customerName, countDelta, totalDelta);
+    }
+
+    //Makes sure the current transaction applies its deltas before committing
+    public void watchTransaction() {
+        pendingDeltas();
+    }
+
+    //Daily rows between from and to, optionally for one customer.
+    //With sharded storage each shard keeps the rollup of its own orders, and the rows of all shards are summed.
+    public List<OrderDailyTotal> daily(LocalDate from, LocalDate to, String customerName) {
+        if (orderShards.isEnabled()) {
+            return mergeShards(orderShards.onEach(shard -> readDaily(from, to, customerName)));
+        }
+        return readDaily(from, to, customerName);
+    }
+
+    //Recomputes the whole rollup from the orders table, for recovery, on every shard. Returns the number of rollup rows.
+    public int rebuild() {
+        int rows = 0;
+        for (int shardRows : orderShards.onEach(shard -> transactionTemplate.execute(status -> {
+            jdbcTemplate.update(CLEAR_SQL);
+            return jdbcTemplate.update(REBUILD_SQL);
+        }))) {
+            rows += shardRows;
+        }
+        return rows;
+    }
+
+    private List<OrderDailyTotal> readDaily(LocalDate from, LocalDate to, String customerName) {
+        if (customerName != null) {
+            return orderDailyTotalRepository.findByCustomerNameAndOrderDateBetweenOrderByOrderDateAsc(customerName, from, to);
+        }
+        return orderDailyTotalRepository.findByOrderDateBetweenOrderByOrderDateAscCustomerNameAsc(from, to);
+    }
+
+    private List<OrderDailyTotal> mergeShards(List<List<OrderDailyTotal>> shardRows) {
+        Map<RollupKey, OrderDailyTotal> merged = new HashMap<>();
+        for (List<OrderDailyTotal> rows : shardRows) {
+            for (OrderDailyTotal row : rows) {
+                OrderDailyTotal total = merged.putIfAbsent(new RollupKey(row.getOrderDate(), row.getCustomerName()), row);
+                if (total != null) {
+                    total.setOrderCount(total.getOrderCount() + row.getOrderCount());
+                    total.setTotalSum(total.getTotalSum() + row.getTotalSum());
+                }
+            }
+        }
+        List<OrderDailyTotal> rows = new ArrayList<>(merged.values());
+        rows.sort(Comparator.comparing(OrderDailyTotal::getOrderDate).thenComparing(OrderDailyTotal::getCustomerName));
+        return rows;
+    }
+
+    private PendingDeltas pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingDeltas created = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (!readOnly) {
+                        // Run pending inserts, updates and deletes now so their deltas are recorded
+                        entityManager.flush();
+                    }
+                    apply(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderRollupService.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private void apply(PendingDeltas pending) {
+        if (pending.deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(pending.deltas.size());
+        List<Object[]> emptied = new ArrayList<>();
+        for (Map.Entry<RollupKey, Delta> entry : pending.deltas.entrySet()) {
+            RollupKey key = entry.getKey();
+            Delta delta = entry.getValue();
+            if (delta.count == 0 && delta.total == 0) {
+                continue;
+            }
+            Date orderDate = Date.valueOf(key.orderDate());
+            updates.add(new Object[]{delta.count, delta.total, orderDate, key.customerName()});
+            if (delta.count < 0) {
+                emptied.add(new Object[]{orderDate, key.customerName()});
+            }
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_DELTA_SQL, updates);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                insertRow(updates.get(i));
+            }
+        }
+        if (!emptied.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_EMPTY_SQL, emptied);
+        }
+        pending.deltas.clear();
+    }
+
+    //Inserts the first row of a day and customer, given as the UPDATE_DELTA_SQL arguments
+    private void insertRow(Object[] update) {
+        try {
+            jdbcTemplate.update(INSERT_ROW_SQL, update[2], update[3], update[0], update[1]);
+        } catch (DuplicateKeyException e) {
+            // Another transaction inserted the row after our UPDATE missed it, and has committed it: add to that row.
+            // Only the failed statement is undone, so this transaction's orders still commit.
+            jdbcTemplate.update(UPDATE_DELTA_SQL, update);
+        }
+    }
+
+    private record RollupKey(LocalDate orderDate, String customerName) {
+    }
+
+    private static final class Delta {
+        private long count;
+        private double total;
+    }
+
+    private static final class PendingDeltas {
+        private final Map<RollupKey, Delta> deltas = new HashMap<>();
+
+        void add(LocalDate orderDate, String customerName, long countDelta, double totalDelta) {
+            Delta delta = deltas.computeIfAbsent(new RollupKey(orderDate, customerName), key -> new Delta());
+            delta.count += countDelta;
+            delta.total += totalDelta;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+//In-memory inverted index over customerName and shippingAddress for GET /orders/search.
+//Both fields are split into lower-case words; the sorted word map answers a query term with every word starting with
+//it, so "joh" finds "John". An order matches when every query term matches one of its words. Matches rank by
+//field (customer name counts double) and by exact word over prefix, ties by id. The index is built from the table
+//at startup and updated by OrderSearchListener after each commit, so it briefly lags in-flight transactions.
+@Service
+public class OrderSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSearchIndex.class);
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double CUSTOMER_NAME_WEIGHT = 2.0;
+    private static final double SHIPPING_ADDRESS_WEIGHT = 1.0;
+    private static final double EXACT_MATCH = 2.0;
+    private static final double PREFIX_MATCH = 1.0;
+
+    //Word -> ids of the orders containing it in either field
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, Document> documents = new ConcurrentHashMap<>();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    //One page of ranked order ids, plus how many orders matched in total
+    public record Result(List<Long> ids, List<Double> scores, int total) {
+    }
+
+    private record Document(long version, String[] nameWords, String[] addressWords) {
+    }
+
+    private record Scored(long id, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long started = System.nanoTime();
+        // Shards are read in parallel; the index takes concurrent updates
+        int indexed = 0;
+        for (int shardCount : orderShards.onEach(shard -> readOnly.execute(status -> {
+            int count = 0;
+            try (Stream<Order> orders = orderRepository.streamAllByOrderByIdAsc()) {
+                for (Order order : (Iterable<Order>) orders::iterator) {
+                    index(order);
+                    count++;
+                }
+            }
+            return count;
+        }))) {
+            indexed += shardCount;
+        }
+        log.info("Indexed {} orders for search in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public void indexAfterCommit(Order order) {
+        Long id = order.getId();
+        long version = order.getVersion() != null ? order.getVersion() : 0;
+        String customerName = order.getCustomerName();
+        String shippingAddress = order.getShippingAddress();
+        afterCommit(() -> index(id, version, customerName, shippingAddress));
+    }
+
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    public void index(Order order) {
+        index(order.getId(), order.getVersion() != null ? order.getVersion() : 0,
+                order.getCustomerName(), order.getShippingAddress());
+    }
+
+    //The postings of an order change inside the compute of its document, so changes to one order never interleave
+    private void index(Long id, long version, String customerName, String shippingAddress) {
+        Document document = new Document(version, words(customerName), words(shippingAddress));
+        documents.compute(id, (key, previous) -> {
+            // Commits of the same order can finish out of order; keep the newest version
+            if (previous != null && previous.version() > version) {
+                return previous;
+            }
+            if (previous != null) {
+                unpost(id, previous, document);
+            }
+            post(id, document.nameWords());
+            post(id, document.addressWords());
+            return document;
+        });
+    }
+
+    public void remove(Long id) {
+        documents.computeIfPresent(id, (key, previous) -> {
+            unpost(id, previous, null);
+            return null;
+        });
+    }
+
+    private void post(Long id, String[] words) {
+        for (String word : words) {
+            postings.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    //Removes the id from the postings of the old document's words, except those the current document still has
+    private void unpost(Long id, Document document, Document current) {
+        for (String[] words : new String[][]{document.nameWords(), document.addressWords()}) {
+            for (String word : words) {
+                if (current != null && (contains(current.nameWords(), word) || contains(current.addressWords(), word))) {
+                    continue;
+                }
+                postings.computeIfPresent(word, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    //Ranked ids for the query, skipping offset matches and returning at most limit
+    public Result search(String query, int offset, int limit) {
+        String[] terms = words(query);
+        if (terms.length == 0) {
+            return new Result(List.of(), List.of(), 0);
+        }
+        // Enumerate candidates from the term with the fewest postings and check the other terms per document
+        String rarest = null;
+        long rarestCount = Long.MAX_VALUE;
+        for (String term : terms) {
+            long count = 0;
+            for (Set<Long> ids : prefixRange(term).values()) {
+                count += ids.size();
+            }
+            if (count < rarestCount) {
+                rarest = term;
+                rarestCount = count;
+            }
+        }
+        if (rarestCount == 0) {
+            return new Result(List.of(), List.of(), 0);
+        }
+
+        // Keep only the best offset + limit matches, lowest-ranked at the head
+        Comparator<Scored> rank = Comparator.comparingDouble(Scored::score).reversed().thenComparingLong(Scored::id);
+        PriorityQueue<Scored> top = new PriorityQueue<>(rank.reversed());
+        int keep = offset + limit;
+        NavigableMap<String, Set<Long>> candidates = prefixRange(rarest);
+        // An order can hold several words with the same prefix; only then are duplicates possible
+        Set<Long> seen = candidates.size() > 1 ? new HashSet<>() : null;
+        int total = 0;
+        for (Set<Long> ids : candidates.values()) {
+            for (Long id : ids) {
+                if (seen != null && !seen.add(id)) {
+                    continue;
+                }
+                Document document = documents.get(id);
+                double score = document != null ? score(document, terms) : 0;
+                if (score == 0) {
+                    continue;
+                }
+                total++;
+                // Skip the allocation when the queue is full and this match would not enter it
+                if (top.size() == keep) {
+                    Scored lowest = top.peek();
+                    if (score < lowest.score() || (score == lowest.score() && id > lowest.id())) {
+                        continue;
+                    }
+                }
+                top.add(new Scored(id, score));
+                if (top.size() > keep) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(top);
+        ranked.sort(rank);
+        List<Long> ids = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(ranked.get(i).id());
+            scores.add(ranked.get(i).score());
+        }
+        return new Result(ids, scores, total);
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private NavigableMap<String, Set<Long>> prefixRange(String term) {
+        return postings.subMap(term, true, term + Character.MAX_VALUE, false);
+    }
+
+    //Sum of each term's best match, or 0 when some term does not match at all
+    private static double score(Document document, String[] terms) {
+        double score = 0;
+        for (String term : terms) {
+            double best = Math.max(CUSTOMER_NAME_WEIGHT * match(document.nameWords(), term),
+                    SHIPPING_ADDRESS_WEIGHT * match(document.addressWords(), term));
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static double match(String[] words, String term) {
+        double best = 0;
+        for (String word : words) {
+            if (word.equals(term)) {
+                return EXACT_MATCH;
+            }
+            if (word.startsWith(term)) {
+                best = PREFIX_MATCH;
+            }
+        }
+        return best;
+    }
+
+    private static boolean contains(String[] words, String word) {
+        for (String candidate : words) {
+            if (candidate.equals(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return WORD_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+}
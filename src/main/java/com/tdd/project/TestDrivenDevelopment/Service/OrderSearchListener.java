@@ -0,0 +1,27 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+//JPA entity listener that keeps the search index in step with order inserts, updates and deletes once they commit.
+//The index is looked up lazily for the same reason as in OrderRollupListener.
+public class OrderSearchListener {
+
+    @Autowired
+    private ObjectProvider<OrderSearchIndex> orderSearchIndexProvider;
+
+    @PostPersist
+    @PostUpdate
+    public void orderSaved(Order order) {
+        orderSearchIndexProvider.getObject().indexAfterCommit(order);
+    }
+
+    @PostRemove
+    public void orderDeleted(Order order) {
+        orderSearchIndexProvider.getObject().removeAfterCommit(order.getId());
+    }
+}
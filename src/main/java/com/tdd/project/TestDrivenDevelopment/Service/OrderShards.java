@@ -0,0 +1,168 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+//Selects the database shard that order queries run against, when orders.sharding.enabled spreads orders over the
+//databases listed in orders.sharding.urls (see ShardingConfig).
+//Work passed to on/onShardOf runs with its shard bound to the thread, and the routing DataSource hands out connections
+//of that shard; transactions must therefore start inside that work. onEach runs work on every shard in parallel and
+//returns the results in shard order, for scatter-gather queries. New orders get an id from OrderIdAllocator first,
+//since their shard is chosen by consistent hashing of the id.
+//Without sharding there is a single shard and the work simply runs on the default DataSource.
+@Component
+public class OrderShards {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final List<String> urls;
+    private final ConsistentHashRing ring;
+    private final OrderIdAllocator idAllocator;
+    private final ExecutorService scatterExecutor;
+
+    public OrderShards(@Value("${orders.sharding.enabled:false}") boolean enabled,
+                       @Value("${orders.sharding.urls:}") List<String> urls,
+                       @Value("${orders.sharding.virtual-nodes:160}") int virtualNodes,
+                       @Value("${orders.sharding.node-id:0}") int nodeId,
+                       @Value("${orders.sharding.scatter-threads:0}") int scatterThreads) {
+        this.enabled = enabled;
+        this.urls = enabled ? List.copyOf(urls) : List.of();
+        if (!enabled) {
+            this.ring = new ConsistentHashRing(1, 1);
+            this.idAllocator = null;
+            this.scatterExecutor = null;
+            return;
+        }
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("orders.sharding.urls must list the shard databases when sharding is enabled");
+        }
+        this.ring = new ConsistentHashRing(urls.size(), virtualNodes);
+        this.idAllocator = new OrderIdAllocator(nodeId);
+        // The caller runs one shard's part itself, so shards - 1 threads per concurrent scatter by default
+        int threads = scatterThreads > 0 ? scatterThreads : Math.max(1, 2 * (urls.size() - 1));
+        this.scatterExecutor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("orders-shard-scatter-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //JDBC URLs of the shards, resolved once so ${random...} placeholders in them stay stable
+    public List<String> urls() {
+        return urls;
+    }
+
+    public int count() {
+        return ring.shards();
+    }
+
+    public int shardOf(Long id) {
+        return enabled ? ring.shardOf(id) : 0;
+    }
+
+    //Shard bound to the current thread, or null outside of on/onShardOf
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    //Gives a new order its id ahead of the insert, so its shard is known. Returns the shard.
+    public int assignId(Order order) {
+        if (!enabled) {
+            return 0;
+        }
+        if (order.getReservedId() == null) {
+            order.reserveId(idAllocator.nextId());
+        }
+        return ring.shardOf(order.getReservedId());
+    }
+
+    //Runs work against one shard
+    public <T> T on(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        Integer previous = CURRENT.get();
+        if (previous != null && previous != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot switch to shard " + shard + " inside a transaction on shard " + previous);
+        }
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    //Runs work against the shard holding the order with the given id
+    public <T> T onShardOf(Long id, Supplier<T> work) {
+        return on(shardOf(id), work);
+    }
+
+    //Runs work against every shard in parallel; the results are in shard order
+    public <T> List<T> onEach(IntFunction<T> work) {
+        if (!enabled) {
+            return Collections.singletonList(work.apply(0));
+        }
+        int shards = count();
+        List<CompletableFuture<T>> others = new ArrayList<>(shards - 1);
+        for (int shard = 1; shard < shards; shard++) {
+            int target = shard;
+            others.add(async(target, () -> work.apply(target)));
+        }
+        List<T> results = new ArrayList<>(shards);
+        results.add(on(0, () -> work.apply(0)));
+        for (CompletableFuture<T> other : others) {
+            results.add(join(other));
+        }
+        return results;
+    }
+
+    //Starts work against one shard on the scatter threads
+    public <T> CompletableFuture<T> async(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(work.get());
+        }
+        return CompletableFuture.supplyAsync(() -> on(shard, work), scatterExecutor);
+    }
+
+    //Waits for work started by async, rethrowing its failure as is
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
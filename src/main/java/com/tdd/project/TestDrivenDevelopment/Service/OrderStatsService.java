@@ -0,0 +1,127 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Model.OrderStats;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderTotalsView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+@Service
+public class OrderStatsService {
+
+    //Size of the date buckets when grouping by order date
+    public enum Bucket {
+        DAY, WEEK, MONTH;
+
+        //First day of the bucket holding the given date; weeks start on Monday
+        LocalDate startOf(LocalDate date) {
+            switch (this) {
+                case WEEK:
+                    return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return date.withDayOfMonth(1);
+                default:
+                    return date;
+            }
+        }
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    //Aggregates of total for orders dated between from and to, optionally grouped by customer and/or date bucket.
+    //The database groups by customer and day; weeks and months are rolled up from the daily rows, which are at most
+    //one per day and customer, so no Order entities are ever loaded. With sharded storage every shard aggregates its
+    //own orders in parallel, and the rows of all shards are merged.
+    public List<OrderStats> stats(LocalDate from, LocalDate to, boolean byCustomer, Bucket bucket) {
+        if (orderShards.isEnabled()) {
+            return mergeShards(orderShards.onEach(shard -> totals(from, to, byCustomer, bucket)), bucket);
+        }
+        return toStats(totals(from, to, byCustomer, bucket), bucket);
+    }
+
+    private List<OrderTotalsView> totals(LocalDate from, LocalDate to, boolean byCustomer, Bucket bucket) {
+        if (bucket == null) {
+            if (byCustomer) {
+                return orderRepository.totalsByCustomerBetween(from, to);
+            }
+            return List.of(orderRepository.totalsBetween(from, to));
+        }
+        return byCustomer
+                ? orderRepository.totalsByCustomerAndDayBetween(from, to)
+                : orderRepository.totalsByDayBetween(from, to);
+    }
+
+    //Each shard may hold orders of the same group, so groups are merged across shards and then sorted as the database would
+    private List<OrderStats> mergeShards(List<List<OrderTotalsView>> shardRows, Bucket bucket) {
+        Map<List<Object>, OrderStats> groups = new HashMap<>();
+        for (List<OrderTotalsView> rows : shardRows) {
+            for (OrderTotalsView row : rows) {
+                LocalDate period = bucket != null ? bucket.startOf(row.getOrderDate()) : null;
+                List<Object> key = Arrays.asList(row.getCustomerName(), period);
+                OrderStats group = groups.get(key);
+                groups.put(key, group == null ? toStats(row, period) : merge(group, row));
+            }
+        }
+        List<OrderStats> stats = new ArrayList<>(groups.values());
+        stats.sort(Comparator.comparing(OrderStats::getCustomerName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparing(OrderStats::getPeriod, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder())));
+        return stats;
+    }
+
+    private List<OrderStats> toStats(List<OrderTotalsView> rows, Bucket bucket) {
+        if (bucket == null || bucket == Bucket.DAY) {
+            List<OrderStats> stats = new ArrayList<>(rows.size());
+            for (OrderTotalsView row : rows) {
+                stats.add(toStats(row, row.getOrderDate()));
+            }
+            return stats;
+        }
+        // Rows arrive sorted by customer and day, so merging keeps the groups in order
+        Map<List<Object>, OrderStats> groups = new LinkedHashMap<>();
+        for (OrderTotalsView row : rows) {
+            LocalDate period = bucket.startOf(row.getOrderDate());
+            List<Object> key = Arrays.asList(row.getCustomerName(), period);
+            OrderStats group = groups.get(key);
+            groups.put(key, group == null ? toStats(row, period) : merge(group, row));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private OrderStats toStats(OrderTotalsView row, LocalDate period) {
+        double sum = row.getTotalSum() != null ? row.getTotalSum() : 0.0;
+        return new OrderStats(row.getCustomerName(), period, row.getOrderCount(), sum, row.getTotalMin(), row.getTotalMax());
+    }
+
+    private OrderStats merge(OrderStats group, OrderTotalsView row) {
+        return new OrderStats(group.getCustomerName(), group.getPeriod(),
+                group.getCount() + row.getOrderCount(),
+                group.getSum() + Objects.requireNonNullElse(row.getTotalSum(), 0.0),
+                extreme(group.getMin(), row.getTotalMin(), Math::min),
+                extreme(group.getMax(), row.getTotalMax(), Math::max));
+    }
+
+    //Min or max of two values, either of which is null for a group without orders
+    private Double extreme(Double a, Double b, BinaryOperator<Double> pick) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : pick.apply(a, b);
+    }
+}
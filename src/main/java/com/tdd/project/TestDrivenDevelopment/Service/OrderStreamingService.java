@@ -0,0 +1,115 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import com.tdd.project.TestDrivenDevelopment.Repository.ShardedOrderRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class OrderStreamingService {
+
+    //Number of rows written between two flushes of the response
+    private static final int FLUSH_INTERVAL = 500;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    @Autowired
+    private ShardedOrderRepository shardedOrderRepository;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public OrderStreamingService(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Flushing is done in batches below rather than after every row
+        this.rowWriter = objectMapper.writerFor(Order.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    //Writes every order as one JSON document per line (NDJSON), in id order.
+    //Rows are read from a JDBC cursor and detached once written, so memory use does not grow with the table.
+    //Sharded storage is read in keyset pages from all shards instead, merged by id.
+    public long writeAllAsNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Rows are separated by our own newline instead of the default root value separator
+        generator.setRootValueSeparator(null);
+        if (orderShards.isEnabled()) {
+            return writeShardsAsNdjson(generator);
+        }
+        try {
+            return readOnlyTransaction.execute(status -> {
+                try {
+                    return writeCursorAsNdjson(generator);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private long writeCursorAsNdjson(JsonGenerator generator) throws IOException {
+        long written = 0;
+        try (Stream<Order> orders = orderRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                rowWriter.writeValue(generator, order);
+                generator.writeRaw('\n');
+                entityManager.detach(order);
+                if (++written % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        generator.flush();
+        return written;
+    }
+
+    private long writeShardsAsNdjson(JsonGenerator generator) throws IOException {
+        long[] written = {0};
+        try {
+            shardedOrderRepository.forEachInIdOrder(FLUSH_INTERVAL, order -> {
+                try {
+                    rowWriter.writeValue(generator, order);
+                    generator.writeRaw('\n');
+                    if (++written[0] % FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        generator.flush();
+        return written[0];
+    }
+}
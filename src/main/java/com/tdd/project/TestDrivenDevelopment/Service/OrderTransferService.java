@@ -0,0 +1,647 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderConstraints;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//Bulk import and export of orders as CSV or NDJSON files (POST /orders/import, GET /orders/export), for migrations and
+//backfills that would take hours through POST /orders.
+//Import: the file is memory-mapped and cut into chunks of about orders.transfer.chunk-size, each ending at a line
+//break. orders.transfer.threads workers parse chunks in parallel straight from the mapped pages, check every order
+//against Order's constraints, and insert the valid ones through OrderBatchService in batches of
+//orders.transfer.batch-size, one transaction per batch. At most orders.transfer.writers batches are written at once
+//(across all imports): batches of the same days and customers all update the same rollup rows, so more concurrent
+//writers mostly wait on each other's row locks. A worker whose batch is full waits for a writer slot, so the heap
+//holds at most one batch per worker and files of any size import in bounded memory. Ids in the file are ignored;
+//orders get new ids, and not in file order.
+//Export: rows are read through a JDBC cursor without building entities, encoded into one reused buffer and written to
+//an NIO channel.
+//CSV files start with a header naming the columns (customerName, orderDate, shippingAddress and total; others such as
+//id are ignored) and hold one order per line; values with commas or quotes are quoted, but may not span lines.
+@Service
+public class OrderTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderTransferService.class);
+
+    //Lines longer than this are rejected instead of being buffered
+    private static final int MAX_LINE_BYTES = 1 << 20;
+    private static final int FETCH_SIZE = 1000;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+    private static final String SELECT_SQL = "SELECT id, customer_name, order_date, shipping_address, total FROM orders ORDER BY id";
+    private static final String[] CSV_COLUMNS = {"id", "customerName", "orderDate", "shippingAddress", "total"};
+
+    // Order fields a CSV column can fill, as indexes into the values of a row
+    private static final int IGNORED = -1;
+    private static final int CUSTOMER_NAME = 0;
+    private static final int ORDER_DATE = 1;
+    private static final int SHIPPING_ADDRESS = 2;
+    private static final int TOTAL = 3;
+    private static final int FIELDS = 4;
+
+    public enum Format {
+        CSV("text/csv", ".csv"),
+        NDJSON("application/x-ndjson", ".ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    //Outcome of one import; errors name the line of each rejected order, up to orders.transfer.max-errors of them
+    public record ImportReport(long rows, long imported, long rejected, List<String> errors,
+                               long elapsedMillis, long rowsPerSecond) {
+    }
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    private final int batchSize;
+    private final long chunkSize;
+    private final int maxErrors;
+    private final ExecutorService workers;
+    private final Semaphore writePermits;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectReader rowReader;
+    private final Counter importedCounter;
+    private final Counter rejectedCounter;
+    private final Counter exportedCounter;
+
+    public OrderTransferService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${orders.transfer.threads:4}") int threads,
+                                @Value("${orders.transfer.writers:1}") int writers,
+                                @Value("${orders.transfer.chunk-size:16MB}") DataSize chunkSize,
+                                @Value("${orders.transfer.batch-size:1000}") int batchSize,
+                                @Value("${orders.transfer.max-errors:100}") int maxErrors) {
+        if (chunkSize.toBytes() < 1 || chunkSize.toBytes() > Integer.MAX_VALUE - MAX_LINE_BYTES) {
+            throw new IllegalArgumentException("orders.transfer.chunk-size must be between 1B and 2047MB, got " + chunkSize);
+        }
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize.toBytes();
+        this.maxErrors = maxErrors;
+        this.workers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("orders-transfer-", 0).daemon().factory());
+        this.writePermits = new Semaphore(writers);
+        // Rows are fetched in pages rather than all at once, where the driver supports it
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rowReader = objectMapper.readerFor(Order.class);
+        this.importedCounter = Counter.builder("orders.transfer.rows")
+                .description("Orders imported or exported in bulk")
+                .tag("direction", "import")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("orders.transfer.rejected")
+                .description("Orders of bulk imports rejected as invalid")
+                .register(meterRegistry);
+        this.exportedCounter = Counter.builder("orders.transfer.rows")
+                .description("Orders imported or exported in bulk")
+                .tag("direction", "export")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    //Imports a request body: it is spooled to a temporary file first, so it can be mapped and split
+    public ImportReport importStream(InputStream body, Format format) throws IOException {
+        Path file = Files.createTempFile("orders-import-", format.extension());
+        try {
+            try (ReadableByteChannel in = Channels.newChannel(body);
+                 FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long copied;
+                while ((copied = out.transferFrom(in, position, chunkSize)) > 0) {
+                    position += copied;
+                }
+            }
+            return importFile(file, format);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    //Imports every order of the file. Throws IllegalArgumentException when a CSV file has no usable header; invalid
+    //lines are reported, not thrown. Batches committed before a database error stay imported.
+    public ImportReport importFile(Path file, Format format) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long bodyStart = skipByteOrderMark(channel);
+            int[] columns = null;
+            int headerLines = 0;
+            if (format == Format.CSV) {
+                long headerEnd = lineEnd(channel, bodyStart, size);
+                if (headerEnd == bodyStart) {
+                    throw new IllegalArgumentException("file: CSV header required");
+                }
+                columns = csvColumns(readString(channel, bodyStart, headerEnd));
+                bodyStart = Math.min(headerEnd + 1, size);
+                headerLines = 1;
+            }
+
+            List<Future<ChunkResult>> chunks = new ArrayList<>();
+            try {
+                for (long from = bodyStart; from < size; ) {
+                    // Each chunk runs to the end of the line its nominal end falls in
+                    long to = from + chunkSize >= size ? size : Math.min(lineEnd(channel, from + chunkSize - 1, size) + 1, size);
+                    ChunkParser parser = new ChunkParser(channel, from, to - from, format, columns);
+                    chunks.add(workers.submit(parser::parse));
+                    from = to;
+                }
+                return report(chunks, headerLines, start);
+            } finally {
+                for (Future<ChunkResult> chunk : chunks) {
+                    chunk.cancel(true);
+                }
+            }
+        }
+    }
+
+    // Waits for every chunk in file order and numbers their errors by line
+    private ImportReport report(List<Future<ChunkResult>> chunks, int headerLines, long start) {
+        long lines = headerLines;
+        long imported = 0;
+        long rejected = 0;
+        List<String> errors = new ArrayList<>();
+        for (Future<ChunkResult> future : chunks) {
+            ChunkResult chunk;
+            try {
+                chunk = future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Import failed", ex.getCause());
+            }
+            for (int i = 0; i < chunk.errorLines.size() && errors.size() < maxErrors; i++) {
+                errors.add("line " + (lines + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+            }
+            lines += chunk.lines;
+            imported += chunk.imported;
+            rejected += chunk.rejected;
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        long rows = imported + rejected;
+        long rowsPerSecond = rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        importedCounter.increment(imported);
+        rejectedCounter.increment(rejected);
+        log.info("Imported {} orders ({} rejected) in {} ms, {} rows/s",
+                imported, rejected, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond);
+        return new ImportReport(rows, imported, rejected, List.copyOf(errors),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond);
+    }
+
+    //Writes every order to the channel, shard by shard in id order, and returns the number written.
+    //The channel is not closed.
+    public long export(Format format, WritableByteChannel out) throws IOException {
+        long start = System.nanoTime();
+        RowEncoder encoder = new RowEncoder(out, format);
+        if (format == Format.CSV) {
+            encoder.csvHeader();
+        }
+        try {
+            for (int shard = 0; shard < orderShards.count(); shard++) {
+                // Some drivers only honour the fetch size within a transaction
+                orderShards.on(shard, () -> readOnlyTransaction.execute(status -> {
+                    jdbcTemplate.query(SELECT_SQL, rs -> {
+                        try {
+                            encoder.row(rs.getLong(1), rs.getString(2), rs.getObject(3, LocalDate.class), rs.getString(4), rs.getDouble(5));
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+                    return null;
+                }));
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        encoder.drain();
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        exportedCounter.increment(encoder.rows);
+        log.info("Exported {} orders in {} ms, {} rows/s", encoder.rows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                encoder.rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        return encoder.rows;
+    }
+
+    // Position after a UTF-8 byte order mark at the start of the file, if there is one
+    private static long skipByteOrderMark(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(3);
+        channel.read(head, 0);
+        boolean bom = head.position() == 3 && head.get(0) == (byte) 0xEF && head.get(1) == (byte) 0xBB && head.get(2) == (byte) 0xBF;
+        return bom ? 3 : 0;
+    }
+
+    // Position of the first line break at or after from, or size when there is none. A chunk boundary more than
+    // MAX_LINE_BYTES away from a line break means a line too long to import.
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (long position = from; position < size; ) {
+            if (position - from > MAX_LINE_BYTES) {
+                throw new IllegalArgumentException("file: Line longer than " + MAX_LINE_BYTES + " bytes near byte " + from);
+            }
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i;
+                }
+            }
+            position += Math.max(read, 0);
+        }
+        return size;
+    }
+
+    private static String readString(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        int read;
+        do {
+            read = channel.read(buffer, from + buffer.position());
+        } while (read > 0 && buffer.hasRemaining());
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    // Order field of every header column
+    private static int[] csvColumns(String header) {
+        String[] names = header.strip().split(",", -1);
+        int[] columns = new int[names.length];
+        boolean[] seen = new boolean[FIELDS];
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].strip();
+            if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                name = name.substring(1, name.length() - 1);
+            }
+            columns[i] = switch (name) {
+                case "customerName" -> CUSTOMER_NAME;
+                case "orderDate" -> ORDER_DATE;
+                case "shippingAddress" -> SHIPPING_ADDRESS;
+                case "total" -> TOTAL;
+                default -> IGNORED;
+            };
+            if (columns[i] != IGNORED) {
+                seen[columns[i]] = true;
+            }
+        }
+        for (boolean field : seen) {
+            if (!field) {
+                throw new IllegalArgumentException("file: CSV header must name the columns customerName, orderDate, shippingAddress and total");
+            }
+        }
+        return columns;
+    }
+
+    // Lines, imported and rejected orders of one chunk; error lines count from the start of the chunk
+    private static final class ChunkResult {
+        long lines;
+        long imported;
+        long rejected;
+        final List<Long> errorLines = new ArrayList<>();
+        final List<String> errorMessages = new ArrayList<>();
+    }
+
+    // Parses and imports one chunk on a worker thread
+    private final class ChunkParser {
+        private final FileChannel channel;
+        private final long offset;
+        private final long length;
+        private final Format format;
+        private final int[] columns;
+        private final ChunkResult result = new ChunkResult();
+        private final List<Order> pending = new ArrayList<>(batchSize);
+        private final List<Long> pendingLines = new ArrayList<>(batchSize);
+        private final String[] values = new String[FIELDS];
+        private final List<String> lineErrors = new ArrayList<>();
+        private byte[] scratch = new byte[256];
+
+        ChunkParser(FileChannel channel, long offset, long length, Format format, int[] columns) {
+            this.channel = channel;
+            this.offset = offset;
+            this.length = length;
+            this.format = format;
+            this.columns = columns;
+        }
+
+        ChunkResult parse() throws IOException, InterruptedException {
+            // Mapped pages live outside the heap and are read by the OS as they are touched
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            int end = buffer.limit();
+            for (int lineStart = 0; lineStart < end; ) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                long line = ++result.lines;
+                int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd > lineStart) {
+                    parseLine(buffer, lineStart, contentEnd, line);
+                }
+                lineStart = lineEnd + 1;
+            }
+            flush();
+            return result;
+        }
+
+        private void parseLine(ByteBuffer buffer, int from, int to, long line) throws InterruptedException {
+            lineErrors.clear();
+            Order order = null;
+            if (to - from > MAX_LINE_BYTES) {
+                lineErrors.add("Line longer than " + MAX_LINE_BYTES + " bytes");
+            } else {
+                if (scratch.length < to - from) {
+                    scratch = new byte[Math.max(to - from, scratch.length * 2)];
+                }
+                order = format == Format.CSV ? parseCsv(buffer, from, to) : parseJson(buffer, from, to);
+            }
+            if (order != null) {
+                lineErrors.addAll(OrderConstraints.errors(OrderConstraints.checkNew(order)));
+            }
+            if (!lineErrors.isEmpty()) {
+                reject(line, lineErrors);
+                return;
+            }
+            pending.add(order);
+            pendingLines.add(line);
+            if (pending.size() == batchSize) {
+                flush();
+            }
+        }
+
+        private Order parseJson(ByteBuffer buffer, int from, int to) {
+            buffer.get(from, scratch, 0, to - from);
+            try {
+                Order order = rowReader.readValue(scratch, 0, to - from);
+                if (order == null) {
+                    lineErrors.add("order: Order required");
+                }
+                return order;
+            } catch (JsonProcessingException ex) {
+                lineErrors.add("Malformed JSON: " + ex.getOriginalMessage());
+                return null;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        // RFC 4180 fields: quoted fields may hold commas and doubled quotes
+        private Order parseCsv(ByteBuffer buffer, int from, int to) {
+            Arrays.fill(values, null);
+            int field = 0;
+            int i = from;
+            while (true) {
+                int length = 0;
+                if (i < to && buffer.get(i) == '"') {
+                    i++;
+                    while (true) {
+                        if (i >= to) {
+                            lineErrors.add("Unterminated quoted value in column " + (field + 1));
+                            return null;
+                        }
+                        byte b = buffer.get(i++);
+                        if (b == '"') {
+                            if (i < to && buffer.get(i) == '"') {
+                                scratch[length++] = '"';
+                                i++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            scratch[length++] = b;
+                        }
+                    }
+                    if (i < to && buffer.get(i) != ',') {
+                        lineErrors.add("Unexpected text after quoted value in column " + (field + 1));
+                        return null;
+                    }
+                } else {
+                    while (i < to && buffer.get(i) != ',') {
+                        scratch[length++] = buffer.get(i++);
+                    }
+                }
+                if (field < columns.length && columns[field] != IGNORED && length > 0) {
+                    values[columns[field]] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                }
+                field++;
+                if (i >= to) {
+                    break;
+                }
+                // Past the comma
+                i++;
+                if (i == to) {
+                    // A trailing comma leaves one more, empty value
+                    field++;
+                    break;
+                }
+            }
+            if (field != columns.length) {
+                lineErrors.add("Expected " + columns.length + " values, found " + field);
+                return null;
+            }
+            Order order = new Order();
+            order.setCustomerName(values[CUSTOMER_NAME]);
+            order.setShippingAddress(values[SHIPPING_ADDRESS]);
+            if (values[ORDER_DATE] != null) {
+                try {
+                    order.setOrderDate(LocalDate.parse(values[ORDER_DATE].strip()));
+                } catch (DateTimeParseException ex) {
+                    lineErrors.add("orderDate: Order date must be an ISO date (yyyy-MM-dd)");
+                }
+            }
+            if (values[TOTAL] != null) {
+                try {
+                    order.setTotal(Double.parseDouble(values[TOTAL]));
+                } catch (NumberFormatException ex) {
+                    lineErrors.add("total: Total must be a number");
+                }
+            }
+            return lineErrors.isEmpty() ? order : null;
+        }
+
+        private void reject(long line, List<String> errors) {
+            result.rejected++;
+            for (String error : errors) {
+                if (result.errorLines.size() < maxErrors) {
+                    result.errorLines.add(line);
+                    result.errorMessages.add(error);
+                }
+            }
+        }
+
+        private void flush() throws InterruptedException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<BatchItemResult> results;
+            writePermits.acquire();
+            try {
+                results = orderBatchService.createAll(pending);
+            } finally {
+                writePermits.release();
+            }
+            for (int i = 0; i < results.size(); i++) {
+                BatchItemResult itemResult = results.get(i);
+                if (BatchItemResult.CREATED.equals(itemResult.getStatus())) {
+                    result.imported++;
+                } else {
+                    reject(pendingLines.get(i), itemResult.getErrors());
+                }
+            }
+            pending.clear();
+            pendingLines.clear();
+        }
+    }
+
+    // Encodes rows into one reused buffer and writes it to the channel whenever it fills up
+    private static final class RowEncoder {
+        private final WritableByteChannel out;
+        private final Format format;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder();
+        private final StringBuilder row = new StringBuilder(256);
+        private final JsonStringEncoder jsonEncoder = JsonStringEncoder.getInstance();
+        long rows;
+
+        RowEncoder(WritableByteChannel out, Format format) {
+            this.out = out;
+            this.format = format;
+        }
+
+        void csvHeader() throws IOException {
+            row.setLength(0);
+            row.append(String.join(",", CSV_COLUMNS)).append('\n');
+            encode();
+        }
+
+        void row(long id, String customerName, LocalDate orderDate, String shippingAddress, double total) throws IOException {
+            row.setLength(0);
+            if (format == Format.CSV) {
+                row.append(id).append(',');
+                csvValue(customerName);
+                row.append(',').append(orderDate).append(',');
+                csvValue(shippingAddress);
+                row.append(',').append(total).append('\n');
+            } else {
+                // Same members and number formats as the JSON of GET /orders
+                row.append("{\"id\":").append(id).append(",\"customerName\":");
+                jsonValue(customerName);
+                row.append(",\"orderDate\":\"").append(orderDate).append("\",\"shippingAddress\":");
+                jsonValue(shippingAddress);
+                row.append(",\"total\":").append(total).append("}\n");
+            }
+            encode();
+            rows++;
+        }
+
+        private void csvValue(String value) {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                row.append(value);
+                return;
+            }
+            row.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    row.append('"');
+                }
+                row.append(c);
+            }
+            row.append('"');
+        }
+
+        private void jsonValue(String value) {
+            row.append('"');
+            jsonEncoder.quoteAsString(value, row);
+            row.append('"');
+        }
+
+        private void encode() throws IOException {
+            CharBuffer chars = CharBuffer.wrap(row);
+            while (utf8.encode(chars, buffer, true) == CoderResult.OVERFLOW) {
+                drain();
+            }
+            utf8.reset();
+        }
+
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.tdd.project.TestDrivenDevelopment.Service;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.OrderVersionConflictException;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderPatch;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+@Service
+public class OrderUpdateService {
+
+    //Attempts for an unconditional update that loses a race with a concurrent writer
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    //Read-modify-write of an order, guarded by its @Version column.
+    //versionMatches is the client's If-Match precondition, or null for none; a failing precondition throws
+    //OrderVersionConflictException. Without a precondition, a conflicting concurrent write is retried on the fresh row
+    //up to MAX_ATTEMPTS times. Each attempt is one transaction on the shard holding the order.
+    public Optional<Order> update(Long id, LongPredicate versionMatches, Order changes) {
+        return modify(id, versionMatches, order -> {
+            order.setCustomerName(changes.getCustomerName());
+            order.setShippingAddress(changes.getShippingAddress());
+            order.setTotal(changes.getTotal());
+        });
+    }
+
+    //Applies a merge patch with the same precondition and retry rules as update.
+    //The order is still read first: the rollup deltas, change log and search index need its previous and full state.
+    //Only the columns the patch actually changes are written, and a patch changing nothing writes nothing.
+    public Optional<Order> patch(Long id, LongPredicate versionMatches, OrderPatch patch) {
+        return modify(id, versionMatches, patch::applyTo);
+    }
+
+    private Optional<Order> modify(Long id, LongPredicate versionMatches, Consumer<Order> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return Optional.ofNullable(orderShards.onShardOf(id,
+                        () -> transactionTemplate.execute(status -> applyChange(id, versionMatches, change))));
+            } catch (OptimisticLockingFailureException ex) {
+                if (versionMatches != null) {
+                    throw new OrderVersionConflictException("Order was modified concurrently, id: " + id);
+                }
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private Order applyChange(Long id, LongPredicate versionMatches, Consumer<Order> change) {
+        Optional<Order> optionalOrder = orderRepository.findById(id);
+        if (optionalOrder.isEmpty()) {
+            return null;
+        }
+        Order order = optionalOrder.get();
+        if (versionMatches != null && !versionMatches.test(order.getVersion())) {
+            throw new OrderVersionConflictException("Order version does not match If-Match for id: " + id);
+        }
+        change.accept(order);
+        // Flush inside the transaction so the returned order carries its new version
+        return orderRepository.saveAndFlush(order);
+    }
+}
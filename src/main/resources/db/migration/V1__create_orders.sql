@@ -0,0 +1,24 @@
+-- Orders, with the pooled id sequence used by Order.id
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE orders (
+    id BIGINT NOT NULL,
+    customer_name VARCHAR(255) NOT NULL,
+    order_date DATE NOT NULL,
+    shipping_address VARCHAR(255) NOT NULL,
+    total FLOAT(53) NOT NULL,
+    version BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_orders_order_date ON orders (order_date);
+CREATE INDEX idx_orders_customer_name_order_date ON orders (customer_name, order_date);
+
+-- Daily rollup per customer, maintained by OrderRollupService
+CREATE TABLE order_daily_totals (
+    order_date DATE NOT NULL,
+    customer_name VARCHAR(255) NOT NULL,
+    order_count BIGINT NOT NULL,
+    total_sum FLOAT(53) NOT NULL,
+    PRIMARY KEY (order_date, customer_name)
+);
@@ -0,0 +1,14 @@
+-- Batches of aged orders moved out of orders by OrderArchiveService, as zstd-compressed NDJSON
+CREATE TABLE order_archive (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    first_order_id BIGINT NOT NULL,
+    last_order_id BIGINT NOT NULL,
+    order_count INTEGER NOT NULL,
+    min_order_date DATE NOT NULL,
+    max_order_date DATE NOT NULL,
+    archived_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    payload BLOB NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_order_archive_max_order_date ON order_archive (max_order_date);
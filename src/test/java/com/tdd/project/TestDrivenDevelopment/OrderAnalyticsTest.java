@@ -0,0 +1,160 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderStats;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderAnalyticsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "orders.analytics.enabled=true")
+public class OrderAnalyticsTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderAnalyticsService orderAnalyticsService;
+
+    private Order newOrder(String customerName, LocalDate orderDate, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(orderDate);
+        order.setShippingAddress("8 Column Row");
+        order.setTotal(total);
+        return order;
+    }
+
+    // Created through the batch endpoint, which keeps the given order dates
+    private List<Long> createOrders(List<Order> orders) {
+        BatchItemResult[] results = restTemplate.postForObject("/orders/batch", orders, BatchItemResult[].class);
+        List<Long> ids = new ArrayList<>();
+        for (BatchItemResult result : results) {
+            ids.add(result.getId());
+        }
+        return ids;
+    }
+
+    private OrderStats[] analytics(String query) {
+        ResponseEntity<OrderStats[]> response = restTemplate.getForEntity("/orders/analytics?" + query, OrderStats[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private void assertSameStats(OrderStats[] expected, OrderStats[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getCustomerName(), actual[i].getCustomerName());
+            assertEquals(expected[i].getPeriod(), actual[i].getPeriod());
+            assertEquals(expected[i].getCount(), actual[i].getCount());
+            assertEquals(expected[i].getSum(), actual[i].getSum(), 1e-6);
+            assertEquals(expected[i].getMin(), actual[i].getMin());
+            assertEquals(expected[i].getMax(), actual[i].getMax());
+        }
+    }
+
+    @Test
+    public void testGetOrderAnalytics_Grouped_MatchesDatabaseStats() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            orders.add(newOrder("Columnar " + (i % 3), LocalDate.of(1985, 1, 1).plusDays(i * 5), 10.0 + i));
+        }
+        createOrders(orders);
+
+        // Assert that every grouping gives the same groups, in the same order, as the database
+        for (String grouping : List.of("", "&groupBy=customer", "&groupBy=date&bucket=week", "&groupBy=customer,date&bucket=month")) {
+            String query = "from=1985-01-01&to=1985-12-31" + grouping;
+            OrderStats[] expected = restTemplate.getForObject("/orders/stats?" + query, OrderStats[].class);
+            assertSameStats(expected, analytics(query));
+        }
+    }
+
+    @Test
+    public void testGetOrderAnalytics_Filters_NarrowTheScan() {
+        createOrders(List.of(
+                newOrder("Filter Customer", LocalDate.of(1986, 3, 1), 50.0),
+                newOrder("Filter Customer", LocalDate.of(1986, 3, 2), 150.0),
+                newOrder("Filter Customer", LocalDate.of(1986, 3, 3), 250.0),
+                newOrder("Other Filter Customer", LocalDate.of(1986, 3, 3), 200.0)));
+
+        OrderStats[] overHundred = analytics("from=1986-01-01&to=1986-12-31&minTotal=100");
+        OrderStats[] customerBetween = analytics("from=1986-01-01&to=1986-12-31&customerName=Filter Customer&minTotal=100&maxTotal=200");
+        OrderStats[] unknownCustomer = analytics("customerName=Nobody");
+
+        // Assert that only orders within the total range, and of the customer when given, are aggregated
+        assertEquals(3, overHundred[0].getCount());
+        assertEquals(600.0, overHundred[0].getSum());
+        assertEquals(1, customerBetween[0].getCount());
+        assertEquals(150.0, customerBetween[0].getMin());
+        assertEquals(0, unknownCustomer[0].getCount());
+        assertNull(unknownCustomer[0].getMin());
+    }
+
+    @Test
+    public void testGetOrderAnalytics_AfterWrites_ReflectsCommittedChanges() {
+        List<Long> ids = createOrders(List.of(
+                newOrder("Changing Customer", LocalDate.of(1987, 5, 1), 10.0),
+                newOrder("Changing Customer", LocalDate.of(1987, 5, 1), 20.0),
+                newOrder("Changing Customer", LocalDate.of(1987, 5, 1), 30.0)));
+        String query = "from=1987-05-01&to=1987-05-01&customerName=Changing Customer";
+        assertEquals(60.0, analytics(query)[0].getSum());
+
+        // Update one order and delete another
+        ResponseEntity<Order> current = restTemplate.getForEntity("/orders/" + ids.get(0), Order.class);
+        Order changed = newOrder("Changing Customer", LocalDate.of(1987, 5, 1), 15.0);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(current.getHeaders().getETag());
+        restTemplate.exchange("/orders/" + ids.get(0), HttpMethod.PUT, new HttpEntity<>(changed, headers), Order.class);
+        restTemplate.delete("/orders/" + ids.get(1));
+
+        // Assert that the columns follow the update and the delete
+        OrderStats[] stats = analytics(query);
+        assertEquals(2, stats[0].getCount());
+        assertEquals(45.0, stats[0].getSum());
+        assertEquals(15.0, stats[0].getMin());
+    }
+
+    @Test
+    public void testGetOrderAnalytics_ManyRows_ScansInParallelAndStaysCompact() {
+        int rows = 20000;
+        for (int batch = 0; batch < 2; batch++) {
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < rows / 2; i++) {
+                orders.add(newOrder("Bulk Scan " + (i % 50), LocalDate.of(1988, 1, 1).plusDays(i % 300), 1.0 + (i % 100)));
+            }
+            createOrders(orders);
+        }
+
+        String query = "from=1988-01-01&to=1988-12-31&groupBy=customer";
+        OrderStats[] expected = restTemplate.getForObject("/orders/stats?" + query, OrderStats[].class);
+
+        // Assert that a scan split over several fork-join tasks gives the database's answer
+        assertSameStats(expected, analytics(query));
+        assertEquals(rows, analytics("from=1988-01-01&to=1988-12-31")[0].getCount());
+
+        // Assert that the columns take well under a hundred bytes per order
+        long bytesPerOrder = orderAnalyticsService.memoryBytes() / orderAnalyticsService.size();
+        assertTrue(bytesPerOrder < 100, bytesPerOrder + " bytes per order");
+    }
+
+    @Test
+    public void testGetOrderAnalytics_InvalidParameters_ReturnsBadRequest() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/orders/analytics?minTotal=10&maxTotal=5&groupBy=color", String.class);
+
+        // Assert that the response status code is 400 (Bad Request)
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().contains("groupBy: Unknown group color"));
+        assertTrue(response.getBody().contains("minTotal: Min total must not be greater than max total"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderArchiveBatch;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotal;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderArchiveRepository;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderArchiveService;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Small batches, so a handful of orders already spans several of them
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "orders.purge.batch-size=3",
+        "orders.archive.batch-size=2",
+        "orders.archive.duty-cycle=1"
+})
+public class OrderArchiveTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private OrderArchiveRepository orderArchiveRepository;
+    @Autowired
+    private OrderSearchIndex orderSearchIndex;
+
+    // Created through the batch endpoint, which keeps the given order dates
+    private List<Long> createOrders(String customerName, LocalDate orderDate, int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setCustomerName(customerName);
+            order.setOrderDate(orderDate);
+            order.setShippingAddress("12 Archive Lane");
+            order.setTotal(10.0 + i);
+            orders.add(order);
+        }
+        BatchItemResult[] results = restTemplate.postForObject("/orders/batch", orders, BatchItemResult[].class);
+        List<Long> ids = new ArrayList<>();
+        for (BatchItemResult result : results) {
+            ids.add(result.getId());
+        }
+        return ids;
+    }
+
+    private OrderDailyTotal[] daily(LocalDate day, String customerName) {
+        return restTemplate.getForObject("/orders/rollup/daily?from=" + day + "&to=" + day + "&customerName=" + customerName,
+                OrderDailyTotal[].class);
+    }
+
+    @Test
+    public void testDeleteOrders_Ids_DeletesOnlyThoseOrders() {
+        LocalDate day = LocalDate.of(2019, 5, 5);
+        List<Long> ids = createOrders("Bulk Ids", day, 5);
+
+        ResponseEntity<Map> response = restTemplate.exchange("/orders?ids=" + ids.get(0) + "," + ids.get(1) + "," + ids.get(2)
+                + "," + ids.get(3) + ",987654321", HttpMethod.DELETE, null, Map.class);
+
+        // Assert that the four existing orders were deleted and the missing id was skipped
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("deleted", 4), response.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/orders/" + ids.get(0), String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/orders/" + ids.get(4), String.class).getStatusCode());
+
+        // Assert that the rollup and the search index no longer count the deleted orders
+        OrderDailyTotal[] totals = daily(day, "Bulk Ids");
+        assertEquals(1, totals.length);
+        assertEquals(1, totals[0].getOrderCount());
+        assertEquals(14.0, totals[0].getTotalSum());
+        assertEquals(1, orderSearchIndex.search("bulk ids", 0, 10).total());
+    }
+
+    @Test
+    public void testDeleteOrders_Before_DeletesOlderOrdersInBatches() {
+        List<Long> old = createOrders("Bulk Before", LocalDate.of(1960, 3, 1), 7);
+        List<Long> kept = createOrders("Bulk Before", LocalDate.of(1961, 1, 1), 1);
+
+        ResponseEntity<Map> response = restTemplate.exchange("/orders?before=1961-01-01", HttpMethod.DELETE, null, Map.class);
+
+        // Assert that every order before the cutoff was deleted over several batches, and the order on the cutoff day was kept
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("deleted", 7), response.getBody());
+        for (Long id : old) {
+            assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/orders/" + id, String.class).getStatusCode());
+        }
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/orders/" + kept.get(0), String.class).getStatusCode());
+        assertEquals(0, daily(LocalDate.of(1960, 3, 1), "Bulk Before").length);
+    }
+
+    @Test
+    public void testDeleteOrders_NoOrBothCriteria_ReturnsBadRequest() {
+        ResponseEntity<ErrorResponse> neither = restTemplate.exchange("/orders", HttpMethod.DELETE, null, ErrorResponse.class);
+        ResponseEntity<ErrorResponse> both = restTemplate.exchange("/orders?ids=1&before=2020-01-01", HttpMethod.DELETE, null, ErrorResponse.class);
+
+        // Assert that the response status code is 400 (Bad Request) without exactly one of ids and before
+        assertEquals(HttpStatus.BAD_REQUEST, neither.getStatusCode());
+        assertEquals(List.of("ids: Either ids or before is required, not both"), neither.getBody().getErrors());
+        assertEquals(HttpStatus.BAD_REQUEST, both.getStatusCode());
+    }
+
+    @Test
+    public void testArchiveBefore_AgedOrders_MovesThemToCompressedBatches() {
+        LocalDate day = LocalDate.of(1970, 6, 1);
+        List<Long> ids = createOrders("Archived Customer", day, 5);
+        createOrders("Recent Customer", LocalDate.of(1971, 1, 1), 1);
+
+        OrderArchiveService.Run run = orderArchiveService.archiveBefore(LocalDate.of(1971, 1, 1));
+
+        // Assert that the five aged orders went out in batches of two, and are no longer served or in the rollup
+        assertTrue(run.orders() >= 5);
+        assertTrue(run.batches() >= 3);
+        for (Long id : ids) {
+            assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/orders/" + id, String.class).getStatusCode());
+        }
+        assertEquals(0, daily(day, "Archived Customer").length);
+        assertEquals(1, daily(LocalDate.of(1971, 1, 1), "Recent Customer").length);
+
+        // Assert that the archive batches decode to the orders as they were
+        List<Order> archived = new ArrayList<>();
+        for (OrderArchiveBatch batch : orderArchiveRepository.findAll()) {
+            List<Order> orders = orderArchiveService.read(batch);
+            assertEquals(batch.getOrderCount(), orders.size());
+            assertEquals(batch.getFirstOrderId(), orders.get(0).getId());
+            assertEquals(batch.getLastOrderId(), orders.get(orders.size() - 1).getId());
+            archived.addAll(orders);
+        }
+        List<Long> archivedIds = archived.stream().map(Order::getId).toList();
+        assertTrue(archivedIds.containsAll(ids), archivedIds.toString());
+        Order first = archived.get(archivedIds.indexOf(ids.get(0)));
+        assertEquals("Archived Customer", first.getCustomerName());
+        assertEquals(day, first.getOrderDate());
+        assertEquals("12 Archive Lane", first.getShippingAddress());
+        assertEquals(10.0, first.getTotal());
+    }
+
+    @Test
+    public void testRunArchive_OnDemand_ReturnsAcceptedAndCompletesInBackground() throws InterruptedException {
+        ResponseEntity<OrderArchiveService.Run> response = restTemplate.postForEntity("/orders/archive/run", null, OrderArchiveService.Run.class);
+
+        // Assert that the run is accepted with the default two-year cutoff and a Location to follow it
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        OrderArchiveService.Run accepted = response.getBody();
+        assertEquals(LocalDate.now().minusYears(2), accepted.cutoff());
+        assertEquals("/orders/archive/runs/" + accepted.id(), response.getHeaders().getLocation().getPath());
+
+        // Assert that the run completes on the archiver thread and reports its counts
+        OrderArchiveService.Run run = accepted;
+        for (int i = 0; i < 200 && !OrderArchiveService.Run.COMPLETED.equals(run.status()); i++) {
+            Thread.sleep(50);
+            run = restTemplate.getForObject(response.getHeaders().getLocation().getPath(), OrderArchiveService.Run.class);
+        }
+        assertEquals(OrderArchiveService.Run.COMPLETED, run.status());
+        assertEquals(accepted.id(), run.id());
+        assertTrue(run.orders() >= 0);
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/orders/archive/runs/0", String.class).getStatusCode());
+    }
+}
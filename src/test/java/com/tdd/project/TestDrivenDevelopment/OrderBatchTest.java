@@ -0,0 +1,87 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderBatchTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Order newOrder(String customerName, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.of(2023, 7, 1));
+        order.setShippingAddress("333 King St");
+        order.setTotal(total);
+        return order;
+    }
+
+    @Test
+    public void testCreateOrders_AllValid_ReturnsCreatedWithIds() {
+        // Submit more orders than one JDBC batch holds
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            orders.add(newOrder("Batch Customer " + i, 10.0 + i));
+        }
+
+        ResponseEntity<BatchItemResult[]> response = restTemplate.postForEntity("/orders/batch", orders, BatchItemResult[].class);
+
+        // Assert that the response status code is 201 (Created) and every order got an id
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        BatchItemResult[] results = response.getBody();
+        assertNotNull(results);
+        assertEquals(120, results.length);
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(i, results[i].getIndex());
+            assertEquals(BatchItemResult.CREATED, results[i].getStatus());
+            assertNotNull(results[i].getId());
+        }
+
+        // Assert that the stored order keeps its submitted fields
+        Order stored = orderRepository.findById(results[5].getId()).orElseThrow();
+        assertEquals("Batch Customer 5", stored.getCustomerName());
+        assertEquals(LocalDate.of(2023, 7, 1), stored.getOrderDate());
+    }
+
+    @Test
+    public void testCreateOrders_SomeInvalid_ReturnsPerItemResults() {
+        List<Order> orders = List.of(newOrder("Valid Customer", 5.0), newOrder("", 5.0), newOrder("Negative Total", -1.0));
+
+        ResponseEntity<BatchItemResult[]> response = restTemplate.postForEntity("/orders/batch", orders, BatchItemResult[].class);
+
+        // Assert that the response status code is 207 (Multi-Status)
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        BatchItemResult[] results = response.getBody();
+        assertNotNull(results);
+        assertEquals(BatchItemResult.CREATED, results[0].getStatus());
+        assertEquals(BatchItemResult.INVALID, results[1].getStatus());
+        assertTrue(results[1].getErrors().contains("customerName: Customer name required"));
+        assertNull(results[1].getId());
+        assertEquals(BatchItemResult.INVALID, results[2].getStatus());
+        assertTrue(results[2].getErrors().contains("total: Total must be positive"));
+    }
+
+    @Test
+    public void testCreateOrders_EmptyBatch_ReturnsBadRequest() {
+        ResponseEntity<String> response = restTemplate.postForEntity("/orders/batch", List.of(), String.class);
+
+        // Assert that the response status code is 400 (Bad Request)
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
@@ -0,0 +1,86 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderCacheTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Order saveOrder() {
+        Order order = new Order();
+        order.setCustomerName("John Taylor");
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(300.0);
+        return orderRepository.save(order);
+    }
+
+    private long counter(String name) {
+        Map<?, ?> stats = restTemplate.getForObject("/orders/cache/stats", Map.class);
+        return ((Number) stats.get(name)).longValue();
+    }
+
+    @Test
+    public void testGetOrderById_RepeatedRead_HitsCache() {
+        Order saved = saveOrder();
+        long hitsBefore = counter("hitCount");
+
+        // Read the same order twice
+        restTemplate.getForEntity("/orders/{id}", Order.class, saved.getId());
+        ResponseEntity<Order> response = restTemplate.getForEntity("/orders/{id}", Order.class, saved.getId());
+
+        // Assert that the second read was served from the cache
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(saved.getId(), response.getBody().getId());
+        assertTrue(counter("hitCount") > hitsBefore);
+    }
+
+    @Test
+    public void testUpdateOrder_CachedOrder_ReadReturnsUpdatedOrder() {
+        Order saved = saveOrder();
+        restTemplate.getForEntity("/orders/{id}", Order.class, saved.getId());
+
+        // Update the cached order
+        Order orderUpdated = new Order();
+        orderUpdated.setCustomerName("Tempestt Taylor");
+        orderUpdated.setOrderDate(LocalDate.now());
+        orderUpdated.setShippingAddress("123 Main St");
+        orderUpdated.setTotal(33.0);
+        restTemplate.exchange("/orders/{id}", HttpMethod.PUT, new HttpEntity<>(orderUpdated), Order.class, saved.getId());
+
+        // Assert that the next read sees the update
+        Order read = restTemplate.getForObject("/orders/{id}", Order.class, saved.getId());
+        assertEquals("Tempestt Taylor", read.getCustomerName());
+        assertEquals(33.0, read.getTotal());
+    }
+
+    @Test
+    public void testDeleteOrder_CachedOrder_ReadReturnsNotFound() {
+        Order saved = saveOrder();
+        restTemplate.getForEntity("/orders/{id}", Order.class, saved.getId());
+
+        // Delete the cached order
+        restTemplate.exchange("/orders/{id}", HttpMethod.DELETE, null, String.class, saved.getId());
+
+        // Assert that the next read no longer finds it
+        ResponseEntity<String> response = restTemplate.getForEntity("/orders/{id}", String.class, saved.getId());
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
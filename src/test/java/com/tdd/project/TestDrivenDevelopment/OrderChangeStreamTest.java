@@ -0,0 +1,116 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderEventLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderChangeStreamTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderEventLog orderEventLog;
+    @LocalServerPort
+    private int port;
+
+    private Order newOrder(String customerName) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(300.0);
+        return order;
+    }
+
+    // Reads "event:" names from the stream until the given number of events arrived
+    private List<String> readEvents(long from, int count) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/orders/changes?from=" + from))
+                .header("Accept", "text/event-stream")
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body()))) {
+            String line;
+            int events = 0;
+            while (events < count && (line = reader.readLine()) != null) {
+                lines.add(line);
+                if (line.startsWith("data:")) {
+                    events++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void testSubscribeToChanges_FromOffset_ReplaysCreateUpdateDelete() throws Exception {
+        long from = orderEventLog.endOffset();
+
+        // Create, update and delete an order before subscribing
+        Order created = restTemplate.postForObject("/orders", newOrder("Change Customer"), Order.class);
+        restTemplate.put("/orders/{id}", newOrder("Changed Customer"), created.getId());
+        restTemplate.exchange("/orders/{id}", HttpMethod.DELETE, null, String.class, created.getId());
+
+        List<String> lines = readEvents(from, 3);
+
+        // Assert that the three changes are replayed in order with their offsets as event ids
+        List<String> names = lines.stream().filter(line -> line.startsWith("event:")).toList();
+        assertEquals(List.of("event:CREATED", "event:UPDATED", "event:DELETED"), names);
+        assertTrue(lines.contains("id:" + from));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("data:") && line.contains("Changed Customer")));
+    }
+
+    @Test
+    public void testSubscribeToChanges_LiveSubscriber_ReceivesNewChange() throws Exception {
+        long from = orderEventLog.endOffset();
+
+        // Create the order shortly after the subscription is open
+        Thread writer = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ignored) {
+                return;
+            }
+            restTemplate.postForObject("/orders", newOrder("Live Customer"), Order.class);
+        });
+        writer.start();
+        List<String> lines = readEvents(from, 1);
+        writer.join();
+
+        // Assert that the new order was pushed to the subscriber
+        assertTrue(lines.contains("event:CREATED"));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("Live Customer")));
+    }
+
+    @Test
+    public void testSubscribeToChanges_OffsetInFuture_ReturnsGone() {
+        long future = orderEventLog.endOffset() + 1000;
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/orders/changes?from={from}", String.class, future);
+
+        // Assert that the response status code is 410 (Gone)
+        assertEquals(410, response.getStatusCode().value());
+    }
+}
@@ -0,0 +1,102 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderConditionalRequestTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Order newOrder(String customerName) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(300.0);
+        return order;
+    }
+
+    private ResponseEntity<String> put(Long id, Order order, String ifMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifMatch != null) {
+            headers.setIfMatch(ifMatch);
+        }
+        return restTemplate.exchange("/orders/{id}", HttpMethod.PUT, new HttpEntity<>(order, headers), String.class, id);
+    }
+
+    @Test
+    public void testGetOrderById_MatchingIfNoneMatch_ReturnsNotModified() {
+        Order saved = orderRepository.save(newOrder("John Taylor"));
+
+        // Read the order and remember its ETag
+        ResponseEntity<Order> first = restTemplate.getForEntity("/orders/{id}", Order.class, saved.getId());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+
+        // Read it again with the ETag
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> second = restTemplate.exchange(
+                "/orders/{id}", HttpMethod.GET, new HttpEntity<>(headers), String.class, saved.getId());
+
+        // Assert that the response status code is 304 (Not Modified) without a body
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+    }
+
+    @Test
+    public void testUpdateOrder_CurrentIfMatch_ReturnsUpdatedOrderWithNewETag() {
+        Order saved = orderRepository.save(newOrder("John Taylor"));
+        String etag = restTemplate.getForEntity("/orders/{id}", Order.class, saved.getId()).getHeaders().getETag();
+
+        ResponseEntity<String> response = put(saved.getId(), newOrder("Tempestt Taylor"), etag);
+
+        // Assert that the update was applied and the version moved on
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getETag());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals("Tempestt Taylor", orderRepository.findById(saved.getId()).orElseThrow().getCustomerName());
+    }
+
+    @Test
+    public void testUpdateOrder_StaleIfMatch_ReturnsPreconditionFailed() {
+        Order saved = orderRepository.save(newOrder("John Taylor"));
+        String etag = restTemplate.getForEntity("/orders/{id}", Order.class, saved.getId()).getHeaders().getETag();
+
+        // A first update moves the version on
+        assertEquals(HttpStatus.OK, put(saved.getId(), newOrder("First Writer"), etag).getStatusCode());
+
+        // A second update based on the old version
+        ResponseEntity<String> response = put(saved.getId(), newOrder("Second Writer"), etag);
+
+        // Assert that the response status code is 412 (Precondition Failed) and the first update survived
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals("First Writer", orderRepository.findById(saved.getId()).orElseThrow().getCustomerName());
+    }
+
+    @Test
+    public void testUpdateOrder_NoIfMatch_UpdatesUnconditionally() {
+        Order saved = orderRepository.save(newOrder("John Taylor"));
+
+        ResponseEntity<String> response = put(saved.getId(), newOrder("Tempestt Taylor"), null);
+
+        // Assert that the response status code is 200 (OK)
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+}
@@ -0,0 +1,186 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderIdempotencyStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderIdempotencyTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Order newOrder(String customerName, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.of(2023, 9, 1));
+        order.setShippingAddress("666 Front St");
+        order.setTotal(total);
+        return order;
+    }
+
+    private <T> ResponseEntity<T> post(Order order, String idempotencyKey, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", idempotencyKey);
+        return restTemplate.postForEntity("/orders", new HttpEntity<>(order, headers), type);
+    }
+
+    private long countOrdersOf(String customerName) {
+        return orderRepository.findAll().stream().filter(order -> customerName.equals(order.getCustomerName())).count();
+    }
+
+    @Test
+    public void testCreateOrder_RepeatedKey_ReturnsFirstResponseWithoutInsert() {
+        ResponseEntity<Order> first = post(newOrder("Idempotent Customer", 25.0), "key-repeat", Order.class);
+        ResponseEntity<Order> retry = post(newOrder("Idempotent Customer", 25.0), "key-repeat", Order.class);
+
+        // Assert that the retry gets the same 201 and order, marked as replayed, and only one order was stored
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals(first.getBody().getId(), retry.getBody().getId());
+        assertNull(first.getHeaders().getFirst(OrderIdempotencyStore.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(OrderIdempotencyStore.REPLAYED_HEADER));
+        assertEquals(1, countOrdersOf("Idempotent Customer"));
+        assertTrue(meterRegistry.get("orders.idempotency.replays").counter().count() >= 1);
+    }
+
+    @Test
+    public void testCreateOrder_ConcurrentSameKey_InsertsOnce() throws Exception {
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<Order>>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return post(newOrder("Concurrent Idempotent", 30.0), "key-concurrent", Order.class);
+                }));
+            }
+            start.countDown();
+            Set<Long> ids = new HashSet<>();
+            for (Future<ResponseEntity<Order>> response : responses) {
+                assertEquals(HttpStatus.CREATED, response.get().getStatusCode());
+                ids.add(response.get().getBody().getId());
+            }
+
+            // Assert that all requests got the same order and only one insert happened
+            assertEquals(1, ids.size());
+            assertEquals(1, countOrdersOf("Concurrent Idempotent"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCreateOrder_KeyReusedForDifferentOrder_ReturnsUnprocessableEntity() {
+        post(newOrder("First Use", 10.0), "key-reused", Order.class);
+
+        ResponseEntity<ErrorResponse> response = post(newOrder("Second Use", 10.0), "key-reused", ErrorResponse.class);
+
+        // Assert that the response status code is 422 (Unprocessable Entity) and no second order was stored
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(0, countOrdersOf("Second Use"));
+    }
+
+    @Test
+    public void testCreateOrder_KeyReusedForOrderWithSameHashCode_ReturnsUnprocessableEntity() {
+        // "Aa" and "BB" have the same String hash code, so the two orders hash alike
+        post(newOrder("Aa", 10.0), "key-same-hash", Order.class);
+
+        ResponseEntity<ErrorResponse> response = post(newOrder("BB", 10.0), "key-same-hash", ErrorResponse.class);
+
+        // Assert that the orders are told apart by their fields, not replayed as the same order
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(0, countOrdersOf("BB"));
+    }
+
+    @Test
+    public void testIdempotencyStore_SameKeyFromOtherClient_CreatesAgain() throws InterruptedException {
+        OrderIdempotencyStore store = new OrderIdempotencyStore(new SimpleMeterRegistry(), Duration.ofHours(1), DataSize.ofMegabytes(1), Duration.ofSeconds(1));
+        AtomicInteger created = new AtomicInteger();
+        Order order = newOrder("Scoped Key", 1.0);
+        OrderIdempotencyStore.Creation creation = () -> ResponseEntity.status(HttpStatus.CREATED).body(created.incrementAndGet());
+
+        ResponseEntity<?> first = store.createOnce("client-a", "shared-key", order, creation);
+        ResponseEntity<?> other = store.createOnce("client-b", "shared-key", order, creation);
+        ResponseEntity<?> retry = store.createOnce("client-a", "shared-key", order, creation);
+
+        // Assert that another client's key does not replay the first client's response, while the first client's retry does
+        assertEquals(1, first.getBody());
+        assertEquals(2, other.getBody());
+        assertNull(other.getHeaders().getFirst(OrderIdempotencyStore.REPLAYED_HEADER));
+        assertEquals(1, retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(OrderIdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void testCreateOrder_InvalidOrderWithKey_DoesNotConsumeKey() {
+        ResponseEntity<ErrorResponse> invalid = post(newOrder("", 10.0), "key-invalid", ErrorResponse.class);
+        ResponseEntity<Order> valid = post(newOrder("Corrected Order", 10.0), "key-invalid", Order.class);
+
+        // Assert that the rejected request did not take the key, so the corrected order is created
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+        assertEquals(HttpStatus.CREATED, valid.getStatusCode());
+        assertEquals(1, countOrdersOf("Corrected Order"));
+    }
+
+    @Test
+    public void testCreateOrder_KeyTooLong_ReturnsBadRequest() {
+        ResponseEntity<ErrorResponse> response = post(newOrder("Long Key", 10.0), "k".repeat(256), ErrorResponse.class);
+
+        // Assert that the response status code is 400 (Bad Request) and the error names the header
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().getErrors().get(0).startsWith("Idempotency-Key: "));
+    }
+
+    @Test
+    public void testIdempotencyStore_MemoryLimit_EvictsAndCountsEvictions() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderIdempotencyStore store = new OrderIdempotencyStore(registry, Duration.ofHours(1), DataSize.ofKilobytes(64), Duration.ofSeconds(1));
+        AtomicInteger created = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            Order order = newOrder("Evicted " + i, 1.0);
+            store.createOnce("client", "key-" + i, order, () -> {
+                created.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.CREATED).body(order);
+            });
+        }
+        store.createOnce("client", "key-0", newOrder("Evicted 0", 1.0), () -> ResponseEntity.status(HttpStatus.CREATED).build());
+
+        // Assert that the store stays within its memory budget and reports the evictions
+        assertTrue(store.size() < 200, "size " + store.size());
+        assertTrue(registry.get("orders.idempotency.memory").gauge().value() <= 64 * 1024);
+        assertTrue(registry.get("cache.evictions").tag("cache", "orders.idempotency").functionCounter().count() > 0);
+        assertTrue(created.get() >= 1000);
+    }
+}
@@ -0,0 +1,120 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderIngestStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Write-behind mode with a small queue, and a group delay long enough for a burst of requests to fill it
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "orders.ingest.async=true",
+        "orders.ingest.queue-capacity=5",
+        "orders.ingest.max-group-delay=500ms"
+})
+public class OrderIngestTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Order newOrder(String customerName) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.of(2023, 8, 1));
+        order.setShippingAddress("444 Queen St");
+        order.setTotal(42.0);
+        return order;
+    }
+
+    private OrderIngestStatus awaitCommitted(Long id) throws InterruptedException {
+        OrderIngestStatus status = null;
+        for (int i = 0; i < 100; i++) {
+            status = restTemplate.getForObject("/orders/ingest/" + id, OrderIngestStatus.class);
+            if (!OrderIngestStatus.QUEUED.equals(status.getStatus())) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        return status;
+    }
+
+    @Test
+    public void testCreateOrder_AsyncMode_ReturnsAcceptedThenCommits() throws InterruptedException {
+        ResponseEntity<OrderIngestStatus> response = restTemplate.postForEntity("/orders", newOrder("Ingest Customer"), OrderIngestStatus.class);
+
+        // Assert that the order is accepted with its id before it is written
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        OrderIngestStatus accepted = response.getBody();
+        assertNotNull(accepted);
+        assertNotNull(accepted.getId());
+        assertEquals(OrderIngestStatus.QUEUED, accepted.getStatus());
+        assertEquals("/orders/ingest/" + accepted.getId(), response.getHeaders().getLocation().getPath());
+
+        // Assert that the writer commits it under the same id
+        assertEquals(OrderIngestStatus.COMMITTED, awaitCommitted(accepted.getId()).getStatus());
+        Order stored = restTemplate.getForObject("/orders/" + accepted.getId(), Order.class);
+        assertEquals("Ingest Customer", stored.getCustomerName());
+        assertEquals(LocalDate.now(), stored.getOrderDate());
+    }
+
+    @Test
+    public void testCreateOrder_QueueFull_ReturnsTooManyRequestsAndCommitsInGroups() throws InterruptedException {
+        List<Long> acceptedIds = new ArrayList<>();
+        int rejected = 0;
+        for (int i = 0; i < 8; i++) {
+            ResponseEntity<String> response = restTemplate.postForEntity("/orders", newOrder("Burst Customer " + i), String.class);
+            if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                // Assert that a refused client is told when to retry
+                assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                rejected++;
+            } else {
+                assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+                acceptedIds.add(Long.valueOf(response.getHeaders().getLocation().getPath().substring("/orders/ingest/".length())));
+            }
+        }
+
+        // Assert that the queue holds no more than its capacity and refuses the rest
+        assertTrue(acceptedIds.size() <= 5);
+        assertTrue(rejected >= 3);
+        assertTrue(meterRegistry.get("orders.ingest.rejected").counter().count() >= 3);
+
+        // Assert that every accepted order is committed, several of them in one transaction
+        for (Long id : acceptedIds) {
+            assertEquals(OrderIngestStatus.COMMITTED, awaitCommitted(id).getStatus());
+        }
+        assertTrue(meterRegistry.get("orders.ingest.group.size").summary().max() >= 2);
+    }
+
+    @Test
+    public void testCreateOrder_AsyncModeInvalidOrder_ReturnsBadRequest() {
+        Order order = newOrder("Invalid Ingest Customer");
+        order.setTotal(-1.0);
+
+        ResponseEntity<ErrorResponse> response = restTemplate.postForEntity("/orders", order, ErrorResponse.class);
+
+        // Assert that validation still happens before the order is queued
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().getErrors().contains("total: Total must be positive"));
+    }
+
+    @Test
+    public void testGetIngestStatus_UnknownId_ReturnsNotFound() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/orders/ingest/" + Long.MAX_VALUE, String.class);
+
+        // Assert that the response status code is 404 (Not Found)
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
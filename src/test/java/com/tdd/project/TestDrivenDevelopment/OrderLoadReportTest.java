@@ -0,0 +1,104 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderLoadReportTest {
+
+    // 20% more p99, 10% less throughput, 1% errors
+    private static final OrderLoadReport.Thresholds THRESHOLDS = new OrderLoadReport.Thresholds(0.2, 0.1, 0.01);
+
+    private static OrderLoadReport.Operation operation(String name, long requests, long errors, double throughput, double p99Millis) {
+        return new OrderLoadReport.Operation(name, requests, requests - errors, 0, errors, throughput,
+                p99Millis / 4, p99Millis / 2, p99Millis, p99Millis * 2, p99Millis * 3);
+    }
+
+    private static OrderLoadReport report(double targetRate, double getP99, double createP99, double throughput, long errors) {
+        OrderLoadReport.Operation get = operation("get", 6000, 0, throughput * 0.6, getP99);
+        OrderLoadReport.Operation create = operation("create", 4000, errors, throughput * 0.4, createP99);
+        OrderLoadReport.Operation total = operation("total", 10000, errors, throughput, Math.max(getP99, createP99));
+        return new OrderLoadReport(targetRate, 30, 0, total, List.of(get, create));
+    }
+
+    private static final OrderLoadReport BASELINE = report(200, 10, 20, 200, 0);
+
+    @Test
+    public void testRegressionsAgainst_WithinThresholds_Passes() {
+        OrderLoadReport run = report(200, 11.9, 23.9, 181, 99);
+
+        // Assert that a run slightly slower and with few errors stays within every threshold
+        assertEquals(List.of(), run.regressionsAgainst(BASELINE, THRESHOLDS));
+    }
+
+    @Test
+    public void testRegressionsAgainst_Faster_Passes() {
+        OrderLoadReport run = report(200, 5, 8, 250, 0);
+
+        // Assert that improvements are never regressions
+        assertEquals(List.of(), run.regressionsAgainst(BASELINE, THRESHOLDS));
+    }
+
+    @Test
+    public void testRegressionsAgainst_OneOperationSlower_ReportsItsP99() {
+        OrderLoadReport run = report(200, 10, 25, 200, 0);
+
+        // Assert that the slower operation fails the gate, and so does the total it sets
+        List<String> regressions = run.regressionsAgainst(BASELINE, THRESHOLDS);
+        assertEquals(2, regressions.size(), regressions.toString());
+        assertTrue(regressions.get(0).startsWith("create p99 25.00 ms is more than 20% above the baseline 20.00 ms"), regressions.get(0));
+        assertTrue(regressions.get(1).startsWith("total p99"), regressions.get(1));
+    }
+
+    @Test
+    public void testRegressionsAgainst_LowerThroughput_ReportsIt() {
+        OrderLoadReport run = report(200, 10, 20, 170, 0);
+
+        // Assert that throughput more than 10% below the baseline fails the gate
+        assertEquals(List.of("throughput 170.0/s is more than 10% below the baseline 200.0/s"),
+                run.regressionsAgainst(BASELINE, THRESHOLDS));
+    }
+
+    @Test
+    public void testRegressionsAgainst_TooManyErrors_ReportsErrorRate() {
+        OrderLoadReport run = report(200, 10, 20, 200, 150);
+
+        // Assert that 1.5% failed requests fail the gate even with the latency unchanged
+        assertEquals(List.of("1.50% of requests failed, more than 1.00%"), run.regressionsAgainst(BASELINE, THRESHOLDS));
+    }
+
+    @Test
+    public void testRegressionsAgainst_DifferentRate_ReportsMismatch() {
+        OrderLoadReport run = report(100, 10, 20, 200, 0);
+
+        // Assert that a run at another rate cannot pass against the baseline
+        assertEquals(List.of("the run offered 100/s but the baseline was recorded at 200/s"),
+                run.regressionsAgainst(BASELINE, THRESHOLDS));
+    }
+
+    @Test
+    public void testWriteAndRead_Baseline_RoundTrips(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("baseline.json");
+
+        BASELINE.write(file);
+
+        // Assert that the stored baseline reads back as the same report
+        assertEquals(BASELINE, OrderLoadReport.read(file));
+    }
+
+    @Test
+    public void testSucceeded_NotFound_OnlyForOrdersTheRunDeleted() {
+        // Assert that 2xx always succeeds and 404 only when a read or update lost the race with the run's own delete
+        assertTrue(OrderLoadGenerator.succeeded(OrderLoadGenerator.Operation.CREATE, 201, false));
+        assertTrue(OrderLoadGenerator.succeeded(OrderLoadGenerator.Operation.GET, 404, true));
+        assertTrue(OrderLoadGenerator.succeeded(OrderLoadGenerator.Operation.UPDATE, 404, true));
+        assertFalse(OrderLoadGenerator.succeeded(OrderLoadGenerator.Operation.GET, 404, false));
+        assertFalse(OrderLoadGenerator.succeeded(OrderLoadGenerator.Operation.UPDATE, 404, false));
+        assertFalse(OrderLoadGenerator.succeeded(OrderLoadGenerator.Operation.DELETE, 404, true));
+        assertFalse(OrderLoadGenerator.succeeded(OrderLoadGenerator.Operation.LIST, 404, false));
+    }
+}
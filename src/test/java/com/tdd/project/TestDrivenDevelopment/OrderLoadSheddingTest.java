@@ -0,0 +1,182 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Exception.OrderExceptionHandler;
+import com.tdd.project.TestDrivenDevelopment.Filter.AdaptiveConcurrencyLimiter;
+import com.tdd.project.TestDrivenDevelopment.Filter.ClientIdentity;
+import com.tdd.project.TestDrivenDevelopment.Filter.ClientRateLimiter;
+import com.tdd.project.TestDrivenDevelopment.Filter.LoadSheddingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.CannotCreateTransactionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A small burst and a slow refill, so a few requests already exhaust a client's bucket.
+// The test client connects from loopback, trusted here so its X-Client-Id header tells the test's clients apart.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "orders.rate-limit.permits-per-second=0.1",
+        "orders.rate-limit.burst=3",
+        "orders.client.trusted-proxies=127.0.0.1,0:0:0:0:0:0:0:1"
+})
+public class OrderLoadSheddingTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ResponseEntity<String> getOrders(String clientId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Client-Id", clientId);
+        return restTemplate.exchange("/orders?limit=1", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    @Test
+    public void testRateLimit_BurstExceeded_ReturnsTooManyRequests() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.OK, getOrders("burst-client").getStatusCode());
+        }
+
+        ResponseEntity<String> response = getOrders("burst-client");
+
+        // Assert that the fourth request gets 429 with the seconds until the next token, and other clients are unaffected
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("10", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        ErrorResponse error = objectMapper.readValue(response.getBody(), ErrorResponse.class);
+        assertEquals(List.of("client: Request rate limit exceeded, retry later"), error.getErrors());
+        assertEquals(HttpStatus.OK, getOrders("other-client").getStatusCode());
+        assertTrue(meterRegistry.get("orders.requests.shed").tag("reason", "rate_limited").counter().count() >= 1);
+    }
+
+    @Test
+    public void testRateLimit_UntrustedCallerRotatesClientHeader_SharesOneBucket() throws Exception {
+        LoadSheddingFilter filter = new LoadSheddingFilter(concurrencyLimiter, new ClientIdentity("X-Client-Id", List.of("10.0.0.1")),
+                objectMapper, new SimpleMeterRegistry(), true, 0.1, 3, 100, false);
+
+        // Send each request with a new client id, first from a caller, then through the trusted proxy
+        List<Integer> direct = new ArrayList<>();
+        List<Integer> proxied = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            direct.add(filterOrdersRequest(filter, "192.0.2.7", "rotated-" + i));
+            proxied.add(filterOrdersRequest(filter, "10.0.0.1", "proxied-" + i));
+        }
+
+        // Assert that the caller's own address is limited whatever it sends, while the proxy's clients each have a bucket
+        assertEquals(List.of(200, 200, 200, 429), direct);
+        assertEquals(List.of(200, 200, 200, 200), proxied);
+    }
+
+    private int filterOrdersRequest(LoadSheddingFilter filter, String remoteAddr, String clientId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.setRemoteAddr(remoteAddr);
+        request.addHeader("X-Client-Id", clientId);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    @Test
+    public void testConcurrencyLimit_LimitReached_ReturnsServiceUnavailable() {
+        // Take every permit, as requests in progress would
+        int taken = 0;
+        while (concurrencyLimiter.tryAcquire()) {
+            taken++;
+        }
+        ResponseEntity<String> response;
+        try {
+            response = getOrders("limited-client");
+        } finally {
+            for (int i = 0; i < taken; i++) {
+                concurrencyLimiter.release();
+            }
+        }
+
+        // Assert that the request is refused at once with 503 and counted
+        assertEquals(concurrencyLimiter.limit(), taken);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(meterRegistry.get("orders.requests.shed").tag("reason", "overloaded").counter().count() >= 1);
+        assertEquals(HttpStatus.OK, getOrders("limited-client").getStatusCode());
+    }
+
+    @Test
+    public void testConcurrencyLimit_RepositoryLatency_AdaptsLimit() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // A zero window recomputes the limit every ten calls
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(registry, 20, 2, 100, Duration.ZERO, 2.0, 0.2);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        // Steady latency with the limit in use lets it grow
+        for (int i = 0; i < 200; i++) {
+            limiter.record(1_000_000);
+        }
+        int grown = limiter.limit();
+        assertTrue(grown > 20, "limit " + grown);
+
+        // Latency ten times the baseline shrinks it
+        for (int i = 0; i < 200; i++) {
+            limiter.record(10_000_000);
+        }
+        int shrunk = limiter.limit();
+        assertTrue(shrunk < grown / 2, "limit " + shrunk + " after " + grown);
+        assertEquals(shrunk, registry.get("orders.concurrency.limit").gauge().value());
+        assertEquals(20, registry.get("orders.concurrency.in_flight").gauge().value());
+    }
+
+    @Test
+    public void testConcurrencyLimit_OrderRepositoryCalls_AreObserved() {
+        getOrders("observed-client");
+
+        // Assert that OrderRepository latency reaches the limiter
+        assertTrue(meterRegistry.get("orders.concurrency.latency").tag("window", "long").gauge().value() >= 0);
+        assertTrue(meterRegistry.get("orders.concurrency.limit").gauge().value() >= 10);
+    }
+
+    @Test
+    public void testRateLimiter_TokensRefill_AfterWaiting() throws InterruptedException {
+        ClientRateLimiter limiter = new ClientRateLimiter(100, 2, Duration.ofMinutes(1), 10);
+
+        // Assert that the burst is granted, the next token is refused, and granted again once refilled
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        long wait = limiter.tryAcquire("client");
+        assertTrue(wait > 0 && wait <= 10_000_000, "wait " + wait);
+        Thread.sleep(20);
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(1, limiter.clients());
+    }
+
+    @Test
+    public void testDatabaseBusy_ReturnsServiceUnavailable() {
+        ResponseEntity<Object> response = new OrderExceptionHandler()
+                .handleDatabaseBusyException(new CannotCreateTransactionException("Connection is not available"));
+
+        // Assert that a connection timeout becomes 503 with Retry-After instead of 500
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
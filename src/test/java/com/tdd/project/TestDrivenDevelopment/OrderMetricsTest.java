@@ -0,0 +1,49 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Metrics export is switched off in tests unless asked for
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderMetricsTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void testPrometheusEndpoint_AfterOrderTraffic_ExposesOrderMetrics() {
+        // A valid create, an invalid create and a read of a missing order
+        Order order = new Order();
+        order.setCustomerName("John Taylor");
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(300.0);
+        restTemplate.postForEntity("/orders", order, String.class);
+        order.setTotal(-1.0);
+        restTemplate.postForEntity("/orders", order, String.class);
+        restTemplate.getForEntity("/orders/{id}", String.class, -5L);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // Assert that endpoint timers, repository timers, domain counters and statement counts are exported
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+        assertNotNull(metrics);
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket"));
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds"));
+        assertTrue(metrics.contains("orders_validation_failures_total{operation=\"create\""));
+        assertTrue(metrics.contains("orders_not_found_total{operation=\"get\""));
+        assertTrue(metrics.contains("orders_jdbc_statements_per_request_count{uri=\"/orders\""));
+        assertTrue(metrics.contains("hibernate_statements_total{status=\"prepared\""));
+    }
+}
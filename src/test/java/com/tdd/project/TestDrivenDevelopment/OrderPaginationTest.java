@@ -0,0 +1,103 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Controller.OrderController;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderPaginationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Order saveOrder(String customerName) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(300.0);
+        return orderRepository.save(order);
+    }
+
+    @Test
+    public void testGetAllOrders_KeysetPage_ReturnsOrdersAfterCursor() {
+        // Save three orders with increasing ids
+        Order first = saveOrder("First");
+        Order second = saveOrder("Second");
+        Order third = saveOrder("Third");
+
+        // Request a page of two orders starting after the first one
+        ResponseEntity<Order[]> response = restTemplate.getForEntity(
+                "/orders?after={after}&limit=2", Order[].class, first.getId());
+
+        // Assert that the page holds the next two orders in id order
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Order[] page = response.getBody();
+        assertNotNull(page);
+        assertEquals(2, page.length);
+        assertEquals(second.getId(), page[0].getId());
+        assertEquals(third.getId(), page[1].getId());
+
+        // Assert that a full page carries the cursor of the next page
+        assertEquals(String.valueOf(third.getId()),
+                response.getHeaders().getFirst(OrderController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testGetAllOrders_LimitOutOfRange_ReturnsBadRequest() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/orders?limit=0", String.class);
+
+        // Assert that the response status code is 400 (Bad Request)
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void testStreamAllOrders_NdjsonAccept_WritesOneOrderPerLine() {
+        Order saved = saveOrder("Streamed Customer");
+
+        // Ask for the streaming representation of the order list
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType(OrderController.APPLICATION_NDJSON_VALUE)));
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/orders", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        // Assert that every line is one order and the saved order is among them
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        String[] lines = response.getBody().split("\n");
+        assertEquals(orderRepository.count(), lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{") && line.endsWith("}"));
+        }
+        assertTrue(response.getBody().contains("\"id\":" + saved.getId() + ","));
+    }
+
+    @Test
+    public void testGetAllOrders_NoParameters_ReturnsJsonList() {
+        saveOrder("Listed Customer");
+
+        ResponseEntity<Order[]> response = restTemplate.getForEntity("/orders", Order[].class);
+
+        // Assert that the plain list is still returned as JSON
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().length > 0);
+    }
+}
@@ -0,0 +1,212 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tdd.project.TestDrivenDevelopment.Config.SqlStatementMonitor;
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotal;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderField;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderPatch;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderUpdateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderPatchTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderUpdateService orderUpdateService;
+    @Autowired
+    private SqlStatementMonitor sqlStatementMonitor;
+
+    private Order saveOrder(String customerName, LocalDate orderDate, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(orderDate);
+        order.setShippingAddress("777 Dundas St");
+        order.setTotal(total);
+        return orderRepository.save(order);
+    }
+
+    // The default client cannot send PATCH, so these requests go through the JDK HTTP client
+    private <T> ResponseEntity<T> patch(Long id, String mergePatch, String ifMatch, Class<T> type) {
+        TestRestTemplate client = new TestRestTemplate(new RestTemplateBuilder()
+                .rootUri("http://localhost:" + port)
+                .requestFactory(JdkClientHttpRequestFactory.class));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(OrderPatch.MEDIA_TYPE));
+        if (ifMatch != null) {
+            headers.setIfMatch(ifMatch);
+        }
+        return client.exchange("/orders/" + id, HttpMethod.PATCH, new HttpEntity<>(mergePatch, headers), type);
+    }
+
+    private List<String> parse(String mergePatch) throws Exception {
+        List<String> errors = new ArrayList<>();
+        OrderPatch.parse(new ObjectMapper().readTree(mergePatch), errors);
+        return errors;
+    }
+
+    @Test
+    public void testPatchOrder_OneMember_ChangesOnlyThatField() {
+        Order saved = saveOrder("Patch Customer", LocalDate.of(2023, 11, 1), 40.0);
+
+        ResponseEntity<Order> response = patch(saved.getId(), "{\"shippingAddress\":\"1 New Rd\"}", null, Order.class);
+
+        // Assert that the address changed, the other fields kept their values and the ETag moved on
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Order patched = response.getBody();
+        assertEquals("1 New Rd", patched.getShippingAddress());
+        assertEquals("Patch Customer", patched.getCustomerName());
+        assertEquals(40.0, patched.getTotal());
+        assertEquals(LocalDate.of(2023, 11, 1), patched.getOrderDate());
+        assertEquals("\"" + (saved.getVersion() + 1) + "\"", response.getHeaders().getETag());
+        assertEquals("1 New Rd", restTemplate.getForObject("/orders/" + saved.getId(), Order.class).getShippingAddress());
+    }
+
+    @Test
+    public void testPatchOrder_Total_WritesOnlyChangedColumnsAndAdjustsRollup() throws Exception {
+        Order saved = saveOrder("Dynamic Update", LocalDate.of(2002, 2, 2), 10.0);
+        OrderPatch patch = OrderPatch.parse(new ObjectMapper().readTree("{\"total\":25.0}"), new ArrayList<>());
+
+        sqlStatementMonitor.beginRequest();
+        orderUpdateService.patch(saved.getId(), null, patch);
+        Map<String, Integer> statements = sqlStatementMonitor.requestStatements();
+        sqlStatementMonitor.endRequest("test");
+
+        // Assert that the UPDATE sets only the total and the version
+        String update = statements.keySet().stream().filter(sql -> sql.startsWith("update orders")).findFirst().orElseThrow();
+        assertTrue(update.contains("total=?"), update);
+        assertFalse(update.contains("customer_name"), update);
+        assertFalse(update.contains("shipping_address"), update);
+        assertFalse(update.contains("order_date"), update);
+
+        // Assert that the daily rollup follows the patched total
+        OrderDailyTotal[] daily = restTemplate.getForObject("/orders/rollup/daily?from=2002-02-02&to=2002-02-02&customerName=Dynamic Update", OrderDailyTotal[].class);
+        assertEquals(1, daily.length);
+        assertEquals(25.0, daily[0].getTotalSum());
+    }
+
+    @Test
+    public void testPatchOrder_SameValues_WritesNothing() {
+        Order saved = saveOrder("Unchanged Patch", LocalDate.of(2023, 11, 2), 12.0);
+
+        ResponseEntity<Order> response = patch(saved.getId(), "{\"total\":12.0,\"customerName\":\"Unchanged Patch\"}", null, Order.class);
+
+        // Assert that a patch without changes keeps the version
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"" + saved.getVersion() + "\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testPatchOrder_InvalidMembers_ReturnsBadRequest() throws Exception {
+        Order saved = saveOrder("Invalid Patch", LocalDate.of(2023, 11, 3), 12.0);
+
+        ResponseEntity<ErrorResponse> response = patch(saved.getId(), "{\"total\":-5,\"customerName\":null}", null, ErrorResponse.class);
+
+        // Assert that the response status code is 400 (Bad Request) with the constraint messages of PUT
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(List.of("customerName: Customer name required", "total: Total must be positive"), response.getBody().getErrors());
+
+        // Assert that members that cannot be patched are reported by name
+        assertEquals(List.of("orderDate: Field cannot be changed", "color: Unknown field", "total: Total must be a number"),
+                parse("{\"orderDate\":\"2020-01-01\",\"color\":\"red\",\"total\":\"ten\"}"));
+        assertEquals(List.of("patch: Merge patch must be a JSON object"), parse("[1]"));
+    }
+
+    @Test
+    public void testPatchOrder_StaleIfMatch_ReturnsPreconditionFailed() {
+        Order saved = saveOrder("Stale Patch", LocalDate.of(2023, 11, 4), 12.0);
+
+        ResponseEntity<String> response = patch(saved.getId(), "{\"total\":13.0}", "\"" + (saved.getVersion() + 5) + "\"", String.class);
+
+        // Assert that the response status code is 412 (Precondition Failed)
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    }
+
+    @Test
+    public void testPatchOrder_MissingOrder_ReturnsNotFound() {
+        ResponseEntity<String> response = patch(987654321L, "{\"total\":13.0}", null, String.class);
+
+        // Assert that the response status code is 404 (Not Found)
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void testGetOrderById_Fields_ReturnsOnlyThoseFields() {
+        Order saved = saveOrder("Projected Customer", LocalDate.of(2023, 11, 5), 55.0);
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("/orders/" + saved.getId() + "?fields=customerName,total", Map.class);
+
+        // Assert that the body holds the id and the requested fields only
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("id", saved.getId().intValue(), "customerName", "Projected Customer", "total", 55.0), response.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/orders/987654321?fields=total", String.class).getStatusCode());
+    }
+
+    @Test
+    public void testGetAllOrders_FieldsWithPage_ReturnsProjectedPage() {
+        for (int i = 0; i < 3; i++) {
+            saveOrder("Projected Page " + i, LocalDate.of(2023, 11, 6), 1.0 + i);
+        }
+
+        ResponseEntity<Map[]> response = restTemplate.getForEntity("/orders?limit=2&fields=orderDate", Map[].class);
+
+        // Assert that the page has the id and order date of each order, and a cursor for the next page
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().length);
+        assertEquals(2, response.getBody()[0].size());
+        assertTrue(response.getBody()[0].containsKey("orderDate"));
+        assertEquals(String.valueOf(response.getBody()[1].get("id")), response.getHeaders().getFirst("X-Next-After"));
+    }
+
+    @Test
+    public void testFindViews_SelectedFields_ReadsOnlyThoseColumns() {
+        saveOrder("Column Customer", LocalDate.of(2023, 11, 7), 9.0);
+
+        sqlStatementMonitor.beginRequest();
+        orderRepository.findViews(null, 10, EnumSet.of(OrderField.ID, OrderField.TOTAL));
+        Map<String, Integer> statements = sqlStatementMonitor.requestStatements();
+        sqlStatementMonitor.endRequest("test");
+
+        // Assert that the query selects the id and total columns only
+        String select = statements.keySet().iterator().next();
+        assertTrue(select.contains("total"), select);
+        assertFalse(select.contains("customer_name"), select);
+        assertFalse(select.contains("shipping_address"), select);
+    }
+
+    @Test
+    public void testGetAllOrders_UnknownField_ReturnsBadRequest() {
+        ResponseEntity<ErrorResponse> response = restTemplate.getForEntity("/orders?fields=total,color", ErrorResponse.class);
+
+        // Assert that the response status code is 400 (Bad Request) and names the unknown field
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().getErrors().get(0).startsWith("fields: Unknown field color"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderRollupTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Order newOrder(String customerName, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(total);
+        return order;
+    }
+
+    private OrderDailyTotal dailyTotal(String customerName) {
+        OrderDailyTotal[] rows = restTemplate.getForObject(
+                "/orders/rollup/daily?customerName={name}&from={day}&to={day}", OrderDailyTotal[].class,
+                customerName, LocalDate.now(), LocalDate.now());
+        return rows.length == 0 ? null : rows[0];
+    }
+
+    @Test
+    public void testCreateUpdateDelete_RollupFollowsEveryWrite() {
+        // Create two orders for the same customer and day
+        Order first = restTemplate.postForObject("/orders", newOrder("Rollup Customer", 10.0), Order.class);
+        restTemplate.postForObject("/orders", newOrder("Rollup Customer", 15.0), Order.class);
+        OrderDailyTotal afterCreate = dailyTotal("Rollup Customer");
+        assertEquals(2, afterCreate.getOrderCount());
+        assertEquals(25.0, afterCreate.getTotalSum());
+
+        // Raise the total of the first order
+        restTemplate.exchange("/orders/{id}", HttpMethod.PUT, new HttpEntity<>(newOrder("Rollup Customer", 30.0)), Order.class, first.getId());
+        OrderDailyTotal afterUpdate = dailyTotal("Rollup Customer");
+        assertEquals(2, afterUpdate.getOrderCount());
+        assertEquals(45.0, afterUpdate.getTotalSum());
+
+        // Move the first order to another customer
+        restTemplate.exchange("/orders/{id}", HttpMethod.PUT, new HttpEntity<>(newOrder("Other Customer", 30.0)), Order.class, first.getId());
+        assertEquals(1, dailyTotal("Rollup Customer").getOrderCount());
+        assertEquals(15.0, dailyTotal("Rollup Customer").getTotalSum());
+        assertEquals(30.0, dailyTotal("Other Customer").getTotalSum());
+
+        // Delete it; the emptied row disappears
+        restTemplate.exchange("/orders/{id}", HttpMethod.DELETE, null, String.class, first.getId());
+        assertNull(dailyTotal("Other Customer"));
+    }
+
+    @Test
+    public void testCreateOrders_Batch_RollupCountsEveryCreatedOrder() {
+        List<Order> orders = List.of(newOrder("Batch Rollup", 1.0), newOrder("Batch Rollup", 2.0), newOrder("", 3.0));
+
+        ResponseEntity<BatchItemResult[]> response = restTemplate.postForEntity("/orders/batch", orders, BatchItemResult[].class);
+
+        // Assert that only the two valid orders were rolled up
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        OrderDailyTotal total = dailyTotal("Batch Rollup");
+        assertEquals(2, total.getOrderCount());
+        assertEquals(3.0, total.getTotalSum());
+    }
+
+    @Test
+    public void testCreateOrders_SameCustomerAndDayConcurrently_AllCreatedAndCounted() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 10; round++) {
+                // Every thread creates the first order of a new customer and day at once, so all race to insert its row
+                String customerName = "Concurrent Rollup " + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<ResponseEntity<Order>>> responses = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    responses.add(executor.submit(() -> {
+                        start.await();
+                        return restTemplate.postForEntity("/orders", newOrder(customerName, 5.0), Order.class);
+                    }));
+                }
+                start.countDown();
+
+                // Assert that no create was rolled back and the rollup counts each of them once
+                for (Future<ResponseEntity<Order>> response : responses) {
+                    assertEquals(HttpStatus.CREATED, response.get().getStatusCode());
+                }
+                OrderDailyTotal total = dailyTotal(customerName);
+                assertEquals(threads, total.getOrderCount());
+                assertEquals(threads * 5.0, total.getTotalSum());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRebuildDailyTotals_CorruptedRollup_IsRecomputed() {
+        restTemplate.postForObject("/orders", newOrder("Rebuilt Customer", 12.5), Order.class);
+
+        // Corrupt the rollup behind the service's back
+        jdbcTemplate.update("UPDATE order_daily_totals SET order_count = 99 WHERE customer_name = 'Rebuilt Customer'");
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/orders/rollup/rebuild", null, String.class);
+
+        // Assert that the rebuild restored the true count
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, dailyTotal("Rebuilt Customer").getOrderCount());
+        assertEquals(12.5, dailyTotal("Rebuilt Customer").getTotalSum());
+    }
+}
@@ -0,0 +1,144 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Controller.OrderController;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderSearchHit;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderSearchTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderSearchIndex orderSearchIndex;
+
+    private Order createOrder(String customerName, String shippingAddress) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress(shippingAddress);
+        order.setTotal(100.0);
+        return restTemplate.postForEntity("/orders", order, Order.class).getBody();
+    }
+
+    @Test
+    public void testSearch_Prefix_RanksCustomerNameAboveAddress() {
+        Order byAddress = createOrder("Mary Smith", "12 Xaviertown Rd");
+        Order byName = createOrder("Xavier Walker", "5 Queen St");
+        createOrder("Alice Brown", "9 Bay St");
+
+        // Search for a prefix that occurs in one customer name and one address
+        ResponseEntity<OrderSearchHit[]> response = restTemplate.getForEntity("/orders/search?q=xavier", OrderSearchHit[].class);
+
+        // Assert that both match and the customer name match ranks first
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        OrderSearchHit[] hits = response.getBody();
+        assertEquals(2, hits.length);
+        assertEquals(byName.getId(), hits[0].getOrder().getId());
+        assertEquals(byAddress.getId(), hits[1].getOrder().getId());
+        assertEquals("2", response.getHeaders().getFirst(OrderController.TOTAL_COUNT_HEADER));
+    }
+
+    @Test
+    public void testSearch_SeveralTerms_AllTermsMustMatchAndPagesFollowRank() {
+        Order first = createOrder("Pat Oakley", "1 Oak Ave");
+        Order second = createOrder("Pat Oakley", "2 Elm Ave");
+        createOrder("Pat Elmore", "3 Pine Ave");
+
+        // Search with two terms, one result per page
+        ResponseEntity<OrderSearchHit[]> page0 = restTemplate.getForEntity("/orders/search?q=pat oak&size=1", OrderSearchHit[].class);
+        ResponseEntity<OrderSearchHit[]> page1 = restTemplate.getForEntity("/orders/search?q=pat oak&size=1&page=1", OrderSearchHit[].class);
+
+        // Assert that only orders matching both terms are counted, the exact address word ranking first
+        assertEquals("2", page0.getHeaders().getFirst(OrderController.TOTAL_COUNT_HEADER));
+        assertEquals(first.getId(), page0.getBody()[0].getOrder().getId());
+        assertEquals(second.getId(), page1.getBody()[0].getOrder().getId());
+    }
+
+    @Test
+    public void testSearch_AfterUpdateAndDelete_IndexFollowsChanges() {
+        Order order = createOrder("Quincy Adams", "7 Harbour St");
+        order.setCustomerName("Quentin Blake");
+
+        // Rename the order, then delete it
+        restTemplate.put("/orders/" + order.getId(), order);
+        OrderSearchHit[] afterUpdate = restTemplate.getForObject("/orders/search?q=quentin", OrderSearchHit[].class);
+        OrderSearchHit[] oldName = restTemplate.getForObject("/orders/search?q=quincy", OrderSearchHit[].class);
+        restTemplate.delete("/orders/" + order.getId());
+        OrderSearchHit[] afterDelete = restTemplate.getForObject("/orders/search?q=quentin", OrderSearchHit[].class);
+
+        // Assert that the new name is found, the old one is gone and the deleted order is no longer returned
+        assertEquals(1, afterUpdate.length);
+        assertEquals(0, oldName.length);
+        assertEquals(0, afterDelete.length);
+    }
+
+    @Test
+    public void testIndex_VersionsOfOneOrderConcurrently_NewestVersionStaysSearchable() throws Exception {
+        int threads = 8;
+        // Odd versions are named Yarrow and even ones Zinnia, so the newest version is a Yarrow
+        long versions = 2001;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                // An id no stored order has, so only these calls change its entry
+                long id = 990_000_000L + round;
+                AtomicLong nextVersion = new AtomicLong(1);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> indexers = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    indexers.add(executor.submit(() -> {
+                        start.await();
+                        for (long version = nextVersion.getAndIncrement(); version <= versions; version = nextVersion.getAndIncrement()) {
+                            Order order = new Order();
+                            order.setId(id);
+                            order.setVersion(version);
+                            order.setCustomerName(version % 2 == 1 ? "Yarrow Grant" : "Zinnia Grant");
+                            order.setShippingAddress("4 Index Row");
+                            orderSearchIndex.index(order);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> indexer : indexers) {
+                    indexer.get();
+                }
+
+                // Assert that the newest version's words are all still posted, whatever order the versions came in
+                assertTrue(orderSearchIndex.search("yarrow", 0, 1000).ids().contains(id), "round " + round);
+                assertFalse(orderSearchIndex.search("zinnia", 0, 1000).ids().contains(id), "round " + round);
+                orderSearchIndex.remove(id);
+                assertFalse(orderSearchIndex.search("grant", 0, 1000).ids().contains(id), "round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSearch_BlankQuery_ReturnsBadRequest() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/orders/search?q= ", String.class);
+
+        // Assert that a blank query is rejected
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
@@ -0,0 +1,116 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderStats;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderStatsTest {
+
+    // Orders for these tests are dated in 2001 so other tests' orders fall outside the range
+    private static final String RANGE = "from=2001-01-01&to=2001-12-31";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private void saveOrder(String customerName, LocalDate orderDate, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(orderDate);
+        order.setShippingAddress("333 King St");
+        order.setTotal(total);
+        orderRepository.save(order);
+    }
+
+    private void saveOrders() {
+        if (orderRepository.totalsBetween(LocalDate.of(2001, 1, 1), LocalDate.of(2001, 12, 31)).getOrderCount() > 0) {
+            return;
+        }
+        saveOrder("Alice", LocalDate.of(2001, 3, 5), 10.0);
+        saveOrder("Alice", LocalDate.of(2001, 3, 6), 30.0);
+        saveOrder("Bob", LocalDate.of(2001, 3, 6), 20.0);
+        saveOrder("Bob", LocalDate.of(2001, 4, 2), 40.0);
+    }
+
+    @Test
+    public void testGetOrderStats_NoGrouping_ReturnsTotalsForRange() {
+        saveOrders();
+
+        ResponseEntity<OrderStats[]> response = restTemplate.getForEntity("/orders/stats?" + RANGE, OrderStats[].class);
+
+        // Assert that one row aggregates all four orders
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        OrderStats[] stats = response.getBody();
+        assertNotNull(stats);
+        assertEquals(1, stats.length);
+        assertEquals(4, stats[0].getCount());
+        assertEquals(100.0, stats[0].getSum());
+        assertEquals(10.0, stats[0].getMin());
+        assertEquals(40.0, stats[0].getMax());
+        assertEquals(25.0, stats[0].getAvg());
+    }
+
+    @Test
+    public void testGetOrderStats_GroupByCustomer_ReturnsOneRowPerCustomer() {
+        saveOrders();
+
+        OrderStats[] stats = restTemplate.getForObject("/orders/stats?groupBy=customer&" + RANGE, OrderStats[].class);
+
+        // Assert that the rows are per customer, in name order
+        assertEquals(2, stats.length);
+        assertEquals("Alice", stats[0].getCustomerName());
+        assertEquals(2, stats[0].getCount());
+        assertEquals(40.0, stats[0].getSum());
+        assertEquals("Bob", stats[1].getCustomerName());
+        assertEquals(60.0, stats[1].getSum());
+    }
+
+    @Test
+    public void testGetOrderStats_GroupByMonth_RollsUpDays() {
+        saveOrders();
+
+        OrderStats[] stats = restTemplate.getForObject("/orders/stats?groupBy=date&bucket=month&" + RANGE, OrderStats[].class);
+
+        // Assert that March holds three orders and April one
+        assertEquals(2, stats.length);
+        assertEquals(LocalDate.of(2001, 3, 1), stats[0].getPeriod());
+        assertEquals(3, stats[0].getCount());
+        assertEquals(60.0, stats[0].getSum());
+        assertEquals(30.0, stats[0].getMax());
+        assertEquals(LocalDate.of(2001, 4, 1), stats[1].getPeriod());
+        assertEquals(1, stats[1].getCount());
+    }
+
+    @Test
+    public void testGetOrderStats_GroupByCustomerAndWeek_ReturnsWeekBuckets() {
+        saveOrders();
+
+        OrderStats[] stats = restTemplate.getForObject("/orders/stats?groupBy=customer,date&bucket=week&" + RANGE, OrderStats[].class);
+
+        // Assert that Alice's two March orders share the week starting Monday 2001-03-05
+        assertEquals(3, stats.length);
+        assertEquals("Alice", stats[0].getCustomerName());
+        assertEquals(LocalDate.of(2001, 3, 5), stats[0].getPeriod());
+        assertEquals(2, stats[0].getCount());
+        assertEquals(20.0, stats[0].getAvg());
+    }
+
+    @Test
+    public void testGetOrderStats_UnknownBucket_ReturnsBadRequest() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/orders/stats?groupBy=date&bucket=year", String.class);
+
+        // Assert that the response status code is 400 (Bad Request)
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
@@ -0,0 +1,151 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderTransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Small chunks and batches, so even short files are split over several chunks, threads and transactions
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "orders.transfer.chunk-size=512B",
+        "orders.transfer.batch-size=7",
+        "orders.transfer.threads=3"
+})
+public class OrderTransferTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ResponseEntity<OrderTransferService.ImportReport> importOrders(String body, String contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(contentType));
+        return restTemplate.postForEntity("/orders/import", new HttpEntity<>(body, headers), OrderTransferService.ImportReport.class);
+    }
+
+    private String export(String accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, accept);
+        ResponseEntity<String> response = restTemplate.exchange("/orders/export", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private int countOrders(String customerName) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE customer_name = ?", Integer.class, customerName);
+    }
+
+    @Test
+    public void testImportOrders_Csv_ImportsValidLinesAndReportsInvalidOnes() {
+        StringBuilder csv = new StringBuilder("id,customerName,orderDate,shippingAddress,total\r\n");
+        for (int i = 1; i <= 200; i++) {
+            if (i == 50) {
+                csv.append("50,,2023-02-01,1 Import Way,10.0\r\n");
+            } else if (i == 120) {
+                csv.append(",Csv Import,not-a-date,1 Import Way,-1\r\n");
+            } else if (i == 199) {
+                csv.append(",Csv Import,2023-02-01,1 Import Way\r\n");
+            } else {
+                csv.append(i).append(",Csv Import,2023-02-01,\"").append(i).append(" Import Way, \"\"Unit\"\" 2\",").append(i).append(".5\r\n");
+            }
+        }
+
+        ResponseEntity<OrderTransferService.ImportReport> response = importOrders(csv.toString(), "text/csv");
+
+        // Assert that every valid line is stored, and each invalid one is reported under its own line number
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        OrderTransferService.ImportReport report = response.getBody();
+        assertEquals(200, report.rows());
+        assertEquals(197, report.imported());
+        assertEquals(3, report.rejected());
+        assertEquals(List.of(
+                "line 51: customerName: Customer name required",
+                "line 121: orderDate: Order date must be an ISO date (yyyy-MM-dd)",
+                "line 200: Expected 5 values, found 4"), report.errors());
+        assertEquals(197, countOrders("Csv Import"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE shipping_address = '7 Import Way, \"Unit\" 2' AND total = 7.5", Integer.class));
+    }
+
+    @Test
+    public void testExportOrders_Csv_QuotesValuesThatNeedIt() {
+        Order order = new Order();
+        order.setCustomerName("Csv Export");
+        order.setOrderDate(LocalDate.of(2023, 3, 4));
+        order.setShippingAddress("12 Main St, \"Suite\" 4");
+        order.setTotal(42.25);
+        Long id = restTemplate.postForObject("/orders", order, Order.class).getId();
+
+        String csv = export("text/csv");
+
+        // Assert that the header comes first and the address is quoted with its quotes doubled
+        assertTrue(csv.startsWith("id,customerName,orderDate,shippingAddress,total\n"));
+        assertTrue(csv.contains("\n" + id + ",Csv Export," + LocalDate.now() + ",\"12 Main St, \"\"Suite\"\" 4\",42.25\n"), csv);
+    }
+
+    @Test
+    public void testExportThenImport_Ndjson_RoundTripsEveryOrder() {
+        importOrders("{\"customerName\":\"Round Trip\",\"orderDate\":\"2022-01-01\",\"shippingAddress\":\"\\u00c9toile 3\",\"total\":3.0}\n"
+                + "{\"customerName\":\"Round Trip\",\"orderDate\":\"2022-01-02\",\"shippingAddress\":\"Line\\nBreak 4\",\"total\":4.0}\n",
+                "application/x-ndjson");
+        int before = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class);
+
+        String ndjson = export("application/x-ndjson");
+        ResponseEntity<OrderTransferService.ImportReport> response = importOrders(ndjson, "application/x-ndjson");
+
+        // Assert that the export has one line per order and imports back in full, special characters included
+        assertEquals(before, ndjson.split("\n").length);
+        assertEquals(before, response.getBody().imported());
+        assertEquals(0, response.getBody().rejected());
+        assertEquals(4, countOrders("Round Trip"));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE shipping_address = 'Line' || CHAR(10) || 'Break 4'", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE shipping_address = 'Étoile 3'", Integer.class));
+    }
+
+    @Test
+    public void testImportOrders_ManyRows_ReportsThroughput() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            ndjson.append("{\"customerName\":\"Bulk Import\",\"orderDate\":\"2021-06-01\",\"shippingAddress\":\"")
+                    .append(i).append(" Bulk Road\",\"total\":").append(1 + i % 100).append("}\n");
+        }
+        ndjson.append("{\"customerName\": \"Bulk Import\", broken\n");
+
+        OrderTransferService.ImportReport report = importOrders(ndjson.toString(), "application/x-ndjson").getBody();
+
+        // Assert that the file split into thousands of chunks imports exactly once, with its rate reported
+        assertEquals(20000, report.imported());
+        assertEquals(1, report.rejected());
+        assertTrue(report.errors().get(0).startsWith("line 20001: Malformed JSON"), report.errors().get(0));
+        assertTrue(report.rowsPerSecond() > 0);
+        assertEquals(20000, countOrders("Bulk Import"));
+    }
+
+    @Test
+    public void testImportOrders_CsvWithoutRequiredColumns_ReturnsBadRequest() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        ResponseEntity<String> response = restTemplate.postForEntity("/orders/import",
+                new HttpEntity<>("customerName,total\nHeaderless,5.0\n", headers), String.class);
+
+        // Assert that the response status code is 400 (Bad Request)
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().contains("file: CSV header must name the columns customerName, orderDate, shippingAddress and total"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Controller.OrderController;
+import com.tdd.project.TestDrivenDevelopment.Exception.ErrorResponse;
+import com.tdd.project.TestDrivenDevelopment.Exception.OrderNotFoundException;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderConstraints;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderValidationTest {
+
+    // Garbage allowed per rejected order, on average, once the path is compiled
+    private static final long MAX_BYTES_PER_REJECTION = 16;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderController orderController;
+    @Autowired
+    private Validator validator;
+
+    private Order newOrder(String customerName, LocalDate orderDate, String shippingAddress, Double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(orderDate);
+        order.setShippingAddress(shippingAddress);
+        order.setTotal(total);
+        return order;
+    }
+
+    @Test
+    public void testCheck_AnyOrder_MatchesBeanValidation() {
+        String[] customerNames = {null, "", " \t", "Constraint Customer"};
+        LocalDate[] orderDates = {null, LocalDate.of(2023, 10, 1)};
+        String[] shippingAddresses = {null, "", " \t", "555 Bay St"};
+        Double[] totals = {null, -1.0, -0.0, 0.0, 0.01};
+        for (String customerName : customerNames) {
+            for (LocalDate orderDate : orderDates) {
+                for (String shippingAddress : shippingAddresses) {
+                    for (Double total : totals) {
+                        Order order = newOrder(customerName, orderDate, shippingAddress, total);
+                        Set<String> expected = new HashSet<>();
+                        for (ConstraintViolation<Order> violation : validator.validate(order)) {
+                            expected.add(violation.getPropertyPath() + ": " + violation.getMessage());
+                        }
+
+                        // Assert that the fast path finds exactly the violations Bean Validation finds
+                        assertEquals(expected, new HashSet<>(OrderConstraints.errors(OrderConstraints.check(order))),
+                                () -> "Order " + customerName + ", " + orderDate + ", " + shippingAddress + ", " + total);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCheckNew_BlankCustomerName_ReturnsBlankViolation() {
+        Order order = newOrder(" \t", LocalDate.of(2023, 10, 1), "555 Bay St", 10.0);
+
+        // Assert that a name of only whitespace passes @NotEmpty but is refused for new orders
+        assertEquals(OrderConstraints.VALID, OrderConstraints.check(order));
+        assertEquals(List.of("customerName: Customer name must not be blank"),
+                OrderConstraints.errors(OrderConstraints.checkNew(order)));
+    }
+
+    @Test
+    public void testCreateOrder_SeveralViolations_ReturnsThemInFieldOrder() {
+        Order order = newOrder("", null, " ", -5.0);
+
+        ResponseEntity<ErrorResponse> response = restTemplate.postForEntity("/orders", order, ErrorResponse.class);
+
+        // Assert that the response status code is 400 (Bad Request) with every violation listed
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Validation Error", response.getBody().getMessage());
+        assertEquals(List.of("customerName: Customer name required", "orderDate: Order date required",
+                "shippingAddress: Shipping address required", "total: Total must be positive"), response.getBody().getErrors());
+    }
+
+    @Test
+    public void testCreateOrder_InvalidOrder_AllocatesNoGarbagePerRequest() throws InterruptedException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Order order = newOrder("Allocation Customer", LocalDate.of(2023, 10, 1), "555 Bay St", -1.0);
+        // Let the JIT compile the rejection path first
+        for (int i = 0; i < 50000; i++) {
+            orderController.createOrder(order, null, null);
+        }
+
+        int requests = 100000;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < requests; i++) {
+            ResponseEntity<?> response = orderController.createOrder(order, null, null);
+            assertSame(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+        long bytesPerRequest = (threads.getCurrentThreadAllocatedBytes() - before) / requests;
+
+        // Assert that rejecting an order, including its metric, leaves no garbage behind
+        assertTrue(bytesPerRequest <= MAX_BYTES_PER_REJECTION, "Allocated " + bytesPerRequest + " bytes per rejected order");
+    }
+
+    @Test
+    public void testOrderNotFoundException_Created_HasNoStackTrace() {
+        OrderNotFoundException ex = new OrderNotFoundException("Order not found with id: 1");
+
+        // Assert that the exception skips capturing the stack
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals("Order not found with id: 1", ex.getMessage());
+    }
+}
@@ -0,0 +1,213 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import com.tdd.project.TestDrivenDevelopment.Filter.ResponseCompressionFilter;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderWireFormatTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    private Order saved;
+
+    @BeforeEach
+    public void setUp() {
+        // Enough orders for the list to pass the compression threshold
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Order order = new Order();
+            order.setCustomerName("Wire Customer " + i);
+            order.setOrderDate(LocalDate.of(2023, 9, 1).plusDays(i));
+            order.setShippingAddress(i + " Wire St");
+            order.setTotal(20.0 + i);
+            orders.add(order);
+        }
+        saved = orderRepository.saveAll(orders).get(7);
+    }
+
+    private ResponseEntity<byte[]> get(String path, String accept, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
+    private Order find(Order[] orders, Long id) {
+        return Arrays.stream(orders).filter(order -> order.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testGetAllOrders_AcceptCbor_ReturnsCborArray() throws IOException {
+        ResponseEntity<byte[]> response = get("/orders", "application/cbor", null);
+
+        // Assert that the list is CBOR and decodes to the stored orders, dates included
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/cbor", response.getHeaders().getContentType().toString());
+        Order order = find(cborMapper.readValue(response.getBody(), Order[].class), saved.getId());
+        assertEquals("Wire Customer 7", order.getCustomerName());
+        assertEquals(LocalDate.of(2023, 9, 8), order.getOrderDate());
+        assertEquals(27.0, order.getTotal());
+
+        // Assert that it is smaller than the same list as JSON
+        byte[] json = get("/orders", "application/json", null).getBody();
+        assertTrue(response.getBody().length < json.length);
+    }
+
+    @Test
+    public void testGetAllOrders_AcceptSmile_ReturnsSmileArray() throws IOException {
+        ResponseEntity<byte[]> response = get("/orders", "application/x-jackson-smile", null);
+
+        // Assert that the list is Smile and decodes to the stored orders
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(":)\n", new String(response.getBody(), 0, 3));
+        Order order = find(smileMapper.readValue(response.getBody(), Order[].class), saved.getId());
+        assertEquals("Wire Customer 7", order.getCustomerName());
+        assertEquals(LocalDate.of(2023, 9, 8), order.getOrderDate());
+    }
+
+    @Test
+    public void testGetOrderById_AcceptCbor_ReturnsCborOrder() throws IOException {
+        ResponseEntity<byte[]> response = get("/orders/" + saved.getId(), "application/cbor", null);
+
+        // Assert that single orders are negotiated too
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Order order = cborMapper.readValue(response.getBody(), Order.class);
+        assertEquals(saved.getId(), order.getId());
+        assertEquals(LocalDate.of(2023, 9, 8), order.getOrderDate());
+    }
+
+    @Test
+    public void testGetAllOrders_AcceptEncodingZstd_ReturnsZstdCompressedJson() throws IOException {
+        ResponseEntity<byte[]> response = get("/orders", "application/json", "gzip, zstd");
+
+        // Assert that zstd is preferred and the body decompresses to the JSON list
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("zstd", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        try (InputStream in = new ZstdInputStream(new ByteArrayInputStream(response.getBody()))) {
+            Order order = find(objectMapper.readValue(in, Order[].class), saved.getId());
+            assertEquals("Wire Customer 7", order.getCustomerName());
+        }
+    }
+
+    @Test
+    public void testGetAllOrders_AcceptEncodingGzip_ReturnsGzipCompressedNdjson() throws IOException {
+        ResponseEntity<byte[]> response = get("/orders", "application/x-ndjson", "gzip");
+
+        // Assert that the streamed list is compressed on the fly
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            String ndjson = new String(in.readAllBytes());
+            assertTrue(ndjson.contains("\"customerName\":\"Wire Customer 7\""));
+        }
+    }
+
+    @Test
+    public void testGetOrderById_SmallResponse_IsNotCompressed() {
+        ResponseEntity<byte[]> response = get("/orders/" + saved.getId(), "application/json", "zstd");
+
+        // Assert that a response below the threshold is sent as is, with its length
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(new String(response.getBody()).contains("Wire Customer 7"));
+    }
+
+    @Test
+    public void testCompressionFilter_NonBlockingWrite_SentUncompressedThroughContainerStream() throws Exception {
+        ResponseCompressionFilter filter = new ResponseCompressionFilter(true, DataSize.ofKilobytes(2), List.of(MediaType.APPLICATION_JSON));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        // A container stream that hands the registered listener back to the test
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        List<WriteListener> listeners = new ArrayList<>();
+        ServletOutputStream containerStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                sent.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                listeners.add(writeListener);
+            }
+        };
+        HttpServletResponse response = new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return containerStream;
+            }
+        };
+        byte[] json = ("[" + "\"order\",".repeat(1000) + "\"order\"]").getBytes();
+
+        filter.doFilter(request, response, (filteredRequest, filteredResponse) -> {
+            filteredResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            ServletOutputStream out = filteredResponse.getOutputStream();
+            out.setWriteListener(new WriteListener() {
+                @Override
+                public void onWritePossible() throws IOException {
+                    if (out.isReady()) {
+                        out.write(json);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+            });
+        });
+        listeners.get(0).onWritePossible();
+
+        // Assert that the listener reached the container's stream and the body went out as written
+        assertEquals(1, listeners.size());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(json, sent.toByteArray());
+    }
+}
@@ -0,0 +1,66 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Repository.OrderRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductionProfileTest {
+
+    @TempDir
+    Path dataDir;
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(TestDrivenDevelopmentApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("prod")
+                .run("--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("orders") + ";QUERY_CACHE_SIZE=64",
+                        "--spring.jpa.hibernate.ddl-auto=validate");
+    }
+
+    @Test
+    public void testProdProfile_Restart_OrdersSurviveOnDisk() {
+        Order order = new Order();
+        order.setCustomerName("John Taylor");
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(300.0);
+
+        // Save an order, then stop the application
+        Long id;
+        try (ConfigurableApplicationContext context = start()) {
+            id = context.getBean(OrderRepository.class).save(order).getId();
+        }
+
+        // Assert that a fresh start against the same files, with the migrated schema validated, still has it
+        try (ConfigurableApplicationContext context = start()) {
+            Order reloaded = context.getBean(OrderRepository.class).findById(id).orElseThrow();
+            assertEquals("John Taylor", reloaded.getCustomerName());
+            Integer migrations = context.getBean(JdbcTemplate.class)
+                    .queryForObject("SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '1' AND \"success\"", Integer.class);
+            assertEquals(1, migrations);
+        }
+    }
+
+    @Test
+    public void testProdProfile_NoExplicitPoolSize_PoolSizedFromCores() {
+        try (ConfigurableApplicationContext context = start()) {
+            HikariDataSource dataSource = context.getBean(HikariDataSource.class);
+
+            // Assert that the pool is fixed at two connections per core
+            int expected = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+            assertEquals(expected, dataSource.getMaximumPoolSize());
+            assertEquals(expected, dataSource.getMinimumIdle());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Controller.OrderController;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+public class ReactiveStackTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @LocalServerPort
+    private int port;
+
+    private Order newOrder(String customerName, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(total);
+        return order;
+    }
+
+    private Order createOrder(String customerName, double total) {
+        return webTestClient.post().uri("/orders").bodyValue(newOrder(customerName, total))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Order.class).returnResult().getResponseBody();
+    }
+
+    @Test
+    public void testCreateAndGetOrder_ReactiveStack_SameContractAsMvc() {
+        Order created = createOrder("John Taylor", 300.0);
+
+        // Read the order back, then again with its ETag
+        String etag = webTestClient.get().uri("/orders/" + created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.customerName").isEqualTo("John Taylor")
+                .returnResult().getResponseHeaders().getETag();
+
+        // Assert that the id and date were assigned and a matching If-None-Match is answered with 304
+        assertNotNull(created.getId());
+        assertEquals(LocalDate.now(), created.getOrderDate());
+        assertEquals("\"0\"", etag);
+        webTestClient.get().uri("/orders/" + created.getId()).header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    public void testCreateOrder_InvalidOrder_ReturnsValidationError() {
+        Order order = newOrder("John Taylor", -5.0);
+
+        // Assert that the constraint message comes back in an ErrorResponse
+        webTestClient.post().uri("/orders").bodyValue(order)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation Error")
+                .jsonPath("$.errors[0]").isEqualTo("total: Total must be positive");
+    }
+
+    @Test
+    public void testListOrders_ReactiveStack_StreamsNdjsonAndPagesByKeyset() {
+        Order first = createOrder("Page One", 10.0);
+        createOrder("Page Two", 20.0);
+
+        // Stream the whole table as NDJSON and read a one-order keyset page
+        List<Order> streamed = webTestClient.get().uri("/orders")
+                .accept(MediaType.parseMediaType(OrderController.APPLICATION_NDJSON_VALUE))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Order.class).getResponseBody().collectList().block();
+        HttpHeaders pageHeaders = webTestClient.get().uri("/orders?limit=1&after=" + (first.getId() - 1))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].id").isEqualTo(first.getId())
+                .returnResult().getResponseHeaders();
+
+        // Assert that every order was streamed and the page carries the next cursor
+        assertTrue(streamed.stream().anyMatch(order -> order.getId().equals(first.getId())));
+        assertEquals(String.valueOf(first.getId()), pageHeaders.getFirst(OrderController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testUpdateAndDelete_ReactiveStack_KeepsRollupInStep() {
+        Order created = createOrder("Rollup Reactive", 100.0);
+
+        // Update with the current ETag, retry with the stale one, then delete
+        webTestClient.put().uri("/orders/" + created.getId()).header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(newOrder("Rollup Reactive", 150.0))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        webTestClient.put().uri("/orders/" + created.getId()).header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(newOrder("Rollup Reactive", 175.0))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        Double totalAfterUpdate = jdbcTemplate.queryForObject(
+                "SELECT total_sum FROM order_daily_totals WHERE customer_name = 'Rollup Reactive'", Double.class);
+        webTestClient.delete().uri("/orders/" + created.getId())
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert that the rollup followed the update, the row went away with the order, and a second delete is a 404
+        assertEquals(150.0, totalAfterUpdate);
+        Integer rollupRows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_daily_totals WHERE customer_name = 'Rollup Reactive'", Integer.class);
+        assertEquals(0, rollupRows);
+        webTestClient.delete().uri("/orders/" + created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testCreateOrders_SameCustomerAndDayConcurrently_RollupCountsEveryOrder() {
+        // Eight creates per customer race to insert the first rollup row of each customer and day
+        WebClient webClient = WebClient.create("http://localhost:" + port);
+        List<HttpStatusCode> statuses = Flux.range(0, 80)
+                .flatMap(i -> webClient.post().uri("/orders").bodyValue(newOrder("Concurrent Reactive Rollup " + i % 10, 5.0))
+                        .retrieve()
+                        .toBodilessEntity()
+                        .map(ResponseEntity::getStatusCode), 80)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        // Assert that every create succeeded and was counted once
+        assertTrue(statuses.stream().allMatch(status -> status.equals(HttpStatus.CREATED)), statuses.toString());
+        List<Integer> orderCounts = jdbcTemplate.queryForList(
+                "SELECT order_count FROM order_daily_totals WHERE customer_name LIKE 'Concurrent Reactive Rollup %'", Integer.class);
+        assertEquals(10, orderCounts.size());
+        assertTrue(orderCounts.stream().allMatch(count -> count == 8), orderCounts.toString());
+    }
+
+    @Test
+    public void testGetOrderPages_ManyConcurrentRequests_AllComplete() {
+        Order first = createOrder("Concurrent Reader", 10.0);
+
+        // Request far more pages at once than there are pooled connections
+        WebClient webClient = WebClient.create("http://localhost:" + port);
+        List<HttpStatusCode> statuses = Flux.range(0, 500)
+                .flatMap(i -> webClient.get().uri("/orders?limit=10&after=" + (first.getId() - 1))
+                        .retrieve()
+                        .toBodilessEntity()
+                        .map(ResponseEntity::getStatusCode), 500)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        // Assert that every request was answered
+        assertEquals(500, statuses.size());
+        assertTrue(statuses.stream().allMatch(HttpStatusCode::is2xxSuccessful));
+    }
+}
@@ -0,0 +1,280 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Model.BatchItemResult;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderDailyTotal;
+import com.tdd.project.TestDrivenDevelopment.Model.OrderStats;
+import com.tdd.project.TestDrivenDevelopment.Service.ConsistentHashRing;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderIdAllocator;
+import com.tdd.project.TestDrivenDevelopment.Service.OrderShards;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Orders spread over three in-memory databases
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "orders.sharding.enabled=true",
+        "orders.sharding.urls=jdbc:h2:mem:orders-shard-test-0;DB_CLOSE_ON_EXIT=FALSE,"
+                + "jdbc:h2:mem:orders-shard-test-1;DB_CLOSE_ON_EXIT=FALSE,"
+                + "jdbc:h2:mem:orders-shard-test-2;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class ShardedStorageTest {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private OrderShards orderShards;
+
+    private Order newOrder(String customerName, LocalDate orderDate, double total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(orderDate);
+        order.setShippingAddress("555 Bay St");
+        order.setTotal(total);
+        return order;
+    }
+
+    private Long createOrder(String customerName, LocalDate orderDate, double total) {
+        Order created = restTemplate.postForObject("/orders", newOrder(customerName, orderDate, total), Order.class);
+        return created.getId();
+    }
+
+    // Reads the shard's database directly, bypassing the application
+    private boolean storedOn(int shard, Long id) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(orderShards.urls().get(shard), "name", "password");
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM orders WHERE id = ?")) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1) == 1;
+            }
+        }
+    }
+
+    @Test
+    public void testCrud_ShardedStorage_UsesOnlyTheOwningShard() throws SQLException {
+        Set<Integer> shardsUsed = new HashSet<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(createOrder("Routed Customer " + i, LocalDate.of(2002, 1, 1), 10.0 + i));
+        }
+
+        // Assert that every order is stored on the shard the ring assigns to its id, and on no other
+        for (Long id : ids) {
+            int owner = orderShards.shardOf(id);
+            shardsUsed.add(owner);
+            for (int shard = 0; shard < SHARDS; shard++) {
+                assertEquals(shard == owner, storedOn(shard, id));
+            }
+        }
+        assertEquals(SHARDS, shardsUsed.size());
+
+        // Assert that reads, updates and deletes reach the order on its shard
+        Long id = ids.get(0);
+        ResponseEntity<Order> found = restTemplate.getForEntity("/orders/" + id, Order.class);
+        Order stored = found.getBody();
+        assertEquals("Routed Customer 0", stored.getCustomerName());
+
+        stored.setTotal(99.0);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(found.getHeaders().getETag());
+        ResponseEntity<Order> updated = restTemplate.exchange("/orders/" + id, HttpMethod.PUT, new HttpEntity<>(stored, headers), Order.class);
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        assertEquals(99.0, restTemplate.getForObject("/orders/" + id, Order.class).getTotal());
+
+        ResponseEntity<String> deleted = restTemplate.exchange("/orders/" + id, HttpMethod.DELETE, null, String.class);
+        assertEquals(HttpStatus.OK, deleted.getStatusCode());
+        assertFalse(storedOn(orderShards.shardOf(id), id));
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/orders/" + id, String.class).getStatusCode());
+    }
+
+    @Test
+    public void testGetAllOrders_ShardedStorage_MergesShardsInIdOrder() {
+        for (int i = 0; i < 25; i++) {
+            createOrder("Merged Customer " + i, LocalDate.of(2003, 1, 1), 5.0);
+        }
+
+        Order[] all = restTemplate.getForObject("/orders", Order[].class);
+
+        // Assert that the orders of all shards come back in ascending id order
+        assertTrue(all.length >= 25);
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i - 1].getId() < all[i].getId());
+        }
+
+        // Assert that walking the keyset pages yields the same orders in the same order
+        List<Long> paged = new ArrayList<>();
+        String next = null;
+        do {
+            ResponseEntity<Order[]> page = restTemplate.getForEntity("/orders?limit=7" + (next != null ? "&after=" + next : ""), Order[].class);
+            for (Order order : page.getBody()) {
+                paged.add(order.getId());
+            }
+            next = page.getHeaders().getFirst("X-Next-After");
+        } while (next != null);
+        List<Long> expected = new ArrayList<>();
+        for (Order order : all) {
+            expected.add(order.getId());
+        }
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void testStreamAllOrders_ShardedStorage_StreamsInIdOrder() {
+        for (int i = 0; i < 12; i++) {
+            createOrder("Streamed Customer " + i, LocalDate.of(2004, 1, 1), 5.0);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, "application/x-ndjson");
+
+        ResponseEntity<String> response = restTemplate.exchange("/orders", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        // Assert that every order is one line, in ascending id order across shards
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String[] lines = response.getBody().split("\n");
+        Order[] all = restTemplate.getForObject("/orders", Order[].class);
+        assertEquals(all.length, lines.length);
+        for (int i = 0; i < all.length; i++) {
+            assertTrue(lines[i].startsWith("{\"id\":" + all[i].getId() + ","));
+        }
+    }
+
+    @Test
+    public void testStatsAndRollup_ShardedStorage_MergeAcrossShards() {
+        // The batch endpoint keeps the submitted order dates
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            orders.add(newOrder(i % 2 == 0 ? "Shard Alice" : "Shard Bob", LocalDate.of(2005, 6, 1 + i % 3), 10.0 * (i + 1)));
+        }
+        restTemplate.postForEntity("/orders/batch", orders, BatchItemResult[].class);
+
+        OrderStats[] stats = restTemplate.getForObject("/orders/stats?groupBy=customer&from=2005-01-01&to=2005-12-31", OrderStats[].class);
+
+        // Assert that the per-shard aggregates are combined per customer
+        assertEquals(2, stats.length);
+        assertEquals("Shard Alice", stats[0].getCustomerName());
+        assertEquals(5, stats[0].getCount());
+        assertEquals(250.0, stats[0].getSum());
+        assertEquals(10.0, stats[0].getMin());
+        assertEquals(90.0, stats[0].getMax());
+        assertEquals(50.0, stats[0].getAvg());
+        assertEquals("Shard Bob", stats[1].getCustomerName());
+        assertEquals(4, stats[1].getCount());
+        assertEquals(200.0, stats[1].getSum());
+
+        // Assert that the daily rollup rows of the shards are summed, before and after a rebuild
+        OrderDailyTotal[] daily = restTemplate.getForObject("/orders/rollup/daily?from=2005-01-01&to=2005-12-31", OrderDailyTotal[].class);
+        assertEquals(6, daily.length);
+        assertEquals(LocalDate.of(2005, 6, 1), daily[0].getOrderDate());
+        assertEquals("Shard Alice", daily[0].getCustomerName());
+        assertEquals(2, daily[0].getOrderCount());
+        assertEquals(80.0, daily[0].getTotalSum());
+        restTemplate.postForEntity("/orders/rollup/rebuild", null, String.class);
+        OrderDailyTotal[] rebuilt = restTemplate.getForObject("/orders/rollup/daily?from=2005-01-01&to=2005-12-31", OrderDailyTotal[].class);
+        assertEquals(6, rebuilt.length);
+        assertEquals(80.0, rebuilt[0].getTotalSum());
+    }
+
+    @Test
+    public void testCreateOrders_ShardedStorage_InsertsOnEachShard() throws SQLException {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            orders.add(newOrder("Sharded Batch " + i, LocalDate.of(2006, 1, 1), 1.0 + i));
+        }
+        orders.set(3, newOrder("", LocalDate.of(2006, 1, 1), 1.0));
+
+        ResponseEntity<BatchItemResult[]> response = restTemplate.postForEntity("/orders/batch", orders, BatchItemResult[].class);
+
+        // Assert that the results keep the submitted order and the valid orders landed on their shards
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        BatchItemResult[] results = response.getBody();
+        assertEquals(40, results.length);
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(i, results[i].getIndex());
+            if (i == 3) {
+                assertEquals(BatchItemResult.INVALID, results[i].getStatus());
+                continue;
+            }
+            assertEquals(BatchItemResult.CREATED, results[i].getStatus());
+            assertTrue(storedOn(orderShards.shardOf(results[i].getId()), results[i].getId()));
+        }
+    }
+
+    @Test
+    public void testConsistentHashRing_AddShard_MovesOnlyIdsToTheNewShard() {
+        ConsistentHashRing four = new ConsistentHashRing(4, 160);
+        ConsistentHashRing five = new ConsistentHashRing(5, 160);
+        OrderIdAllocator allocator = new OrderIdAllocator(0);
+        int ids = 100_000;
+        int[] counts = new int[4];
+        int moved = 0;
+        for (int i = 0; i < ids; i++) {
+            long id = allocator.nextId();
+            int before = four.shardOf(id);
+            int after = five.shardOf(id);
+            counts[before]++;
+            if (before != after) {
+                // Assert that an id only ever moves to the added shard
+                assertEquals(4, after);
+                moved++;
+            }
+        }
+
+        // Assert that the shards get similar shares and about a fifth of the ids move to the new shard
+        for (int count : counts) {
+            assertTrue(count > ids * 0.18 && count < ids * 0.32, "share " + count);
+        }
+        assertTrue(moved > ids * 0.12 && moved < ids * 0.28, "moved " + moved);
+    }
+
+    @Test
+    public void testOrderIdAllocator_ConcurrentCallers_GetUniqueIncreasingIds() throws InterruptedException {
+        OrderIdAllocator allocator = new OrderIdAllocator(5);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                long previous = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    long id = allocator.nextId();
+                    if (id <= previous || !ids.add(id) || OrderIdAllocator.nodeOf(id) != 5 || id >= 1L << 53) {
+                        synchronized (failures) {
+                            failures.add(new AssertionError("bad id " + id));
+                        }
+                        return;
+                    }
+                    previous = id;
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert that all ids are distinct, increase per caller, carry the node and fit in 53 bits
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertEquals(8 * 20_000, ids.size());
+    }
+}
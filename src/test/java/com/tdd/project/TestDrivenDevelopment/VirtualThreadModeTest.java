@@ -0,0 +1,41 @@
+package com.tdd.project.TestDrivenDevelopment;
+
+import com.tdd.project.TestDrivenDevelopment.Filter.VirtualThreadJdbcGuardFilter;
+import com.tdd.project.TestDrivenDevelopment.Model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "orders.virtual-threads.jdbc-permits=4"
+})
+public class VirtualThreadModeTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private VirtualThreadJdbcGuardFilter guardFilter;
+
+    @Test
+    public void testCreateOrder_VirtualThreadMode_ReturnsCreatedAndReleasesPermit() {
+        Order order = new Order();
+        order.setCustomerName("John Taylor");
+        order.setOrderDate(LocalDate.now());
+        order.setShippingAddress("333 King St");
+        order.setTotal(300.0);
+
+        // Perform the creation of the order on a virtual thread
+        ResponseEntity<Order> response = restTemplate.postForEntity("/orders", order, Order.class);
+
+        // Assert that the request succeeded and its JDBC permit was given back
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(4, guardFilter.availablePermits());
+    }
+}